@@ -1,17 +1,77 @@
 /**
- * Result of a search query, combining node data, its associated map data, and a relevance score.
+ * Result of a search query, combining node data, a summary of its map, and a relevance score.
+ * Built on the client from a {@link NodeSearchResponseDTO}.
  */
 export interface NodeMapDataSearchResultDTO {
   /** Node information that matched the search query */
   node: NodeDTO;
 
-  /** Map data associated with the matched node */
-  mapData: MapDataDTO;
+  /** Summary of the map of the matched node; fetch the full map by id when needed */
+  mapData: MapDataSummaryDTO;
 
   /** Number of keyword matches in node name and map name */
   score: number;
 }
 
+/**
+ * Search response as returned by the API: results reference their map by id, and each
+ * map is summarised once in `maps`
+ */
+export interface NodeSearchResponseDTO {
+  results: NodeSearchHitDTO[];
+
+  maps: MapDataSummaryDTO[];
+}
+
+/**
+ * A single search hit as returned by the API
+ */
+export interface NodeSearchHitDTO {
+  /** Node information that matched the search query */
+  node: NodeDTO;
+
+  /** Id of the map holding the node */
+  mapDataId: number;
+
+  /** Number of keyword matches in node name and map name */
+  score: number;
+}
+
+/**
+ * Floor number and name of a map, without its matrix
+ */
+export interface FloorSummaryDTO {
+  floorNumber: number;
+
+  name: string;
+}
+
+/**
+ * Light view of a map: no matrices, nodes or edges
+ */
+export interface MapDataSummaryDTO {
+  /** Unique identifier for the map */
+  id: number;
+
+  /** Human-readable name of the map */
+  name: string;
+
+  /** North‐reference angle for map orientation */
+  northAngle: number;
+
+  /** Geographic latitude of the map origin */
+  latitude: number;
+
+  /** Geographic longitude of the map origin */
+  longitude: number;
+
+  /** Floors of the map */
+  floors: FloorSummaryDTO[];
+
+  /** Number of nodes in the map */
+  nodeCount: number;
+}
+
 /**
  * Represents a named matrix block as returned by the API
  */
@@ -97,6 +157,9 @@ export interface MapDataDTO {
   /** Geographic longitude of the map origin */
   longitude: number;
 
+  /** Bumped on every change to the map; also carried in the response ETag */
+  version: number;
+
   /** List of named matrix blocks (each representing a floor) */
   matrices: NamedMatrixDTO[];
 
@@ -107,6 +170,42 @@ export interface MapDataDTO {
   edges: EdgeDTO[];
 }
 
+/**
+ * Tile layout of a floor and the current version of each tile
+ */
+export interface FloorTileSetDTO {
+  mapDataId: number;
+  floorNumber: number;
+  rows: number;
+  columns: number;
+
+  /** Cells per tile side; tiles on the right and bottom edges may be smaller */
+  tileSize: number;
+  tilesX: number;
+  tilesY: number;
+
+  /** Tile versions indexed [ty][tx] */
+  versions: string[][];
+}
+
+/**
+ * One block of a floor grid
+ */
+export interface FloorTileDTO {
+  mapDataId: number;
+  floorNumber: number;
+  tx: number;
+  ty: number;
+
+  /** Grid row and column of the top-left cell */
+  row: number;
+  column: number;
+
+  /** Changes only when a cell of this tile changes */
+  version: string;
+  cells: number[][];
+}
+
 /**
  * Path between two nodes, used for routing calculations
  */
@@ -12,6 +12,7 @@ import {
 import { NodeMapDataSearchResultDTO } from '@/app/classes/DTOs';
 import { AppContext } from '@/app/AppContext';
 import { NodeService } from '@/app/services/nodeService';
+import { MapDataService } from '@/app/services/mapDataService';
 
 interface ChooseDestinationProps {
   isSearchVisible: boolean;
@@ -79,14 +80,20 @@ const ChooseDestination: React.FC<ChooseDestinationProps> = ({ isSearchVisible }
     }
   };
 
-  // Handle selecting a suggestion
-  const handleSelectSuggestion = (item: NodeMapDataSearchResultDTO) => {
+  // Handle selecting a suggestion: results only carry a map summary, so fetch the full map
+  const handleSelectSuggestion = async (item: NodeMapDataSearchResultDTO) => {
     const { node, mapData } = item;
-    setTargetNode(node);
-    setTargetMapData(mapData);
     setQuery(`${node.name}, ${mapData.name}`);
     setSuggestions([]);
     setShouldSearch(false);
+    try {
+      const fullMapData = await MapDataService.getMapDataById(mapData.id);
+      setTargetNode(node);
+      setTargetMapData(fullMapData);
+    } catch {
+      setTargetNode(null);
+      setTargetMapData(null);
+    }
   };
 
   // Clear input and context values
@@ -1,12 +1,34 @@
 // mapService.ts
 import axios from 'axios';
-import { EdgeDTO, MapDataDTO, NodeDTO } from "@/app/classes/DTOs";
+import { EdgeDTO, FloorTileDTO, FloorTileSetDTO, MapDataDTO, NodeDTO } from "@/app/classes/DTOs";
 import { COMP_IP } from '../constants/consts';
 
 const apiClient = axios.create({
   baseURL: `https://${COMP_IP}/api/mapdata`,
 });
 
+// Last full map received per URL with its ETag; a 304 answer reuses the cached map
+const cachedMaps = new Map<string, { etag: string; data: MapDataDTO }>();
+
+// Tiles by map, floor, position and version; a tile whose version is unchanged is never refetched
+const cachedTiles = new Map<string, FloorTileDTO>();
+
+async function getRevalidated(url: string): Promise<MapDataDTO> {
+  const cached = cachedMaps.get(url);
+  const res = await axios.get<MapDataDTO>(url, {
+    headers: cached ? { 'If-None-Match': cached.etag } : undefined,
+    validateStatus: status => (status >= 200 && status < 300) || status === 304,
+  });
+  if (res.status === 304 && cached) {
+    return cached.data;
+  }
+  const etag = res.headers['etag'];
+  if (etag) {
+    cachedMaps.set(url, { etag, data: res.data });
+  }
+  return res.data;
+}
+
 export class MapDataService {
   static async getAllMapData(): Promise<MapDataDTO[]> {
     try {
@@ -20,8 +42,7 @@ export class MapDataService {
 
   static async getMapDataById(id: number): Promise<MapDataDTO> {
     try {
-      const res = await apiClient.get<MapDataDTO>(`/${id}`);
-      return res.data;
+      return await getRevalidated(`https://${COMP_IP}/api/mapdata/${id}`);
     } catch (e) {
       console.error(`Error fetching MapData ${id}:`, e);
       throw e;
@@ -30,12 +51,52 @@ export class MapDataService {
 
   static async getMapDataByNodeId(beaconId: string): Promise<MapDataDTO> {
     try {
-      const url = `https://${COMP_IP}/api/nodes/${beaconId}/mapdata`;
-      const res = await axios.get<MapDataDTO>(url);
-      return res.data;
+      return await getRevalidated(`https://${COMP_IP}/api/nodes/${beaconId}/mapdata`);
     } catch (e) {
       console.error(`Error fetching MapData for beacon ${beaconId}:`, e);
       throw e;
     }
   }
+
+  static async getFloorTiles(id: number, floor: number): Promise<FloorTileSetDTO> {
+    try {
+      const res = await apiClient.get<FloorTileSetDTO>(`/${id}/floors/${floor}/tiles`);
+      return res.data;
+    } catch (e) {
+      console.error(`Error fetching tiles of MapData ${id}, floor ${floor}:`, e);
+      throw e;
+    }
+  }
+
+  static async getFloorTile(id: number, floor: number, tx: number, ty: number, version: string): Promise<FloorTileDTO> {
+    const key = `${id}/${floor}/${tx}/${ty}/${version}`;
+    const cached = cachedTiles.get(key);
+    if (cached) {
+      return cached;
+    }
+    try {
+      const res = await apiClient.get<FloorTileDTO>(`/${id}/floors/${floor}/tiles/${tx}/${ty}`, { params: { v: version } });
+      cachedTiles.set(key, res.data);
+      return res.data;
+    } catch (e) {
+      console.error(`Error fetching tile (${tx}, ${ty}) of MapData ${id}, floor ${floor}:`, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Loads a floor tile by tile, calling onTile as each one arrives so large floors can be
+   * drawn progressively. Tiles are requested in rows starting from the top-left corner.
+   */
+  static async streamFloor(id: number, floor: number, onTile: (tile: FloorTileDTO) => void): Promise<FloorTileSetDTO> {
+    const layout = await MapDataService.getFloorTiles(id, floor);
+    for (let ty = 0; ty < layout.tilesY; ty++) {
+      const row = [];
+      for (let tx = 0; tx < layout.tilesX; tx++) {
+        row.push(MapDataService.getFloorTile(id, floor, tx, ty, layout.versions[ty][tx]).then(onTile));
+      }
+      await Promise.all(row);
+    }
+    return layout;
+  }
 }
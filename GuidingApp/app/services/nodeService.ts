@@ -1,6 +1,6 @@
 // nodeService.ts
 import axios from 'axios';
-import { NodeDTO, NodeMapDataSearchResultDTO } from "@/app/classes/DTOs";
+import { NodeDTO, NodeMapDataSearchResultDTO, NodeSearchResponseDTO } from "@/app/classes/DTOs";
 import { COMP_IP } from '../constants/consts';
 
 const apiClient = axios.create({ baseURL: `https://${COMP_IP}/api/nodes` });
@@ -43,10 +43,17 @@ export class NodeService {
 
   static async searchNodes(query: string, limit: number = 5): Promise<NodeMapDataSearchResultDTO[]> {
     try {
-      const response = await apiClient.get<NodeMapDataSearchResultDTO[]>('/search', {
+      const response = await apiClient.get<NodeSearchResponseDTO>('/search', {
         params: { q: query, limit }
       });
-      return response.data;
+      if (response.status === 204 || !response.data) {
+        return [];
+      }
+      // Each map is sent once; attach its summary to every result that references it
+      const maps = new Map(response.data.maps.map(m => [m.id, m]));
+      return response.data.results
+        .filter(r => maps.has(r.mapDataId))
+        .map(r => ({ node: r.node, mapData: maps.get(r.mapDataId)!, score: r.score }));
     } catch (e) {
       console.error(`Error searching nodes with query="${query}" and limit=${limit}:`, e);
       throw e;
@@ -0,0 +1,75 @@
+package es.gdapp.guidingApp.benchmarks;
+
+import es.gdapp.guidingApp.converters.GridMatrixConverter;
+import es.gdapp.guidingApp.converters.IntArrayConverter;
+import es.gdapp.guidingApp.models.GridMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Floor matrix column conversions: the legacy JSON {@link IntArrayConverter}, still used to
+ * read rows written before the binary column, against the packed {@link GridMatrixConverter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+
+    @Param({"10", "100", "500", "2000"})
+    private int size;
+
+    private final IntArrayConverter intArrayConverter = new IntArrayConverter();
+    private final GridMatrixConverter gridMatrixConverter = new GridMatrixConverter();
+
+    private int[][] matrix;
+    private String json;
+    private GridMatrix grid;
+    private byte[] packed;
+
+    @Setup
+    public void setup() {
+        matrix = Fixtures.floorPlan(size);
+        json = intArrayConverter.convertToDatabaseColumn(matrix);
+        grid = GridMatrix.of(matrix);
+        packed = gridMatrixConverter.convertToDatabaseColumn(grid);
+    }
+
+    @Benchmark
+    public String intArrayToColumn() {
+        return intArrayConverter.convertToDatabaseColumn(matrix);
+    }
+
+    @Benchmark
+    public int[][] intArrayFromColumn() {
+        return intArrayConverter.convertToEntityAttribute(json);
+    }
+
+    @Benchmark
+    public int[][] intArrayRoundTrip() {
+        return intArrayConverter.convertToEntityAttribute(intArrayConverter.convertToDatabaseColumn(matrix));
+    }
+
+    @Benchmark
+    public GridMatrix gridMatrixRoundTrip() {
+        return gridMatrixConverter.convertToEntityAttribute(gridMatrixConverter.convertToDatabaseColumn(grid));
+    }
+
+    @Benchmark
+    public GridMatrix gridMatrixFromColumn() {
+        return gridMatrixConverter.convertToEntityAttribute(packed);
+    }
+}
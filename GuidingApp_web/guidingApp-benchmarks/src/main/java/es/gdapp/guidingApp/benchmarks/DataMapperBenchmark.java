@@ -0,0 +1,49 @@
+package es.gdapp.guidingApp.benchmarks;
+
+import es.gdapp.guidingApp.dto.MapDataDTO;
+import es.gdapp.guidingApp.mappers.DataMapper;
+import es.gdapp.guidingApp.mappers.DataMapperImpl;
+import es.gdapp.guidingApp.models.MapData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** {@link DataMapper#toMapDataDTO} on a map with one floor and a chain of nodes and edges. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataMapperBenchmark {
+
+    @Param({"10", "500", "2000"})
+    private int size;
+
+    @Param({"10", "1000", "10000"})
+    private int nodes;
+
+    private final DataMapper dataMapper = new DataMapperImpl();
+
+    private MapData mapData;
+
+    @Setup
+    public void setup() {
+        mapData = Fixtures.map(size, nodes);
+    }
+
+    @Benchmark
+    public MapDataDTO toMapDataDTO() {
+        return dataMapper.toMapDataDTO(mapData);
+    }
+}
@@ -0,0 +1,58 @@
+package es.gdapp.guidingApp.benchmarks;
+
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic inputs shaped like real floors: a walled border, walls every ten cells with
+ * doors in them, and a few stairs and lift cells, so encodings and renderers see the same
+ * value mix as production maps.
+ */
+final class Fixtures {
+
+    private static final long SEED = 20240611L;
+
+    private Fixtures() {
+    }
+
+    static int[][] floorPlan(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[][] cells = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                boolean border = i == 0 || j == 0 || i == size - 1 || j == size - 1;
+                boolean wall = (i % 10 == 0 || j % 10 == 0) && random.nextInt(8) != 0;
+                cells[i][j] = border || wall ? 1 : random.nextInt(200) == 0 ? 9 : 0;
+            }
+        }
+        return cells;
+    }
+
+    /** A map with one floor of the given size, {@code nodes} nodes and a chain of edges between them */
+    static MapData map(int size, int nodes) {
+        MapData mapData = new MapData("Benchmark Building", 0.0, 40.335722, -3.876528, "baja", size, size);
+        mapData.setId(1L);
+        mapData.putMatrix(0, "baja", floorPlan(size));
+        List<Node> nodeList = new ArrayList<>(nodes);
+        List<Edge> edgeList = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            Node node = new Node("Aula " + i, "beacon-" + i, 0, i % 50 == 0, i == 0,
+                    i % size, (i / size) % size, null, mapData);
+            node.setId((long) i + 1);
+            nodeList.add(node);
+            if (i > 0) {
+                Edge edge = new Edge(nodeList.get(i - 1), node, 1 + i % 7, null, mapData);
+                edge.setId((long) i);
+                edgeList.add(edge);
+            }
+        }
+        mapData.setNodes(nodeList);
+        mapData.setEdges(edgeList);
+        return mapData;
+    }
+}
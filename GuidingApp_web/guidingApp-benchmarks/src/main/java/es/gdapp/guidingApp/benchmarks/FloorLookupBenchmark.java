@@ -0,0 +1,59 @@
+package es.gdapp.guidingApp.benchmarks;
+
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** {@link MapData#findMatrixByFloor} for the first, last and a missing floor of buildings of growing height. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FloorLookupBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int floors;
+
+    @Param({"10", "2000"})
+    private int size;
+
+    private MapData mapData;
+
+    @Setup
+    public void setup() {
+        mapData = Fixtures.map(size, 0);
+        for (int floor = 1; floor < floors; floor++) {
+            mapData.putMatrix(floor, "planta " + floor, new int[size][size]);
+        }
+    }
+
+    @Benchmark
+    public Optional<NamedMatrix> firstFloor() {
+        return mapData.findMatrixByFloor(0);
+    }
+
+    @Benchmark
+    public Optional<NamedMatrix> lastFloor() {
+        return mapData.findMatrixByFloor(floors - 1);
+    }
+
+    @Benchmark
+    public Optional<NamedMatrix> missingFloor() {
+        return mapData.findMatrixByFloor(floors);
+    }
+}
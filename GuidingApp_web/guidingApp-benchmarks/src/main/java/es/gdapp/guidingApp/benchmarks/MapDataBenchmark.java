@@ -0,0 +1,73 @@
+package es.gdapp.guidingApp.benchmarks;
+
+import es.gdapp.guidingApp.models.GridMatrix;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Floor edits and rendering on {@link MapData}. Grids are immutable, so each edit starts from
+ * the original grid by setting it back, which costs nothing next to the edit itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapDataBenchmark {
+
+    @Param({"10", "100", "500", "2000"})
+    private int size;
+
+    private MapData mapData;
+    private NamedMatrix floor;
+    private GridMatrix original;
+    private List<List<Integer>> outline;
+
+    @Setup
+    public void setup() {
+        mapData = Fixtures.map(size, 0);
+        floor = mapData.getMatrixByFloor(0);
+        original = floor.getGrid();
+        // A room drawn along the inside of the border and split by a corridor
+        int last = size - 2;
+        int middle = size / 2;
+        outline = List.of(
+                List.of(1, 1), List.of(1, middle), List.of(last, middle),
+                List.of(last, last), List.of(1, last), List.of(1, middle),
+                List.of(last, middle), List.of(last, 1));
+    }
+
+    @Benchmark
+    public String matrixSvg() {
+        return mapData.getMatrixSVG(0);
+    }
+
+    @Benchmark
+    public GridMatrix connectCoordinates() {
+        floor.setGrid(original);
+        mapData.connectCoordinates(outline, 1, 0);
+        return floor.getGrid();
+    }
+
+    @Benchmark
+    public GridMatrix resizeMatrix() {
+        floor.setGrid(original);
+        mapData.resizeMatrix(size + size / 10 + 1, size + size / 10 + 1, 0);
+        return floor.getGrid();
+    }
+}
@@ -0,0 +1,71 @@
+package es.gdapp.guidingApp.benchmarks;
+
+import es.gdapp.guidingApp.search.SuggestIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-keystroke latency of {@link SuggestIndex#suggest}: every invocation is the next prefix
+ * of a few typed queries, some with typos, over node names spread across 500 maps. Sampled,
+ * so the output has the p50 and p99 the typeahead is judged by.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SuggestBenchmark {
+
+    private static final String[] KINDS = {"Aula", "Clase", "Laboratorio", "Despacho", "Seminario", "Sala", "Baño", "Almacén"};
+    private static final String[] TYPED = {"laboratorio 42", "despacho 1", "clse 7", "seminaro 300", "edificio 12 aula"};
+
+    @Param({"10000", "100000"})
+    private int nodes;
+
+    private SuggestIndex index;
+    private String[] keystrokes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(3L);
+        index = new SuggestIndex();
+        for (int m = 0; m < 500; m++) {
+            index.putMap(m, "Edificio " + m);
+        }
+        for (int n = 0; n < nodes; n++) {
+            int map = random.nextInt(500);
+            index.putNode(1000 + n, KINDS[random.nextInt(KINDS.length)] + " " + random.nextInt(1000),
+                    (long) map, "Edificio " + map);
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (String text : TYPED) {
+            for (int i = 1; i <= text.length(); i++) {
+                prefixes.add(text.substring(0, i));
+            }
+        }
+        keystrokes = prefixes.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public List<SuggestIndex.Suggestion> keystroke() {
+        String typed = keystrokes[next];
+        next = (next + 1) % keystrokes.length;
+        return index.suggest(typed, 8);
+    }
+}
@@ -0,0 +1,63 @@
+package es.gdapp.guidingApp.benchmarks;
+
+import es.gdapp.guidingApp.search.TextIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scoring loop behind {@code NodeService.searchByText}, which now runs over the in-memory
+ * {@link TextIndex} rather than database candidates. Nodes are spread over maps of 500.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextSearchBenchmark {
+
+    private static final String[] KINDS = {"Aula", "Laboratorio", "Despacho", "Seminario", "Aseo", "Escalera"};
+
+    @Param({"1000", "10000", "100000"})
+    private int nodes;
+
+    private TextIndex index;
+
+    @Setup
+    public void setup() {
+        index = new TextIndex();
+        for (int i = 0; i < nodes; i++) {
+            long mapId = i / 500;
+            index.put(i + 1, KINDS[i % KINDS.length] + " " + i, mapId, "Edificio " + mapId);
+        }
+    }
+
+    // A common word and a number: many trigram candidates to check
+    @Benchmark
+    public List<TextIndex.Hit> commonWords() {
+        return index.search(List.of("laboratorio", "12"), 20);
+    }
+
+    // A map name matches every node of that map
+    @Benchmark
+    public List<TextIndex.Hit> mapName() {
+        return index.search(List.of("edificio", "7"), 20);
+    }
+
+    @Benchmark
+    public List<TextIndex.Hit> noMatch() {
+        return index.search(List.of("cafeteria"), 20);
+    }
+}
@@ -0,0 +1,128 @@
+package es.gdapp.guidingApp.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.converters.MapDataBinaryConverter;
+import es.gdapp.guidingApp.dto.MapDataDTO;
+import es.gdapp.guidingApp.mappers.DataMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A map response as JSON against the {@link MapDataBinaryConverter} format, both ways. The
+ * encoded sizes, plain and gzipped as the server sends them, are printed at the end of each
+ * trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    @Param({"1000"})
+    private int nodes;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final MapDataBinaryConverter binary = new MapDataBinaryConverter();
+
+    private MapDataDTO map;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    // The converter writes to an HTTP message; this one just keeps the bytes
+    private static final class Body extends ByteArrayOutputStream implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return this;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static HttpInputMessage message(byte[] bytes) {
+        return new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return new ByteArrayInputStream(bytes);
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return new HttpHeaders();
+            }
+        };
+    }
+
+    private static int gzipped(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        map = new DataMapperImpl().toMapDataDTO(Fixtures.map(size, nodes));
+        jsonBytes = json.writeValueAsBytes(map);
+        binaryBytes = binaryWrite();
+    }
+
+    @TearDown
+    public void printSizes() throws IOException {
+        System.out.printf("%nsize %d, %d nodes: JSON %,d bytes (gzip %,d), binary %,d bytes (gzip %,d)%n",
+                size, nodes, jsonBytes.length, gzipped(jsonBytes), binaryBytes.length, gzipped(binaryBytes));
+    }
+
+    @Benchmark
+    public byte[] jsonWrite() throws IOException {
+        return json.writeValueAsBytes(map);
+    }
+
+    @Benchmark
+    public byte[] binaryWrite() throws IOException {
+        Body body = new Body();
+        binary.write(map, MapDataDTO.class, MapDataBinaryConverter.MEDIA_TYPE, body);
+        return body.toByteArray();
+    }
+
+    @Benchmark
+    public MapDataDTO jsonRead() throws IOException {
+        return json.readValue(jsonBytes, MapDataDTO.class);
+    }
+
+    @Benchmark
+    public Object binaryRead() throws IOException {
+        return binary.read(MapDataDTO.class, null, message(binaryBytes));
+    }
+}
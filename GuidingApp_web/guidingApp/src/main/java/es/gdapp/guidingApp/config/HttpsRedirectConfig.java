@@ -1,6 +1,7 @@
 package es.gdapp.guidingApp.config;
 
 import org.apache.catalina.connector.Connector;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.servlet.server.ServletWebServerFactory;
@@ -16,6 +17,10 @@ public class HttpsRedirectConfig {
     @Value("${server.port}")
     private int httpsPort;
 
+    // Boot moves only the main connector to virtual threads; the redirect connector follows it here
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
     public ServletWebServerFactory servletContainer() {
         TomcatServletWebServerFactory tomcat = new TomcatServletWebServerFactory();
@@ -29,6 +34,9 @@ public class HttpsRedirectConfig {
         connector.setPort(httpPort);
         connector.setSecure(false);
         connector.setRedirectPort(httpsPort);
+        if (virtualThreads) {
+            connector.getProtocolHandler().setExecutor(new VirtualThreadExecutor("tomcat-redirect-"));
+        }
         return connector;
     }
 }
@@ -2,6 +2,8 @@ package es.gdapp.guidingApp.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -19,10 +21,14 @@ public class SecurityConfig {
                 )
                 // 2) Disable CSRF since we're only exposing a stateless REST API
                 .csrf(csrf -> csrf.disable())
-                // 3) Allow every request through (no authentication)
+                // 3) Bulk import writes whole maps: administrators only
+                //    (spring.security.user.*), everything else needs no authentication
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.POST, "/api/mapdata/import").hasRole("ADMIN")
                         .anyRequest().permitAll()
-                );
+                )
+                // 4) HTTP Basic for the endpoints that do need it
+                .httpBasic(Customizer.withDefaults());
         return http.build();
     }
 }
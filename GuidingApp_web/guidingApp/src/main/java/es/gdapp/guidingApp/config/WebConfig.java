@@ -1,8 +1,20 @@
 package es.gdapp.guidingApp.config;
 
+import es.gdapp.guidingApp.converters.MapDataBinaryConverter;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
 
 @Configuration
 @EnableSpringDataWebSupport(pageSerializationMode = EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO)
-public class WebConfig { }
+public class WebConfig implements WebMvcConfigurer {
+
+    // Added last so JSON stays the answer for Accept: */*; the binary format is opt-in
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MapDataBinaryConverter());
+    }
+}
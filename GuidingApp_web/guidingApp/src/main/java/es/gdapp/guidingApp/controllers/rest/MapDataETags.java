@@ -0,0 +1,89 @@
+package es.gdapp.guidingApp.controllers.rest;
+
+import es.gdapp.guidingApp.converters.MapDataBinaryConverter;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * ETags for map responses, derived from the map or tile version so the body never has to
+ * be serialised to compare it.
+ * <p>
+ * Tags are weak: they promise the same content, not the same bytes, which is all a client
+ * revalidating a download needs. Tomcat does not compress responses with a strong ETag,
+ * since the compressed body would be a different byte sequence under the same tag.
+ * <p>
+ * Map ids and versions start over when the schema is recreated (ddl-auto=create-drop), so
+ * map tags also carry the boot they were issued in; a tag kept by a client across a restart
+ * never matches a new map that happens to reuse its id and version. Tile and floor tags
+ * are content hashes and stay valid across restarts.
+ * <p>
+ * The same map URL answers JSON or the {@link MapDataBinaryConverter} format depending on
+ * Accept, so map tags name the format too: a cache holding one must not be told by a 304
+ * that it is the other.
+ */
+final class MapDataETags {
+
+    private static final String BOOT = Long.toString(System.currentTimeMillis(), 36);
+
+    private MapDataETags() {
+    }
+
+    static String of(Long mapDataId, long version, MediaType format) {
+        return "W/\"map-" + BOOT + "-" + mapDataId + "-v" + version + suffix(format) + "\"";
+    }
+
+    // Responses limited by the fields selector are different representations
+    static String of(Long mapDataId, long version, Collection<String> fields, MediaType format) {
+        return "W/\"map-" + BOOT + "-" + mapDataId + "-v" + version + "-" + String.join("+", new TreeSet<>(fields))
+                + suffix(format) + "\"";
+    }
+
+    private static String suffix(MediaType format) {
+        return MapDataBinaryConverter.MEDIA_TYPE.equals(format) ? "-bin" : "";
+    }
+
+    /**
+     * The format a map request gets for its Accept header, chosen as Spring's content
+     * negotiation would: highest quality first, JSON when a range takes both. Null when
+     * neither is acceptable.
+     */
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                break;
+            }
+            if (type.includes(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+            if (type.includes(MapDataBinaryConverter.MEDIA_TYPE)) {
+                return MapDataBinaryConverter.MEDIA_TYPE;
+            }
+        }
+        return null;
+    }
+
+    // Tiles are tagged by content, so the tag survives edits elsewhere in the map
+    static String ofTile(String tileVersion) {
+        return "W/\"tile-" + tileVersion + "\"";
+    }
+
+    // Floor images are tagged by the floor content and the rendering options
+    static String ofRendering(String floorVersion, String format, int cellSize) {
+        return "W/\"floor-" + floorVersion + "-" + format + "-" + cellSize + "\"";
+    }
+}
@@ -1,14 +1,54 @@
 package es.gdapp.guidingApp.controllers.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.dto.CursorPageDTO;
+import es.gdapp.guidingApp.dto.FloorTileDTO;
+import es.gdapp.guidingApp.dto.FloorTileSetDTO;
+import es.gdapp.guidingApp.dto.MapDataChangesDTO;
 import es.gdapp.guidingApp.dto.MapDataDTO;
+import es.gdapp.guidingApp.dto.MapDataSummaryDTO;
+import es.gdapp.guidingApp.dto.MapImportProgressDTO;
+import es.gdapp.guidingApp.dto.NearbyMapDataDTO;
+import es.gdapp.guidingApp.dto.NodeRouteDTO;
+import es.gdapp.guidingApp.dto.RouteTableStatsDTO;
+import es.gdapp.guidingApp.geo.MapLocationService;
 import es.gdapp.guidingApp.mappers.DataMapper;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.rendering.FloorRenderService;
+import es.gdapp.guidingApp.routing.NodeGraph;
+import es.gdapp.guidingApp.routing.NodeRouteService;
+import es.gdapp.guidingApp.routing.NodeRouteTable;
 import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.tiles.FloorTileService;
+import es.gdapp.guidingApp.tiles.FloorTiles;
+import es.gdapp.guidingApp.transfer.LimitedInputStream;
+import es.gdapp.guidingApp.transfer.MapExportService;
+import es.gdapp.guidingApp.transfer.MapImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 import java.util.stream.Collectors;
 
 @RestController
@@ -17,11 +57,37 @@ public class MapDataRestController {
 
     private final MapDataService mapDataService;
     private final DataMapper dataMapper;
+    private final NodeRouteService nodeRouteService;
+    private final MapLocationService mapLocationService;
+    private final FloorTileService floorTileService;
+    private final FloorRenderService floorRenderService;
+    private final MapImportService mapImportService;
+    private final MapExportService mapExportService;
+    private final ObjectMapper objectMapper;
+    private final DataSize maxImportSize;
+
+    private static final Set<String> DETAIL_FIELDS = Set.of("matrices", "nodes", "edges");
+    private static final int MAX_NEAREST = 100;
+    private static final int MAX_CELL_SIZE = 40;
+    private static final int MAX_PAGE_SIZE = 1000;
 
     @Autowired
-    public MapDataRestController(MapDataService mapDataService, DataMapper dataMapper) {
+    public MapDataRestController(MapDataService mapDataService, DataMapper dataMapper,
+                                 NodeRouteService nodeRouteService, MapLocationService mapLocationService,
+                                 FloorTileService floorTileService, FloorRenderService floorRenderService,
+                                 MapImportService mapImportService, MapExportService mapExportService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${guidingapp.import.max-size:1GB}") DataSize maxImportSize) {
         this.mapDataService = mapDataService;
         this.dataMapper = dataMapper;
+        this.nodeRouteService = nodeRouteService;
+        this.mapLocationService = mapLocationService;
+        this.floorTileService = floorTileService;
+        this.floorRenderService = floorRenderService;
+        this.mapImportService = mapImportService;
+        this.mapExportService = mapExportService;
+        this.objectMapper = objectMapper;
+        this.maxImportSize = maxImportSize;
     }
 
     @GetMapping
@@ -29,14 +95,311 @@ public class MapDataRestController {
         Collection<MapDataDTO> mapDataDTOs = mapDataService.getAllMapData().stream()
                 .map(dataMapper::toMapDataDTO)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(mapDataDTOs);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(mapDataDTOs);
+    }
+
+    // Map summaries page by page in id order; nextCursor is passed back as cursor for the
+    // following page
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPageDTO<MapDataSummaryDTO>> getMapDataPage(
+            @RequestParam("limit") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+        try {
+            return ResponseEntity.ok(mapDataService.getMapDataSummaryPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
+    // Lightweight listing for map pins: no matrices, nodes or edges
+    @GetMapping("/summary")
+    public ResponseEntity<List<MapDataSummaryDTO>> getMapDataSummaries() {
+        return ResponseEntity.ok(mapDataService.getMapDataSummaries());
+    }
+
+    // Closest buildings to a location; radius in meters, unlimited when omitted
+    @GetMapping("/nearest")
+    public ResponseEntity<List<NearbyMapDataDTO>> getNearestMapData(
+            @RequestParam("lat") double latitude,
+            @RequestParam("lon") double longitude,
+            @RequestParam(name = "k", defaultValue = "5") int k,
+            @RequestParam(name = "radius", required = false) Double radius
+    ) {
+        // Negated so that NaN coordinates are refused too
+        if (!(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)
+                || k < 1 || k > MAX_NEAREST || (radius != null && !(radius >= 0))) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+        List<NearbyMapDataDTO> nearest = mapLocationService.findNearest(
+                        latitude, longitude, k, radius == null ? Double.POSITIVE_INFINITY : radius)
+                .stream()
+                .map(match -> new NearbyMapDataDTO(match.entry().id(), match.entry().name(),
+                        match.entry().latitude(), match.entry().longitude(), match.distanceMeters()))
+                .toList();
+        return ResponseEntity.ok(nearest);
     }
 
+    // Optional fields=matrices,nodes,edges limits which collections are loaded and returned.
+    // Answers 304 without loading the map when If-None-Match holds the current ETag
     @GetMapping("/{id}")
-    public ResponseEntity<MapDataDTO> getMapDataById(@PathVariable Long id) {
+    public ResponseEntity<MapDataDTO> getMapDataById(
+            @PathVariable Long id,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request
+    ) {
+        Set<String> selected = parseFields(fields);
+        if (selected == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+        MediaType format = MapDataETags.negotiate(accept);
+        if (format == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).body(null);
+        }
+        Optional<Long> version = mapDataService.getMapDataVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        // Read before the map: if it changes in between, the body is newer than the tag and
+        // the next revalidation just downloads it again
+        String etag = selected.size() == DETAIL_FIELDS.size()
+                ? MapDataETags.of(id, version.get(), format)
+                : MapDataETags.of(id, version.get(), selected, format);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
         return mapDataService.getMapDataById(id)
-                .map(mapData -> ResponseEntity.ok(dataMapper.toMapDataDTO(mapData)))
+                .map(mapData -> {
+                    // The tag's version, not the entity's: an entity loaded earlier in the
+                    // same session does not see the bulk version update
+                    MapDataDTO dto = toSelectedDTO(mapData, selected);
+                    dto.setVersion(version.get());
+                    // Set here so the body is always the format the tag names
+                    return ResponseEntity.ok()
+                            .contentType(format)
+                            .eTag(etag)
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .cacheControl(CacheControl.noCache())
+                            .body(dto);
+                })
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(null));
     }
+
+    // Delta sync for cached maps: floors, nodes and edges written or removed after the
+    // version the client holds (the version field of the map it downloaded)
+    @GetMapping("/{id}/changes")
+    public ResponseEntity<MapDataChangesDTO> getChanges(@PathVariable Long id, @RequestParam("since") long since) {
+        try {
+            return mapDataService.getChangesSince(id, since)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
+    // Tile layout of a floor with the version of each tile
+    @GetMapping("/{id}/floors/{floor}/tiles")
+    public ResponseEntity<FloorTileSetDTO> getFloorTiles(@PathVariable Long id, @PathVariable int floor) {
+        return floorTileService.getTiles(id, floor)
+                .map(tiles -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache())
+                        .body(new FloorTileSetDTO(id, floor, tiles.getRows(), tiles.getColumns(),
+                                FloorTiles.TILE_SIZE, tiles.getTilesX(), tiles.getTilesY(), tiles.versions())))
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
+    }
+
+    // One tile of a floor grid, tx counting columns and ty rows from the top-left corner.
+    // The ETag is the tile version; when the request names the current version in v the
+    // tile can be cached for good, since a changed tile gets a new version
+    @GetMapping("/{id}/floors/{floor}/tiles/{tx}/{ty}")
+    public ResponseEntity<FloorTileDTO> getFloorTile(
+            @PathVariable Long id,
+            @PathVariable int floor,
+            @PathVariable int tx,
+            @PathVariable int ty,
+            @RequestParam(name = "v", required = false) String v,
+            WebRequest request
+    ) {
+        Optional<FloorTiles> tiles = floorTileService.getTiles(id, floor);
+        if (tiles.isEmpty() || !tiles.get().contains(tx, ty)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        String version = tiles.get().version(tx, ty);
+        String etag = MapDataETags.ofTile(version);
+        CacheControl cacheControl = version.equals(v)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        FloorTileDTO tile = new FloorTileDTO(id, floor, tx, ty, ty * FloorTiles.TILE_SIZE, tx * FloorTiles.TILE_SIZE,
+                version, tiles.get().cells(tx, ty));
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(tile);
+    }
+
+    // Floor plan as an image (format svg or png), cellSize pixels per cell. Images are cached
+    // and tagged by the floor content, so edits to other floors or to nodes keep them valid
+    @GetMapping("/{id}/floors/{floor}/render")
+    public ResponseEntity<StreamingResponseBody> renderFloor(
+            @PathVariable Long id,
+            @PathVariable int floor,
+            @RequestParam(name = "format", defaultValue = "svg") String format,
+            @RequestParam(name = "cellSize", defaultValue = "20") int cellSize,
+            WebRequest request
+    ) {
+        try {
+            if (cellSize > MAX_CELL_SIZE) {
+                throw new IllegalArgumentException("Cell size above " + MAX_CELL_SIZE);
+            }
+            FloorRenderService.Format imageFormat = FloorRenderService.Format.valueOf(format.toUpperCase());
+            Optional<FloorRenderService.Rendering> rendering = floorRenderService.render(id, floor, imageFormat, cellSize);
+            if (rendering.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            }
+            String etag = MapDataETags.ofRendering(rendering.get().getFloorVersion(), imageFormat.name().toLowerCase(), cellSize);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(imageFormat.getContentType()))
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(rendering.get()::writeTo);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
+    // Every map with its floors, nodes and edges as newline-delimited records, in the format
+    // /import reads; gzip-compressed when the client accepts it
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportMapData(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("maps.ndjson").build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> mapExportService.exportMaps(out, gzip));
+    }
+
+    // Bulk import of newline-delimited JSON (or a JSON array) of map, floor, node and edge
+    // records, stored as they are read; the body may be gzip-compressed. Answers with one
+    // progress line per committed batch and a last line holding the new map ids or the
+    // error that stopped the import. Bodies over guidingapp.import.max-size, as sent or
+    // once decompressed, are refused with 413
+    @PostMapping(value = "/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importMapData(HttpServletRequest request,
+                                                               HttpServletResponse response) {
+        long maxSize = maxImportSize.toBytes();
+        if (request.getContentLengthLong() > maxSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(null);
+        }
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    LimitedInputStream in = new LimitedInputStream(
+                            gzip ? new GZIPInputStream(request.getInputStream(), 1 << 16) : request.getInputStream(),
+                            maxSize);
+                    MapImportProgressDTO result = mapImportService.importMaps(in, progress -> writeLine(out, progress));
+                    // Still possible when the limit was hit before the first progress line
+                    if (in.isExceeded() && !response.isCommitted()) {
+                        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                    }
+                    writeLine(out, result);
+                });
+    }
+
+    private void writeLine(OutputStream out, MapImportProgressDTO progress) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(progress));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // All detail fields when none are given, null if any of them is unknown
+    private static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return DETAIL_FIELDS;
+        }
+        Set<String> selected = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) continue;
+            if (!DETAIL_FIELDS.contains(name)) {
+                return null;
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    private MapDataDTO toSelectedDTO(MapData mapData, Set<String> selected) {
+        if (selected.size() == DETAIL_FIELDS.size()) {
+            return dataMapper.toMapDataDTO(mapData);
+        }
+        MapDataDTO dto = dataMapper.toMapDataHeaderDTO(mapData);
+        if (selected.contains("matrices")) {
+            dto.setMatrices(dataMapper.toNamedMatrixDTOs(mapData.getMatrices()));
+        }
+        if (selected.contains("nodes")) {
+            dto.setNodes(dataMapper.toNodeDTOs(mapData.getNodes()));
+        }
+        if (selected.contains("edges")) {
+            dto.setEdges(dataMapper.toEdgeDTOs(mapData.getEdges()));
+        }
+        return dto;
+    }
+
+    // Shortest node-to-node route inside a map, floor changes included
+    @GetMapping("/{id}/route")
+    public ResponseEntity<NodeRouteDTO> getRoute(
+            @PathVariable Long id,
+            @RequestParam("fromNode") long fromNode,
+            @RequestParam("toNode") long toNode
+    ) {
+        Optional<NodeRouteTable> table = nodeRouteService.getRouteTable(id);
+        if (table.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        NodeGraph graph = table.get().getGraph();
+        if (!graph.containsNode(fromNode) || !graph.containsNode(toNode)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        return table.get().findRoute(fromNode, toNode)
+                .map(route -> ResponseEntity.ok(
+                        new NodeRouteDTO(id, route.getTotalWeight(), route.getNodeIds(), route.getEdgeIds())))
+                .orElse(ResponseEntity.noContent().build());
+    }
+
+    // Size and build time of the precomputed route table of a map
+    @GetMapping("/{id}/route/stats")
+    public ResponseEntity<RouteTableStatsDTO> getRouteStats(@PathVariable Long id) {
+        return nodeRouteService.getRouteTable(id)
+                .map(table -> ResponseEntity.ok(new RouteTableStatsDTO(
+                        id,
+                        table.getGraph().getNodeCount(),
+                        table.getGraph().getEdgeCount(),
+                        table.isTabulated(),
+                        table.getBuildNanos() / 1_000_000.0,
+                        table.getFootprintBytes())))
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
+    }
 }
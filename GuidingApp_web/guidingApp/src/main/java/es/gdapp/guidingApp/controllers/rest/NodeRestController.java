@@ -1,18 +1,28 @@
 package es.gdapp.guidingApp.controllers.rest;
 
+import es.gdapp.guidingApp.dto.BeaconLocationDTO;
+import es.gdapp.guidingApp.dto.BeaconMatchDTO;
+import es.gdapp.guidingApp.dto.CursorPageDTO;
 import es.gdapp.guidingApp.dto.MapDataDTO;
 import es.gdapp.guidingApp.dto.NodeDTO;
-import es.gdapp.guidingApp.dto.NodeMapDataSearchResultDTO;
+import es.gdapp.guidingApp.dto.NodeSearchResponseDTO;
+import es.gdapp.guidingApp.dto.SuggestionDTO;
 import es.gdapp.guidingApp.mappers.DataMapper;
 import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
 import es.gdapp.guidingApp.services.NodeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/nodes")
@@ -20,11 +30,16 @@ public class NodeRestController {
 
     private final NodeService nodeService;
     private final DataMapper dataMapper;
+    private final MapDataService mapDataService;
+
+    private static final int MAX_BEACONS_PER_REQUEST = 500;
+    private static final int MAX_PAGE_SIZE = 1000;
 
     @Autowired
-    public NodeRestController(NodeService nodeService, DataMapper dataMapper) {
+    public NodeRestController(NodeService nodeService, DataMapper dataMapper, MapDataService mapDataService) {
         this.nodeService = nodeService;
         this.dataMapper = dataMapper;
+        this.mapDataService = mapDataService;
     }
 
     // Obtener todos los nodos
@@ -33,6 +48,27 @@ public class NodeRestController {
         return ResponseEntity.ok(nodeService.getAllNodes());
     }
 
+    // Obtener los nodos por páginas en orden de id, con filtros opcionales por mapa, planta,
+    // salida o entrada. nextCursor se pasa como cursor para pedir la página siguiente
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPageDTO<NodeDTO>> getNodePage(
+            @RequestParam("limit") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "mapDataId", required = false) Long mapDataId,
+            @RequestParam(name = "floor", required = false) Integer floor,
+            @RequestParam(name = "exit", required = false) Boolean exit,
+            @RequestParam(name = "entrance", required = false) Boolean entrance
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+        try {
+            return ResponseEntity.ok(nodeService.getNodePage(mapDataId, floor, exit, entrance, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
     // Obtener un nodo por su id
     @GetMapping("/{id}")
     public ResponseEntity<Node> getNodeById(@PathVariable Long id) {
@@ -49,31 +85,92 @@ public class NodeRestController {
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
     }
 
-    // Nuevo endpoint: Obtener el MapData asociado a un nodo
+    // Obtener nodo, mapa y planta de un beaconId sin cargar el nodo
+    @GetMapping("/beacon/{beaconId}/location")
+    public ResponseEntity<BeaconLocationDTO> getBeaconLocation(@PathVariable String beaconId) {
+        return nodeService.resolveBeacon(beaconId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
+    }
+
+    // Resolver en una sola petición todos los beacons de un escaneo
+    @PostMapping("/beacons/resolve")
+    public ResponseEntity<List<BeaconMatchDTO>> resolveBeacons(@RequestBody List<String> beaconIds) {
+        if (beaconIds.size() > MAX_BEACONS_PER_REQUEST) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+        List<BeaconMatchDTO> matches = nodeService.resolveBeacons(beaconIds);
+        if (matches.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(matches);
+    }
+
+    // Nuevo endpoint: Obtener el MapData asociado a un nodo.
+    // Responde 304 sin cargar el mapa si If-None-Match trae el ETag actual
     @GetMapping("/{beaconId}/mapdata")
-    public ResponseEntity<MapDataDTO> getMapDataByBeaconId(@PathVariable String beaconId) {
-        return nodeService.getNodeByBeaconId(beaconId)
-                .map(node -> {
-                    if (node.getMapData() == null) {
-                        return ResponseEntity.status(HttpStatus.NOT_FOUND).<MapDataDTO>body(null);
-                    }
-                    return ResponseEntity.ok(dataMapper.toMapDataDTO(node.getMapData()));
+    public ResponseEntity<MapDataDTO> getMapDataByBeaconId(
+            @PathVariable String beaconId,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request
+    ) {
+        MediaType format = MapDataETags.negotiate(accept);
+        if (format == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).body(null);
+        }
+        Optional<BeaconLocationDTO> location = nodeService.resolveBeacon(beaconId);
+        if (location.isEmpty() || location.get().getMapDataId() == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        Long mapDataId = location.get().getMapDataId();
+        Optional<Long> version = mapDataService.getMapDataVersion(mapDataId);
+        if (version.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        String etag = MapDataETags.of(mapDataId, version.get(), format);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return mapDataService.getMapDataById(mapDataId)
+                .map(mapData -> {
+                    MapDataDTO dto = dataMapper.toMapDataDTO(mapData);
+                    dto.setVersion(version.get());
+                    return ResponseEntity.ok()
+                            .contentType(format)
+                            .eTag(etag)
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .cacheControl(CacheControl.noCache())
+                            .body(dto);
                 })
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
     }
 
+    // Resultados con el resumen de cada mapa una sola vez; el mapa completo se pide aparte
     @GetMapping("/search")
-    public ResponseEntity<List<NodeMapDataSearchResultDTO>> searchNodes(
+    public ResponseEntity<NodeSearchResponseDTO> searchNodes(
             @RequestParam("q") String query,
             @RequestParam(name = "limit", required = false, defaultValue = "10") int limit
     ) {
-        List<NodeMapDataSearchResultDTO> results = nodeService.searchByText(query, limit);
-        if (results.isEmpty()) {
+        NodeSearchResponseDTO results = nodeService.searchByText(query, limit);
+        if (results.getResults().isEmpty()) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.ok(results);
     }
 
+    // Sugerencias mientras se escribe, tolerantes a erratas
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(name = "limit", required = false, defaultValue = "8") int limit
+    ) {
+        List<SuggestionDTO> suggestions = nodeService.suggest(prefix, limit);
+        if (suggestions.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(suggestions);
+    }
+
     @GetMapping("/exits/{mapDataId}")
     public ResponseEntity<List<NodeDTO>> getExitNodes(
             @PathVariable Long mapDataId) {
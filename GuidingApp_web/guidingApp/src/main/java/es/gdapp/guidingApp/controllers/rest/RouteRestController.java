@@ -0,0 +1,68 @@
+package es.gdapp.guidingApp.controllers.rest;
+
+import es.gdapp.guidingApp.dto.GridRouteDTO;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import es.gdapp.guidingApp.routing.GridRouteEngine;
+import es.gdapp.guidingApp.services.MapDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/route")
+public class RouteRestController {
+
+    private final MapDataService mapDataService;
+    private final GridRouteEngine gridRouteEngine;
+
+    @Autowired
+    public RouteRestController(MapDataService mapDataService, GridRouteEngine gridRouteEngine) {
+        this.mapDataService = mapDataService;
+        this.gridRouteEngine = gridRouteEngine;
+    }
+
+    // Route between two cells of a floor matrix, e.g. /api/route?map=1&floor=0&from=2,3&to=14,6
+    @GetMapping
+    public ResponseEntity<GridRouteDTO> getRoute(
+            @RequestParam("map") Long mapDataId,
+            @RequestParam("floor") int floorNumber,
+            @RequestParam("from") String from,
+            @RequestParam("to") String to
+    ) {
+        int[] start = parsePoint(from);
+        int[] end = parsePoint(to);
+        if (start == null || end == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+
+        Optional<NamedMatrix> floor = mapDataService.getMapDataById(mapDataId)
+                .flatMap(mapData -> mapData.findMatrixByFloor(floorNumber));
+        if (floor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+
+        try {
+            return gridRouteEngine.findRoute(floor.get().getGrid(), start[0], start[1], end[0], end[1])
+                    .map(route -> ResponseEntity.ok(
+                            new GridRouteDTO(mapDataId, floorNumber, route.getCost(), route.getPath())))
+                    .orElse(ResponseEntity.noContent().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
+    private static int[] parsePoint(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package es.gdapp.guidingApp.converters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.models.GridMatrix;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link GridMatrix} in its packed binary form.
+ * Rows written before the switch to binary columns hold the JSON text produced by
+ * {@link IntArrayConverter}; they are still readable and get rewritten in binary on the
+ * next save (or by {@code MatrixColumnMigration}).
+ */
+@Converter(autoApply = true)
+public class GridMatrixConverter implements AttributeConverter<GridMatrix, byte[]> {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public byte[] convertToDatabaseColumn(GridMatrix attribute) {
+        return attribute == null ? null : attribute.toBytes();
+    }
+
+    @Override
+    public GridMatrix convertToEntityAttribute(byte[] dbData) {
+        if (dbData == null) {
+            return null;
+        }
+        if (isLegacyJson(dbData)) {
+            try {
+                return GridMatrix.of(objectMapper.readValue(dbData, int[][].class));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Error converting legacy JSON matrix to GridMatrix", e);
+            }
+        }
+        return GridMatrix.fromBytes(dbData);
+    }
+
+    /** True for matrices stored as JSON text, which always start with '[' (possibly after whitespace). */
+    public static boolean isLegacyJson(byte[] dbData) {
+        for (byte b : dbData) {
+            if (b == '[') return true;
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') return false;
+        }
+        return false;
+    }
+}
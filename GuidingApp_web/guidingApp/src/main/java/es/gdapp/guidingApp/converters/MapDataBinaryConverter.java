@@ -0,0 +1,347 @@
+package es.gdapp.guidingApp.converters;
+
+import es.gdapp.guidingApp.dto.EdgeDTO;
+import es.gdapp.guidingApp.dto.MapDataDTO;
+import es.gdapp.guidingApp.dto.NamedMatrixDTO;
+import es.gdapp.guidingApp.dto.NodeDTO;
+import es.gdapp.guidingApp.models.GridMatrix;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of {@link MapDataDTO}s, served to clients that send
+ * {@code Accept: application/vnd.guidingapp.map}; JSON stays the default.
+ * <p>
+ * Floor matrices go out in the packed {@link GridMatrix} format (one bit per cell for 0/1
+ * plans) instead of nested JSON arrays, and edges point at the nodes of the same map by
+ * index instead of repeating them. Everything else is written field by field, big-endian,
+ * with strings as length-prefixed UTF-8 and -1 lengths or a 0 flag byte for nulls.
+ * <p>
+ * Layout: format version byte, then {@code 'M'} and one map, or {@code 'L'}, a count and
+ * that many maps. Each map is its scalar fields followed by the matrices, nodes and edges
+ * lists, each prefixed by its size (-1 when left out by the fields selector).
+ */
+public class MapDataBinaryConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.guidingapp.map";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte SINGLE = 'M';
+    private static final byte LIST = 'L';
+
+    // Edge end points
+    private static final byte NO_NODE = 0;
+    private static final byte NODE_INDEX = 1;
+    private static final byte NODE_INLINE = 2;
+
+    public MapDataBinaryConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MapDataDTO.class.isAssignableFrom(clazz);
+    }
+
+    // Collections are checked against their element type by the generic canRead/canWrite;
+    // this only has to not rule them out when the media types are gathered by class
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) || Collection.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isMapData(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isMapData(type != null ? type : clazz) && canWrite(mediaType);
+    }
+
+    // A map or a collection of maps
+    private static boolean isMapData(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        if (MapDataDTO.class.isAssignableFrom(resolved.toClass())) {
+            return true;
+        }
+        ResolvableType collection = resolved.asCollection();
+        return collection != ResolvableType.NONE
+                && MapDataDTO.class.isAssignableFrom(collection.getGeneric(0).toClass());
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody()));
+        out.writeByte(FORMAT_VERSION);
+        if (body instanceof MapDataDTO map) {
+            out.writeByte(SINGLE);
+            writeMap(out, map);
+        } else {
+            Collection<?> maps = (Collection<?>) body;
+            out.writeByte(LIST);
+            out.writeInt(maps.size());
+            for (Object map : maps) {
+                writeMap(out, (MapDataDTO) map);
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputMessage.getBody()));
+        if (in.readByte() != FORMAT_VERSION) {
+            throw new HttpMessageNotReadableException("Unsupported map format version", inputMessage);
+        }
+        byte kind = in.readByte();
+        if (kind == SINGLE) {
+            return readMap(in);
+        }
+        if (kind != LIST) {
+            throw new HttpMessageNotReadableException("Not a map payload", inputMessage);
+        }
+        int count = in.readInt();
+        List<MapDataDTO> maps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            maps.add(readMap(in));
+        }
+        return maps;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(MapDataDTO.class, inputMessage);
+    }
+
+    private static void writeMap(DataOutputStream out, MapDataDTO map) throws IOException {
+        writeLong(out, map.getId());
+        writeString(out, map.getName());
+        out.writeDouble(map.getNorthAngle());
+        out.writeDouble(map.getLatitude());
+        out.writeDouble(map.getLongitude());
+        out.writeLong(map.getVersion());
+
+        List<NamedMatrixDTO> matrices = map.getMatrices();
+        out.writeInt(matrices == null ? -1 : matrices.size());
+        if (matrices != null) {
+            for (NamedMatrixDTO matrix : matrices) {
+                writeInteger(out, matrix.getFloorNumber());
+                writeString(out, matrix.getName());
+                writeBytes(out, matrix.getMatrix() == null ? null : GridMatrix.of(matrix.getMatrix()).toBytes());
+            }
+        }
+
+        List<NodeDTO> nodes = map.getNodes();
+        Map<Long, Integer> nodeIndex = new HashMap<>();
+        out.writeInt(nodes == null ? -1 : nodes.size());
+        if (nodes != null) {
+            for (int i = 0; i < nodes.size(); i++) {
+                NodeDTO node = nodes.get(i);
+                writeNode(out, node);
+                if (node.getId() != null) {
+                    nodeIndex.putIfAbsent(node.getId(), i);
+                }
+            }
+        }
+
+        List<EdgeDTO> edges = map.getEdges();
+        out.writeInt(edges == null ? -1 : edges.size());
+        if (edges != null) {
+            for (EdgeDTO edge : edges) {
+                writeLong(out, edge.getId());
+                writeInteger(out, edge.getWeight());
+                writeString(out, edge.getComment());
+                writeEdgeEnd(out, edge.getFromNode(), nodeIndex);
+                writeEdgeEnd(out, edge.getToNode(), nodeIndex);
+            }
+        }
+    }
+
+    private static MapDataDTO readMap(DataInputStream in) throws IOException {
+        MapDataDTO map = new MapDataDTO();
+        map.setId(readLong(in));
+        map.setName(readString(in));
+        map.setNorthAngle(in.readDouble());
+        map.setLatitude(in.readDouble());
+        map.setLongitude(in.readDouble());
+        map.setVersion(in.readLong());
+
+        int matrixCount = in.readInt();
+        if (matrixCount >= 0) {
+            List<NamedMatrixDTO> matrices = new ArrayList<>(matrixCount);
+            for (int i = 0; i < matrixCount; i++) {
+                Integer floorNumber = readInteger(in);
+                String name = readString(in);
+                byte[] grid = readBytes(in);
+                matrices.add(new NamedMatrixDTO(floorNumber, name,
+                        grid == null ? null : GridMatrix.fromBytes(grid).toArray()));
+            }
+            map.setMatrices(matrices);
+        }
+
+        int nodeCount = in.readInt();
+        List<NodeDTO> nodes = new ArrayList<>(Math.max(nodeCount, 0));
+        if (nodeCount >= 0) {
+            for (int i = 0; i < nodeCount; i++) {
+                nodes.add(readNode(in));
+            }
+            map.setNodes(nodes);
+        }
+
+        int edgeCount = in.readInt();
+        if (edgeCount >= 0) {
+            List<EdgeDTO> edges = new ArrayList<>(edgeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                EdgeDTO edge = new EdgeDTO();
+                edge.setId(readLong(in));
+                edge.setWeight(readInteger(in));
+                edge.setComment(readString(in));
+                edge.setFromNode(readEdgeEnd(in, nodes));
+                edge.setToNode(readEdgeEnd(in, nodes));
+                edges.add(edge);
+            }
+            map.setEdges(edges);
+        }
+        return map;
+    }
+
+    private static void writeNode(DataOutputStream out, NodeDTO node) throws IOException {
+        writeLong(out, node.getId());
+        writeString(out, node.getName());
+        writeString(out, node.getBeaconId());
+        writeInteger(out, node.getFloorNumber());
+        out.writeByte((node.isExit() ? 1 : 0) | (node.isEntrance() ? 2 : 0));
+        writeInteger(out, node.getX());
+        writeInteger(out, node.getY());
+        int[][] area = node.getArea();
+        out.writeInt(area == null ? -1 : area.length);
+        if (area != null) {
+            for (int[] row : area) {
+                out.writeInt(row.length);
+                for (int value : row) {
+                    out.writeInt(value);
+                }
+            }
+        }
+    }
+
+    private static NodeDTO readNode(DataInputStream in) throws IOException {
+        NodeDTO node = new NodeDTO();
+        node.setId(readLong(in));
+        node.setName(readString(in));
+        node.setBeaconId(readString(in));
+        node.setFloorNumber(readInteger(in));
+        int flags = in.readByte();
+        node.setExit((flags & 1) != 0);
+        node.setEntrance((flags & 2) != 0);
+        node.setX(readInteger(in));
+        node.setY(readInteger(in));
+        int rows = in.readInt();
+        if (rows >= 0) {
+            int[][] area = new int[rows][];
+            for (int i = 0; i < rows; i++) {
+                area[i] = new int[in.readInt()];
+                for (int j = 0; j < area[i].length; j++) {
+                    area[i][j] = in.readInt();
+                }
+            }
+            node.setArea(area);
+        }
+        return node;
+    }
+
+    // Nodes listed in the same map are written as their index; others (e.g. when only the
+    // edges were selected) are written in full
+    private static void writeEdgeEnd(DataOutputStream out, NodeDTO node, Map<Long, Integer> nodeIndex)
+            throws IOException {
+        if (node == null) {
+            out.writeByte(NO_NODE);
+            return;
+        }
+        Integer index = node.getId() == null ? null : nodeIndex.get(node.getId());
+        if (index != null) {
+            out.writeByte(NODE_INDEX);
+            out.writeInt(index);
+        } else {
+            out.writeByte(NODE_INLINE);
+            writeNode(out, node);
+        }
+    }
+
+    private static NodeDTO readEdgeEnd(DataInputStream in, List<NodeDTO> nodes) throws IOException {
+        return switch (in.readByte()) {
+            case NO_NODE -> null;
+            case NODE_INDEX -> nodes.get(in.readInt());
+            case NODE_INLINE -> readNode(in);
+            default -> throw new IOException("Invalid edge end point");
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value == null ? -1 : value.length);
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
@@ -0,0 +1,21 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Where a beacon is: its node, the map holding that node and the floor.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeaconLocationDTO {
+    private String beaconId;
+
+    private Long nodeId;
+
+    private Long mapDataId;
+
+    private Integer floorNumber;
+}
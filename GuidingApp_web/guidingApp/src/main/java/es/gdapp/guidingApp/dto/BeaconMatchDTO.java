@@ -0,0 +1,19 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A resolved beacon of a bulk lookup: the node that carries it and the map of that node.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeaconMatchDTO {
+    private String beaconId;
+
+    private Long mapDataId;
+
+    private NodeDTO node;
+}
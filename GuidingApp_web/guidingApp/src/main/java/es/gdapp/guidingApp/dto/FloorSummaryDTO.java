@@ -0,0 +1,14 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorSummaryDTO {
+    private Integer floorNumber;
+
+    private String name;
+}
@@ -0,0 +1,28 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorTileDTO {
+    private Long mapDataId;
+
+    private Integer floorNumber;
+
+    private int tx;
+
+    private int ty;
+
+    /** Grid row and column of the top-left cell of the tile */
+    private int row;
+
+    private int column;
+
+    /** Changes only when a cell of this tile changes */
+    private String version;
+
+    private int[][] cells;
+}
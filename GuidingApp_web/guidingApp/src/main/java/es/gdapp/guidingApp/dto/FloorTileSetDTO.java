@@ -0,0 +1,32 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tile layout of a floor: grid size, how it is cut and the current version of every tile,
+ * so clients only fetch tiles whose version differs from the one they hold.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorTileSetDTO {
+    private Long mapDataId;
+
+    private Integer floorNumber;
+
+    private int rows;
+
+    private int columns;
+
+    /** Cells per tile side; tiles on the right and bottom edges may be smaller */
+    private int tileSize;
+
+    private int tilesX;
+
+    private int tilesY;
+
+    /** Tile versions indexed [ty][tx] */
+    private String[][] versions;
+}
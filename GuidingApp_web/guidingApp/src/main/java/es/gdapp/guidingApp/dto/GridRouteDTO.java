@@ -0,0 +1,20 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GridRouteDTO {
+    private Long mapDataId;
+
+    private Integer floorNumber;
+
+    /** Total cost of the route, including the wall proximity penalties */
+    private int cost;
+
+    /** [x, y] pairs from start to end, both included */
+    private int[][] path;
+}
@@ -0,0 +1,48 @@
+package es.gdapp.guidingApp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What changed in a map between version {@code since} and {@code version}: the current
+ * state of every floor, node and edge written in between, and the ids of those removed.
+ * Applying it to a copy of the map at {@code since} gives the map at {@code version}.
+ */
+@Data
+@NoArgsConstructor
+public class MapDataChangesDTO {
+    private Long mapDataId;
+
+    private long since;
+
+    private long version;
+
+    // The changes cannot be given as a delta (see MapChange.Kind.RESET): fetch the whole map
+    private boolean reset;
+
+    // Name, orientation and location, only when they changed; without matrices, nodes or edges
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private MapDataDTO map;
+
+    private List<NamedMatrixDTO> matrices = new ArrayList<>();
+
+    private List<Integer> removedFloors = new ArrayList<>();
+
+    private List<NodeDTO> nodes = new ArrayList<>();
+
+    private List<Long> removedNodes = new ArrayList<>();
+
+    private List<EdgeDTO> edges = new ArrayList<>();
+
+    private List<Long> removedEdges = new ArrayList<>();
+
+    public MapDataChangesDTO(Long mapDataId, long since, long version) {
+        this.mapDataId = mapDataId;
+        this.since = since;
+        this.version = version;
+    }
+}
@@ -1,5 +1,6 @@
 package es.gdapp.guidingApp.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import java.util.List;
 
@@ -15,9 +16,16 @@ public class MapDataDTO {
 
     private double longitude;
 
+    /** Increases with every change to the map; the ETag of map responses is derived from it */
+    private long version;
+
+    // Left out of the JSON when not requested through the fields selector
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<NamedMatrixDTO> matrices;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<NodeDTO> nodes;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<EdgeDTO> edges;
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Light view of a MapData for listings and map pins: no matrices, nodes or edges.
+ */
+@Data
+@NoArgsConstructor
+public class MapDataSummaryDTO {
+    private Long id;
+
+    private String name;
+
+    private double northAngle;
+
+    private double latitude;
+
+    private double longitude;
+
+    private List<FloorSummaryDTO> floors = new ArrayList<>();
+
+    private long nodeCount;
+
+    // Used by the JPQL constructor expression in MapDataRepository
+    public MapDataSummaryDTO(Long id, String name, double northAngle, double latitude, double longitude,
+                             long nodeCount) {
+        this.id = id;
+        this.name = name;
+        this.northAngle = northAngle;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.nodeCount = nodeCount;
+    }
+}
@@ -0,0 +1,35 @@
+package es.gdapp.guidingApp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Running totals of a map import. One is sent after every committed batch; the last one
+ * has {@code done} set and the ids of the imported maps, or an {@code error}.
+ */
+@Data
+public class MapImportProgressDTO {
+    private long records;
+
+    private int maps;
+
+    private int floors;
+
+    private long nodes;
+
+    private long edges;
+
+    private long cells;
+
+    private boolean done;
+
+    // Only in the last line
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Long> mapIds;
+
+    // Why the import stopped; maps finished before the failing one are kept
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+}
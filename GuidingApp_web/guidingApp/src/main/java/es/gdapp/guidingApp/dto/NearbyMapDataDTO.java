@@ -0,0 +1,21 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyMapDataDTO {
+    private Long id;
+
+    private String name;
+
+    private double latitude;
+
+    private double longitude;
+
+    /** Great-circle distance from the queried location */
+    private double distanceMeters;
+}
@@ -0,0 +1,21 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NodeRouteDTO {
+    private Long mapDataId;
+
+    /** Sum of the weights of the traversed edges */
+    private int totalWeight;
+
+    /** Node ids from start to end, both included */
+    private long[] nodeIds;
+
+    /** Ids of the traversed edges, in order */
+    private long[] edgeIds;
+}
@@ -0,0 +1,18 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NodeSearchHitDTO {
+    private NodeDTO node;
+
+    /** Id of the node's map, described once in {@link NodeSearchResponseDTO#getMaps()} */
+    private Long mapDataId;
+
+    /** Number of keyword matches in node name and map name */
+    private int score;
+}
@@ -0,0 +1,21 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search results plus a summary of each map they belong to, listed once however many
+ * results share it. The full map is fetched separately once a result is chosen.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NodeSearchResponseDTO {
+    private List<NodeSearchHitDTO> results = new ArrayList<>();
+
+    private List<MapDataSummaryDTO> maps = new ArrayList<>();
+}
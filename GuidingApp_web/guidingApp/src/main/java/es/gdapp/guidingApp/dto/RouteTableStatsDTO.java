@@ -0,0 +1,25 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteTableStatsDTO {
+    private Long mapDataId;
+
+    private int nodeCount;
+
+    private int edgeCount;
+
+    /** False when the map is too large for an all-pairs table and routes are searched on demand */
+    private boolean tabulated;
+
+    /** Time spent building the table */
+    private double buildMillis;
+
+    /** Approximate heap used by the table and its graph */
+    private long footprintBytes;
+}
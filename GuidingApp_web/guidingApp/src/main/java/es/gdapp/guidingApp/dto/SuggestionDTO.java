@@ -0,0 +1,23 @@
+package es.gdapp.guidingApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    /** "NODE" or "MAP" */
+    private String type;
+
+    /** Node id, or map id for map suggestions */
+    private Long id;
+
+    private Long mapDataId;
+
+    /** Text to show: "node, map" or the map name */
+    private String text;
+
+    private int score;
+}
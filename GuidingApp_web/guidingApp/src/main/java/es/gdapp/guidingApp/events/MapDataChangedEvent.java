@@ -0,0 +1,23 @@
+package es.gdapp.guidingApp.events;
+
+import es.gdapp.guidingApp.models.MapChange;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Published by the services after a MapData, or any of its nodes or edges, has been
+ * created, modified or deleted. Components that keep derived data per map listen to it.
+ */
+@Data
+@AllArgsConstructor
+public class MapDataChangedEvent {
+    private Long mapDataId;
+    // What was written, as logged for delta sync; null when the map was deleted
+    private List<MapChange> changes;
+
+    public MapDataChangedEvent(Long mapDataId) {
+        this(mapDataId, null);
+    }
+}
@@ -0,0 +1,14 @@
+package es.gdapp.guidingApp.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by NodeService after a node has been created, modified or deleted, whether or
+ * not it belongs to a map. Map-wide changes are announced with {@link MapDataChangedEvent}.
+ */
+@Data
+@AllArgsConstructor
+public class NodeChangedEvent {
+    private Long nodeId;
+}
@@ -0,0 +1,201 @@
+package es.gdapp.guidingApp.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of points on the globe for nearest-neighbour queries.
+ * <p>
+ * Points are bucketed in a fixed latitude/longitude grid of {@value #CELL_DEGREES} degree cells
+ * (about 1 km along a meridian). A query scans rings of cells around the query point and
+ * stops once no unscanned cell can hold anything closer than the k-th best match or the
+ * radius. When the rings would visit more cells than are occupied (sparse data, far-away
+ * points, polar queries), the remaining work is a plain scan of the occupied cells.
+ * <p>
+ * Updates replace single points and can run concurrently with queries.
+ */
+public class GeoIndex {
+
+    static final double CELL_DEGREES = 0.01;
+    private static final int LAT_CELLS = (int) Math.round(180 / CELL_DEGREES);
+    private static final int LON_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    /** An indexed point */
+    public record Entry(long id, String name, double latitude, double longitude) {
+    }
+
+    /** A query result, with its great-circle distance to the query point */
+    public record Match(Entry entry, double distanceMeters) {
+    }
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Entry>> cells = new ConcurrentHashMap<>();
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Adds a point, or moves it if the id is already indexed. */
+    public synchronized void put(Entry entry) {
+        remove(entry.id());
+        entries.put(entry.id(), entry);
+        cells.computeIfAbsent(cellKey(latCell(entry.latitude()), lonCell(entry.longitude())),
+                key -> new ConcurrentHashMap<>()).put(entry.id(), entry);
+    }
+
+    public synchronized void remove(long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        long key = cellKey(latCell(previous.latitude()), lonCell(previous.longitude()));
+        Map<Long, Entry> cell = cells.get(key);
+        cell.remove(id);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cells.clear();
+    }
+
+    /**
+     * Finds the points closest to a location.
+     *
+     * @param latitude       query latitude, in degrees
+     * @param longitude      query longitude, in degrees
+     * @param k              maximum number of results
+     * @param radiusMeters   maximum distance of a result, or {@code Double.POSITIVE_INFINITY}
+     * @return up to k matches, closest first
+     */
+    public List<Match> nearest(double latitude, double longitude, int k, double radiusMeters) {
+        // Max-heap on distance holding the k best matches so far
+        PriorityQueue<Match> best = new PriorityQueue<>(
+                Comparator.comparingDouble(Match::distanceMeters).reversed());
+        int latCell = latCell(latitude);
+        int lonCell = lonCell(longitude);
+        int occupied = cells.size();
+
+        boolean done = false;
+        for (int ring = 0; (long) (2 * ring + 1) * (2 * ring + 1) <= occupied; ring++) {
+            scanRing(latCell, lonCell, ring, latitude, longitude, k, radiusMeters, best);
+            double bound = unscannedLowerBound(latitude, longitude, ring);
+            if (bound > radiusMeters || (best.size() == k && bound >= best.peek().distanceMeters())) {
+                done = true;
+                break;
+            }
+        }
+        if (!done) {
+            // Rings stopped paying off: look at every occupied cell instead
+            best.clear();
+            for (Map<Long, Entry> cell : cells.values()) {
+                scanCell(cell, latitude, longitude, k, radiusMeters, best);
+            }
+        }
+
+        List<Match> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Match::distanceMeters));
+        return result;
+    }
+
+    private void scanRing(int latCell, int lonCell, int ring, double latitude, double longitude,
+                          int k, double radiusMeters, PriorityQueue<Match> best) {
+        for (int dLat = -ring; dLat <= ring; dLat++) {
+            int row = latCell + dLat;
+            if (row < 0 || row >= LAT_CELLS) continue;
+            // Only the border of the square is new in this ring
+            int step = Math.abs(dLat) == ring ? 1 : Math.max(2 * ring, 1);
+            for (int dLon = -ring; dLon <= ring; dLon += step) {
+                Map<Long, Entry> cell = cells.get(cellKey(row, Math.floorMod(lonCell + dLon, LON_CELLS)));
+                if (cell != null) {
+                    scanCell(cell, latitude, longitude, k, radiusMeters, best);
+                }
+            }
+        }
+    }
+
+    private static void scanCell(Map<Long, Entry> cell, double latitude, double longitude,
+                                 int k, double radiusMeters, PriorityQueue<Match> best) {
+        for (Entry entry : cell.values()) {
+            double distance = distanceMeters(latitude, longitude, entry.latitude(), entry.longitude());
+            if (distance > radiusMeters) continue;
+            if (best.size() < k) {
+                best.add(new Match(entry, distance));
+            } else if (distance < best.peek().distanceMeters()) {
+                best.poll();
+                best.add(new Match(entry, distance));
+            }
+        }
+    }
+
+    /**
+     * Smallest possible distance from the query point to a cell outside the first
+     * {@code ring} rings. The scanned box spans whole cells, so its edges are measured from
+     * where the point sits inside its own cell: {@code ring} cells plus that offset on one
+     * side, {@code ring + 1} cells minus it on the other. An unscanned cell either lies
+     * beyond the box's first or last row, or within those rows but beyond its columns; the
+     * latter bound uses the row edge closest to a pole, so it drops to 0 near the poles and
+     * the query falls back to the full scan.
+     */
+    static double unscannedLowerBound(double latitude, double longitude, int ring) {
+        int latCell = latCell(latitude);
+        double latOffset = offsetInCell(latitude + 90 - latCell * CELL_DEGREES);
+        double toSouth = ring * CELL_DEGREES + latOffset;
+        double toNorth = (ring + 1) * CELL_DEGREES - latOffset;
+
+        // Rows past a pole do not exist, so that side has nothing left to scan
+        double latReach = Double.POSITIVE_INFINITY;
+        if (latCell - ring > 0) latReach = toSouth;
+        if (latCell + ring < LAT_CELLS - 1) latReach = Math.min(latReach, toNorth);
+        double latBound = Math.toRadians(latReach) * EARTH_RADIUS_METERS;
+
+        if (2L * ring + 1 >= LON_CELLS) {
+            return latBound;  // The scanned rows go all the way round
+        }
+        double lonOffset = offsetInCell(longitude + 180 - Math.floor((longitude + 180) / CELL_DEGREES) * CELL_DEGREES);
+        double lonReach = Math.min(ring * CELL_DEGREES + lonOffset, (ring + 1) * CELL_DEGREES - lonOffset);
+        double farthestLat = Math.min(90, Math.max(Math.abs(latitude - toSouth), Math.abs(latitude + toNorth)));
+        double hav = Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(farthestLat))
+                * haversine(Math.toRadians(Math.min(lonReach, 180)));
+        double lonBound = 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(Math.max(0, Math.min(1, hav))));
+        return Math.min(latBound, lonBound);
+    }
+
+    // Rounding in the cell arithmetic must not push the point outside its own cell
+    private static double offsetInCell(double offset) {
+        return Math.max(0, Math.min(CELL_DEGREES, offset));
+    }
+
+    /** Great-circle distance using the haversine formula. */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double h = haversine(phi2 - phi1)
+                + Math.cos(phi1) * Math.cos(phi2) * haversine(Math.toRadians(lon2 - lon1));
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(Math.min(1, h)));
+    }
+
+    private static double haversine(double angle) {
+        double s = Math.sin(angle / 2);
+        return s * s;
+    }
+
+    private static int latCell(double latitude) {
+        return Math.min(LAT_CELLS - 1, Math.max(0, (int) Math.floor((latitude + 90) / CELL_DEGREES)));
+    }
+
+    private static int lonCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), LON_CELLS);
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return (long) latCell * LON_CELLS + lonCell;
+    }
+}
@@ -0,0 +1,69 @@
+package es.gdapp.guidingApp.geo;
+
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.repositories.MapDataRepository;
+import es.gdapp.guidingApp.repositories.projections.MapLocationView;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Keeps a {@link GeoIndex} of every MapData position. The index is loaded from the
+ * database on first use and then kept current one map at a time as maps change.
+ */
+@Service
+public class MapLocationService {
+
+    private final MapDataRepository mapDataRepository;
+    private final GeoIndex index = new GeoIndex();
+    private volatile boolean loaded;
+
+    public MapLocationService(MapDataRepository mapDataRepository) {
+        this.mapDataRepository = mapDataRepository;
+    }
+
+    /**
+     * Finds the maps closest to a location.
+     *
+     * @param latitude     query latitude, in degrees
+     * @param longitude    query longitude, in degrees
+     * @param k            maximum number of results
+     * @param radiusMeters maximum distance, or {@code Double.POSITIVE_INFINITY}
+     * @return up to k maps, closest first
+     */
+    public List<GeoIndex.Match> findNearest(double latitude, double longitude, int k, double radiusMeters) {
+        ensureLoaded();
+        return index.nearest(latitude, longitude, k, radiusMeters);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMapDataChanged(MapDataChangedEvent event) {
+        synchronized (index) {
+            if (!loaded) {
+                return;  // The first load will read the change
+            }
+            mapDataRepository.findLocationById(event.getMapDataId()).ifPresentOrElse(
+                    location -> index.put(toEntry(location)),
+                    () -> index.remove(event.getMapDataId()));
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (index) {
+            if (!loaded) {
+                index.clear();
+                mapDataRepository.findAllLocations().forEach(location -> index.put(toEntry(location)));
+                loaded = true;
+            }
+        }
+    }
+
+    private static GeoIndex.Entry toEntry(MapLocationView location) {
+        return new GeoIndex.Entry(location.getId(), location.getName(),
+                location.getLatitude(), location.getLongitude());
+    }
+}
@@ -2,15 +2,30 @@ package es.gdapp.guidingApp.mappers;
 
 import es.gdapp.guidingApp.dto.EdgeDTO;
 import es.gdapp.guidingApp.dto.MapDataDTO;
+import es.gdapp.guidingApp.dto.NamedMatrixDTO;
 import es.gdapp.guidingApp.dto.NodeDTO;
 import es.gdapp.guidingApp.models.Edge;
 import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.NamedMatrix;
 import es.gdapp.guidingApp.models.Node;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
 
 @Mapper(componentModel = "spring")
 public interface DataMapper {
     MapDataDTO toMapDataDTO(MapData map);
     NodeDTO toNodeDTO(Node node);
     EdgeDTO toEdgeDTO(Edge edge);
+
+    // Scalar fields only, so lazy collections stay untouched
+    @Mapping(target = "matrices", ignore = true)
+    @Mapping(target = "nodes", ignore = true)
+    @Mapping(target = "edges", ignore = true)
+    MapDataDTO toMapDataHeaderDTO(MapData map);
+
+    List<NamedMatrixDTO> toNamedMatrixDTOs(List<NamedMatrix> matrices);
+    List<NodeDTO> toNodeDTOs(List<Node> nodes);
+    List<EdgeDTO> toEdgeDTOs(List<Edge> edges);
 }
@@ -3,17 +3,23 @@ package es.gdapp.guidingApp.models;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
 @Table(name = "graph_edge")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "graph_edge")
 public class Edge {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "graph_edge_seq")
+    @SequenceGenerator(name = "graph_edge_seq", sequenceName = "graph_edge_seq", allocationSize = 100)
     private Long id;
 
     private Integer weight;
@@ -24,8 +30,11 @@ public class Edge {
     @JoinColumn(name = "from_node_id", nullable = false)
     private Node fromNode;
 
+    // Left out of toString, equals and hashCode like Node.mapData
     @ManyToOne
     @JoinColumn(name = "map_data_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private MapData mapData;
 
 
@@ -0,0 +1,342 @@
+package es.gdapp.guidingApp.models;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact, immutable rows x columns grid of non-negative cell values.
+ * Cells are packed row by row using the narrowest width that fits every value:
+ * 1 bit per cell for 0/1 floor plans (rows padded to a whole byte), 1 byte per cell
+ * for values up to 255 and 4 bytes per cell otherwise.
+ * <p>
+ * Grids never change once built; edits go through an {@link Editor} that works on a copy
+ * and produces a new grid. This lets Hibernate treat the attribute as immutable, so dirty
+ * checking is a reference comparison instead of a re-serialisation of every floor, and
+ * lets the second-level cache keep the grid itself rather than a copy.
+ * <p>
+ * The binary form used for persistence is a 10 byte header (magic, cell width, rows,
+ * columns) followed by the packed cells.
+ */
+public final class GridMatrix implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Most cells a grid may hold, 2^28 (16384 x 16384): at 4 bytes per cell that is 1 GiB,
+     * so the packed cells of any allowed grid fit in one array.
+     */
+    public static final long MAX_CELLS = 1L << 28;
+
+    static final byte MAGIC = 'G';
+    private static final int HEADER_BYTES = 10;
+
+    private final int rows;
+    private final int columns;
+    private final int bitsPerCell;   // 1, 8 or 32
+    private final byte[] cells;
+    private int hash;                // Lazily computed, 0 until then
+
+    private GridMatrix(int rows, int columns, int bitsPerCell, byte[] cells) {
+        this.rows = rows;
+        this.columns = columns;
+        this.bitsPerCell = bitsPerCell;
+        this.cells = cells;
+    }
+
+    /** Creates a grid with every cell set to 0. */
+    public GridMatrix(int rows, int columns) {
+        this(rows, columns, 1, new byte[checkedSize(rows, columns, 1)]);
+    }
+
+    /**
+     * Packs a rectangular int matrix.
+     *
+     * @throws IllegalArgumentException if the matrix is jagged or has negative values
+     */
+    public static GridMatrix of(int[][] matrix) {
+        int rows = matrix.length;
+        int columns = rows == 0 ? 0 : matrix[0].length;
+        int max = 0;
+        for (int[] row : matrix) {
+            if (row.length != columns) {
+                throw new IllegalArgumentException("Matrix rows must all have " + columns + " columns");
+            }
+            for (int value : row) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Negative cell value: " + value);
+                }
+                max = Math.max(max, value);
+            }
+        }
+        int bits = widthFor(max);
+        byte[] cells = new byte[checkedSize(rows, columns, bits)];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                write(cells, columns, bits, i, j, matrix[i][j]);
+            }
+        }
+        return new GridMatrix(rows, columns, bits, cells);
+    }
+
+    // Bytes needed for the packed cells, computed in long so that huge sizes are rejected
+    // instead of wrapping around to a negative or too small array length
+    private static int checkedSize(int rows, int columns, int bitsPerCell) {
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException("Negative grid size: " + rows + "x" + columns);
+        }
+        if ((long) rows * columns > MAX_CELLS) {
+            throw new IllegalArgumentException(
+                    "Grid of " + rows + "x" + columns + " exceeds the limit of " + MAX_CELLS + " cells");
+        }
+        long rowBytes = bitsPerCell == 1 ? ((long) columns + 7) >>> 3 : (long) columns * (bitsPerCell >>> 3);
+        return Math.toIntExact(rows * rowBytes);
+    }
+
+    private static int widthFor(int value) {
+        return value <= 1 ? 1 : value <= 0xFF ? 8 : 32;
+    }
+
+    private static int rowBytes(int columns, int bitsPerCell) {
+        return bitsPerCell == 1 ? (columns + 7) >>> 3 : columns * (bitsPerCell >>> 3);
+    }
+
+    private static int read(byte[] cells, int columns, int bitsPerCell, int row, int column) {
+        int rowStart = row * rowBytes(columns, bitsPerCell);
+        switch (bitsPerCell) {
+            case 1:
+                return (cells[rowStart + (column >>> 3)] >>> (column & 7)) & 1;
+            case 8:
+                return cells[rowStart + column] & 0xFF;
+            default:
+                int p = rowStart + 4 * column;
+                return ((cells[p] & 0xFF) << 24) | ((cells[p + 1] & 0xFF) << 16)
+                        | ((cells[p + 2] & 0xFF) << 8) | (cells[p + 3] & 0xFF);
+        }
+    }
+
+    private static void write(byte[] cells, int columns, int bitsPerCell, int row, int column, int value) {
+        int rowStart = row * rowBytes(columns, bitsPerCell);
+        switch (bitsPerCell) {
+            case 1:
+                int p = rowStart + (column >>> 3);
+                int mask = 1 << (column & 7);
+                cells[p] = (byte) (value != 0 ? cells[p] | mask : cells[p] & ~mask);
+                break;
+            case 8:
+                cells[rowStart + column] = (byte) value;
+                break;
+            default:
+                int q = rowStart + 4 * column;
+                cells[q] = (byte) (value >>> 24);
+                cells[q + 1] = (byte) (value >>> 16);
+                cells[q + 2] = (byte) (value >>> 8);
+                cells[q + 3] = (byte) value;
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getBitsPerCell() {
+        return bitsPerCell;
+    }
+
+    public boolean contains(int row, int column) {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    public int get(int row, int column) {
+        checkBounds(row, column);
+        return read(cells, columns, bitsPerCell, row, column);
+    }
+
+    private void checkBounds(int row, int column) {
+        if (!contains(row, column)) {
+            throw new IndexOutOfBoundsException(
+                    "Cell (" + row + ", " + column + ") outside " + rows + "x" + columns + " grid");
+        }
+    }
+
+    /** Starts an edit on a private copy of this grid; the grid itself is left untouched. */
+    public Editor edit() {
+        return new Editor(this);
+    }
+
+    /** Unpacks the grid into a new int matrix. */
+    public int[][] toArray() {
+        int[][] matrix = new int[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                matrix[i][j] = read(cells, columns, bitsPerCell, i, j);
+            }
+        }
+        return matrix;
+    }
+
+    /** Serialises the grid to its binary form. */
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(HEADER_BYTES + cells.length)
+                .put(MAGIC)
+                .put((byte) bitsPerCell)
+                .putInt(rows)
+                .putInt(columns)
+                .put(cells)
+                .array();
+    }
+
+    /**
+     * Reads a grid written by {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException if the data is not a serialised grid
+     */
+    public static GridMatrix fromBytes(byte[] data) {
+        if (data.length < HEADER_BYTES || data[0] != MAGIC) {
+            throw new IllegalArgumentException("Not a serialised grid");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+        int bits = buffer.get();
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        if (bits != 1 && bits != 8 && bits != 32) {
+            throw new IllegalArgumentException("Unsupported cell width: " + bits);
+        }
+        // Checked before allocating, so a corrupt header cannot ask for a huge array
+        if (buffer.remaining() != checkedSize(rows, columns, bits)) {
+            throw new IllegalArgumentException("Grid data length does not match its " + rows + "x" + columns + " header");
+        }
+        byte[] cells = new byte[buffer.remaining()];
+        buffer.get(cells);
+        return new GridMatrix(rows, columns, bits, cells);
+    }
+
+    /** Size of the binary form, in bytes. */
+    public int getByteSize() {
+        return HEADER_BYTES + cells.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GridMatrix other)) return false;
+        if (rows != other.rows || columns != other.columns) return false;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) return false;
+        if (bitsPerCell == other.bitsPerCell) {
+            return Arrays.equals(cells, other.cells);
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (get(i, j) != other.get(i, j)) return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 31 * rows + columns;
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    h = 31 * h + read(cells, columns, bitsPerCell, i, j);
+                }
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "GridMatrix[" + rows + "x" + columns + ", " + bitsPerCell + " bit(s) per cell]";
+    }
+
+    /**
+     * Mutable working copy of a grid. Writing a value that does not fit the current cell
+     * width widens the copy. {@link #build()} hands the result over as a new immutable grid
+     * without copying it again.
+     */
+    public static final class Editor {
+
+        private final int rows;
+        private final int columns;
+        private int bitsPerCell;
+        private byte[] cells;
+
+        private Editor(GridMatrix source) {
+            this.rows = source.rows;
+            this.columns = source.columns;
+            this.bitsPerCell = source.bitsPerCell;
+            this.cells = source.cells.clone();
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        public boolean contains(int row, int column) {
+            return row >= 0 && row < rows && column >= 0 && column < columns;
+        }
+
+        public int get(int row, int column) {
+            checkBounds(row, column);
+            return read(cells, columns, bitsPerCell, row, column);
+        }
+
+        public Editor set(int row, int column, int value) {
+            checkBounds(row, column);
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative cell value: " + value);
+            }
+            int needed = widthFor(value);
+            if (needed > bitsPerCell) {
+                widen(needed);
+            }
+            write(cells, columns, bitsPerCell, row, column, value);
+            return this;
+        }
+
+        private void widen(int newBitsPerCell) {
+            byte[] wider = new byte[checkedSize(rows, columns, newBitsPerCell)];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    write(wider, columns, newBitsPerCell, i, j, read(cells, columns, bitsPerCell, i, j));
+                }
+            }
+            this.bitsPerCell = newBitsPerCell;
+            this.cells = wider;
+        }
+
+        private void checkBounds(int row, int column) {
+            checkOpen();
+            if (!contains(row, column)) {
+                throw new IndexOutOfBoundsException(
+                        "Cell (" + row + ", " + column + ") outside " + rows + "x" + columns + " grid");
+            }
+        }
+
+        /** Returns the edited grid. The editor hands its cells over and cannot be used afterwards. */
+        public GridMatrix build() {
+            checkOpen();
+            GridMatrix built = new GridMatrix(rows, columns, bitsPerCell, cells);
+            this.cells = null;
+            return built;
+        }
+
+        private void checkOpen() {
+            if (cells == null) {
+                throw new IllegalStateException("Editor already built");
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package es.gdapp.guidingApp.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of the per-map change log behind {@code GET /api/mapdata/{id}/changes}: the map
+ * version at which a node, edge, floor or the map header was written or removed. Entries only
+ * name what changed; the delta is built from the current rows.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "map_change", indexes = @Index(name = "idx_map_change_version", columnList = "map_data_id, version"))
+public class MapChange {
+
+    // RESET marks a write that could not be broken down: clients behind it reload the whole map
+    public enum Kind { MAP, FLOOR, NODE, EDGE, RESET }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "map_change_seq")
+    @SequenceGenerator(name = "map_change_seq", sequenceName = "map_change_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(name = "map_data_id", nullable = false)
+    private Long mapDataId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Kind kind;
+
+    // Node or edge id, floor number for floors, null for the map header
+    private Long entityId;
+
+    private boolean removed;
+
+    private MapChange(Kind kind, Long entityId, boolean removed) {
+        this.kind = kind;
+        this.entityId = entityId;
+        this.removed = removed;
+    }
+
+    public static MapChange header() {
+        return new MapChange(Kind.MAP, null, false);
+    }
+
+    public static MapChange reset() {
+        return new MapChange(Kind.RESET, null, false);
+    }
+
+    public static MapChange floor(int floorNumber, boolean removed) {
+        return new MapChange(Kind.FLOOR, (long) floorNumber, removed);
+    }
+
+    public static MapChange node(Long nodeId, boolean removed) {
+        return new MapChange(Kind.NODE, nodeId, removed);
+    }
+
+    public static MapChange edge(Long edgeId, boolean removed) {
+        return new MapChange(Kind.EDGE, edgeId, removed);
+    }
+}
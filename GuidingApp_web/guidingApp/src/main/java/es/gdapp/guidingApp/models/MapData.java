@@ -1,10 +1,17 @@
 package es.gdapp.guidingApp.models;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import es.gdapp.guidingApp.rendering.FloorRenderer;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -14,10 +21,12 @@ import java.util.Optional;
 @NoArgsConstructor
 @Entity
 @Table(name = "map_data")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "map_data")
 public class MapData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "map_data_seq")
+    @SequenceGenerator(name = "map_data_seq", sequenceName = "map_data_seq", allocationSize = 10)
     private Long id;  // Primary key identifier
 
     private String name;  // Map name
@@ -28,7 +37,14 @@ public class MapData {
 
     private double longitude;
 
+    // Bumped on every change to the map, its floors, nodes or edges (see
+    // MapDataService.markChanged); only written by MapDataRepository.incrementVersion
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long version;
+
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "map_data_matrices")
     @CollectionTable(
             name = "map_data_matrices",
             joinColumns = @JoinColumn(name = "map_data_id"),
@@ -40,10 +56,12 @@ public class MapData {
     private List<NamedMatrix> matrices = new ArrayList<>();  // Embedded list of named matrices
 
     @OneToMany(mappedBy = "mapData", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "map_data_nodes")
     @JsonManagedReference
     private List<Node> nodes;  // One-to-many relationship with Node entities
 
     @OneToMany(mappedBy = "mapData", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "map_data_edges")
     private List<Edge> edges;  // One-to-many relationship with Edge entities
 
 
@@ -59,11 +77,8 @@ public class MapData {
         // Initialize the list of matrices
         this.matrices = new ArrayList<>();
 
-        // Initialize the matrix data (all elements default to 0)
-        int[][] data = new int[rows][columns];
-
-        // Create and add the initial NamedMatrix to the collection
-        NamedMatrix initial = new NamedMatrix(0, matrixName, data);
+        // Create and add the initial NamedMatrix to the collection (all elements default to 0)
+        NamedMatrix initial = new NamedMatrix(0, matrixName, rows, columns);
         this.matrices.add(initial);
     }
 
@@ -122,11 +137,10 @@ public class MapData {
      * @param floorNumber the matrix number to print
      */
     public void printMatrix(int floorNumber) {
-        NamedMatrix namedMatrix = getMatrixByFloor(floorNumber);
-        int[][] matrix = namedMatrix.getMatrix();
-        for (int[] row : matrix) {
-            for (int value : row) {
-                System.out.print(value + " ");
+        GridMatrix grid = getMatrixByFloor(floorNumber).getGrid();
+        for (int i = 0; i < grid.getRows(); i++) {
+            for (int j = 0; j < grid.getColumns(); j++) {
+                System.out.print(grid.get(i, j) + " ");
             }
             System.out.println();
         }
@@ -140,33 +154,12 @@ public class MapData {
      * @return a String containing the SVG markup for the matrix
      */
     public String getMatrixSVG(int floorNumber) {
-        NamedMatrix namedMatrix = getMatrixByFloor(floorNumber);
-        int[][] matrix = namedMatrix.getMatrix();
-        int cellSize = 20;  // size in pixels for each square cell
-        int rows = matrix.length;
-        int cols = matrix[0].length;
-        int width = cols * cellSize;
-        int height = rows * cellSize;
-
-        StringBuilder svg = new StringBuilder();
-        svg.append("<svg width=\"").append(width)
-                .append("\" height=\"").append(height)
-                .append("\" viewBox=\"0 0 ").append(width).append(" ").append(height)
-                .append("\" xmlns=\"http://www.w3.org/2000/svg\">");
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                String fill = matrix[i][j] == 1 ? "black" : "white";
-                svg.append("<rect x=\"").append(j * cellSize)
-                        .append("\" y=\"").append(i * cellSize)
-                        .append("\" width=\"").append(cellSize)
-                        .append("\" height=\"").append(cellSize)
-                        .append("\" fill=\"").append(fill)
-                        .append("\" stroke=\"gray\"/>");
-            }
+        StringWriter svg = new StringWriter();
+        try {
+            new FloorRenderer(getMatrixByFloor(floorNumber).getGrid(), 20).writeSvg(svg);  // 20 pixels per cell
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringWriter does not throw
         }
-
-        svg.append("</svg>");
         return svg.toString();
     }
 
@@ -181,14 +174,15 @@ public class MapData {
      */
     public void connectCoordinates(List<List<Integer>> coordinates, int fillValue, int floorNumber) {
         NamedMatrix namedMatrix = getMatrixByFloor(floorNumber);
-        int[][] matrix = namedMatrix.getMatrix();
-        int rows = matrix.length;
+        // Grids are immutable: draw on a copy and swap it in at the end
+        GridMatrix.Editor grid = namedMatrix.getGrid().edit();
+        int rows = grid.getRows();
 
         // Validate all coordinates
         for (List<Integer> c : coordinates) {
             int x = c.get(0);
             int y = rows - 1 - c.get(1);  // invert Y
-            if (!isPointInMatrix(y, x, matrix)) {
+            if (!grid.contains(y, x)) {
                 throw new RuntimeException("Coordinate out of bounds: (" + c.get(0) + ", " + c.get(1) + ")");
             }
         }
@@ -204,14 +198,15 @@ public class MapData {
 
             if (x1 == x2) {
                 for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
-                    matrix[y][x1] = fillValue;
+                    grid.set(y, x1, fillValue);
                 }
             } else if (y1 == y2) {
                 for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
-                    matrix[y1][x] = fillValue;
+                    grid.set(y1, x, fillValue);
                 }
             }
         }
+        namedMatrix.setGrid(grid.build());
     }
 
     /**
@@ -237,15 +232,15 @@ public class MapData {
      */
     public void resizeMatrix(int newRows, int newCols, int floorNumber) {
         NamedMatrix namedMatrix = getMatrixByFloor(floorNumber);
-        int[][] oldMatrix = namedMatrix.getMatrix();
-        int oldRows = oldMatrix.length;
-        int oldCols = oldMatrix[0].length;
+        GridMatrix oldGrid = namedMatrix.getGrid();
+        int oldRows = oldGrid.getRows();
+        int oldCols = oldGrid.getColumns();
         // Calculate vertical offset: move the original content down by (newRows - oldRows)
         int rowOffset = newRows - oldRows;
         // Horizontal offset remains 0 to keep the original content aligned to the left
         int colOffset = 0;
-        // Create a new matrix with the new dimensions; cells are initialized to 0 by default
-        int[][] newMatrix = new int[newRows][newCols];
+        // Create a new grid with the new dimensions; cells are initialized to 0 by default
+        GridMatrix.Editor newGrid = new GridMatrix(newRows, newCols).edit();
 
         // Copy the content of the old matrix into the new one at the adjusted positions
         for (int i = 0; i < oldRows; i++) {
@@ -254,11 +249,11 @@ public class MapData {
                 int newCol = j + colOffset;
                 // Ensure that the new indices are within bounds (newRow >= 0 is added)
                 if (newRow >= 0 && newRow < newRows && newCol < newCols) {
-                    newMatrix[newRow][newCol] = oldMatrix[i][j];
+                    newGrid.set(newRow, newCol, oldGrid.get(i, j));
                 }
             }
         }
 
-        namedMatrix.setMatrix(newMatrix);
+        namedMatrix.setGrid(newGrid.build());
     }
 }
@@ -1,13 +1,15 @@
 // NamedMatrix.java
 package es.gdapp.guidingApp.models;
 
-import es.gdapp.guidingApp.converters.IntArrayConverter;
+import es.gdapp.guidingApp.converters.GridMatrixConverter;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Embeddable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Mutability;
+import org.hibernate.type.descriptor.java.Immutability;
 
 @Data
 @NoArgsConstructor
@@ -18,13 +20,34 @@ public class NamedMatrix {
     private Integer floorNumber;
     private String name;
 
-    @Convert(converter = IntArrayConverter.class)
-    @Column(columnDefinition = "TEXT")
-    private int[][] matrix;
+    // GridMatrix is immutable: Hibernate keeps the loaded reference as its snapshot and
+    // only converts the grid again when a new one has been set
+    @Convert(converter = GridMatrixConverter.class)
+    @Column(name = "matrix", columnDefinition = "LONGBLOB")
+    @Mutability(Immutability.class)
+    private GridMatrix grid;
+
+    public NamedMatrix(int floorNumber, String name, int[][] matrix) {
+        this.floorNumber = floorNumber;
+        this.name = name;
+        this.grid = GridMatrix.of(matrix);
+    }
 
     public NamedMatrix(int floorNumber, String name,  int rows, int columns){
         this.floorNumber = floorNumber;
         this.name = name;
-        this.matrix = new int[rows][columns];
+        this.grid = new GridMatrix(rows, columns);
+    }
+
+    /**
+     * Unpacks the grid into a new int matrix. Changes to the returned array are not
+     * written back; use {@link #setMatrix(int[][])} or the grid itself for that.
+     */
+    public int[][] getMatrix() {
+        return grid == null ? null : grid.toArray();
+    }
+
+    public void setMatrix(int[][] matrix) {
+        this.grid = matrix == null ? null : GridMatrix.of(matrix);
     }
 }
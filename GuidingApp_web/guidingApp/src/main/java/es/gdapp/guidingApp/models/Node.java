@@ -7,7 +7,13 @@ import es.gdapp.guidingApp.converters.IntArrayConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Mutability;
+import org.hibernate.type.descriptor.java.Immutability;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -17,10 +23,12 @@ import java.util.Map;
 @AllArgsConstructor
 @Entity
 @Table(name = "node")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "node")
 public class Node {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "node_seq")
+    @SequenceGenerator(name = "node_seq", sequenceName = "node_seq", allocationSize = 100)
     private Long id;  // Unique identifier
 
     private String name;
@@ -37,14 +45,21 @@ public class Node {
 
     private Integer y;
 
-    // Many-to-one relationship with MapData
+    // Many-to-one relationship with MapData. Left out of toString, equals and hashCode, which
+    // would otherwise walk back through the map's nodes (and load them) without end
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "map_data_id")
     @JsonBackReference
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private MapData mapData;
 
+    // Treated as immutable so flushes don't re-serialise every area to JSON for dirty
+    // checking. The getter and setter copy the array, so the one Hibernate holds can never be
+    // edited in place; change an area by passing a new one to setArea
     @Convert(converter = IntArrayConverter.class)
     @Column(columnDefinition = "TEXT")
+    @Mutability(Immutability.class)
     private int[][] area;
 
     public Node(String name, String beaconId, Integer floorNumber, boolean isExit, boolean isEntrance,
@@ -56,10 +71,29 @@ public class Node {
         this.isEntrance = isEntrance;
         this.x = x;
         this.y = y;
-        this.area = area;
+        this.area = copyOf(area);
         this.mapData = mapData;
     }
 
+    public int[][] getArea() {
+        return copyOf(area);
+    }
+
+    public void setArea(int[][] area) {
+        this.area = copyOf(area);
+    }
+
+    private static int[][] copyOf(int[][] area) {
+        if (area == null) {
+            return null;
+        }
+        int[][] copy = new int[area.length][];
+        for (int i = 0; i < area.length; i++) {
+            copy[i] = area[i] == null ? null : area[i].clone();
+        }
+        return copy;
+    }
+
     @Transient
     public String getNodeJson() {
         try {
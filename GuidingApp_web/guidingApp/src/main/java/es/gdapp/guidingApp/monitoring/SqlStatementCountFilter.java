@@ -0,0 +1,46 @@
+package es.gdapp.guidingApp.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Development aid: logs how many SQL statements each request ran and returns the count in
+ * the X-SQL-Count header. The header is written when the response is committed, so anything
+ * run while the body is streamed only shows up in the log.
+ */
+@Component
+@Profile("dev")
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-SQL-Count";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementCountFilter.class);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            HttpServletResponse counted = new OnCommittedResponseWrapper(response) {
+                @Override
+                protected void onResponseCommitted() {
+                    response.setHeader(HEADER, Integer.toString(scope.getCount()));
+                }
+            };
+            chain.doFilter(request, counted);
+            if (!response.isCommitted()) {
+                response.setHeader(HEADER, Integer.toString(scope.getCount()));
+            }
+            log.info("{} {}: {} SQL statements", request.getMethod(), request.getRequestURI(), scope.getCount());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package es.gdapp.guidingApp.rendering;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.tiles.FloorTileService;
+import es.gdapp.guidingApp.tiles.FloorTiles;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Floor images, cached by floor content: an entry stays valid while the floor grid is the
+ * same, whatever else changes in the map. SVGs too large to keep are streamed to the client
+ * on every request instead. The cache is bounded by the size of the images it holds, and
+ * evicts the least used ones first.
+ */
+@Service
+public class FloorRenderService {
+
+    public enum Format {
+        SVG("image/svg+xml"),
+        PNG("image/png");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    static final long MAX_ENTRY_BYTES = 4L << 20;
+    static final long MAX_CACHE_BYTES = 64L << 20;
+
+    private record Key(Long mapDataId, int floorNumber, Format format, int cellSize) {}
+
+    private record Entry(String floorVersion, byte[] bytes) {}
+
+    /** A rendered floor: cached bytes, or a renderer to stream from when it was too large to keep. */
+    public static final class Rendering {
+        private final String floorVersion;
+        private final byte[] bytes;
+        private final FloorRenderer renderer;
+
+        private Rendering(String floorVersion, byte[] bytes, FloorRenderer renderer) {
+            this.floorVersion = floorVersion;
+            this.bytes = bytes;
+            this.renderer = renderer;
+        }
+
+        public String getFloorVersion() {
+            return floorVersion;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            if (bytes != null) {
+                out.write(bytes);
+                out.flush();
+            } else {
+                renderer.writeSvg(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private final FloorTileService floorTileService;
+    private final Cache<Key, Entry> cache = Caffeine.newBuilder()
+            .maximumWeight(MAX_CACHE_BYTES)
+            .weigher((Key key, Entry entry) -> entry.bytes().length)
+            .build();
+
+    public FloorRenderService(FloorTileService floorTileService) {
+        this.floorTileService = floorTileService;
+    }
+
+    /**
+     * Renders a floor, or finds it in the cache. Empty if the map or floor does not exist.
+     *
+     * @throws IllegalArgumentException if the cell size is not positive or the PNG would be too large
+     */
+    public Optional<Rendering> render(Long mapDataId, int floorNumber, Format format, int cellSize) {
+        Optional<FloorTiles> tiles = floorTileService.getTiles(mapDataId, floorNumber);
+        if (tiles.isEmpty()) {
+            return Optional.empty();
+        }
+        String floorVersion = tiles.get().version();
+        Key key = new Key(mapDataId, floorNumber, format, cellSize);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.floorVersion().equals(floorVersion)) {
+            return Optional.of(new Rendering(floorVersion, entry.bytes(), null));
+        }
+
+        FloorRenderer renderer = new FloorRenderer(tiles.get().getGrid(), cellSize);
+        if (format == Format.PNG && !renderer.fitsPng()) {
+            throw new IllegalArgumentException("Floor too large for a PNG at " + cellSize + " pixels per cell");
+        }
+        if (format == Format.SVG && renderer.estimateSvgBytes() > MAX_ENTRY_BYTES) {
+            return Optional.of(new Rendering(floorVersion, null, renderer));
+        }
+        byte[] bytes = toBytes(renderer, format);
+        if (bytes.length <= MAX_ENTRY_BYTES) {
+            cache.put(key, new Entry(floorVersion, bytes));
+        }
+        return Optional.of(new Rendering(floorVersion, bytes, null));
+    }
+
+    private static byte[] toBytes(FloorRenderer renderer, Format format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(renderer.estimateSvgBytes(), MAX_ENTRY_BYTES));
+        try {
+            if (format == Format.PNG) {
+                renderer.writePng(out);
+            } else {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                renderer.writeSvg(writer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // Not thrown by in-memory streams
+        }
+        return out.toByteArray();
+    }
+
+    // Frees the images of changed or deleted maps; unchanged floors are simply rendered again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMapDataChanged(MapDataChangedEvent event) {
+        cache.asMap().keySet().removeIf(key -> key.mapDataId().equals(event.getMapDataId()));
+    }
+}
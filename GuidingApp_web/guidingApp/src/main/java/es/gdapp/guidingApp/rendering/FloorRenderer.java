@@ -0,0 +1,165 @@
+package es.gdapp.guidingApp.rendering;
+
+import es.gdapp.guidingApp.models.GridMatrix;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws a floor grid as SVG or PNG: cells with value 1 are black, the rest white, with gray
+ * lines between cells. Instead of one shape per cell, runs of black cells are merged into
+ * rectangles (same columns on consecutive rows grow the rectangle above), so the output
+ * grows with the outline of the walls rather than with the floor area.
+ */
+public final class FloorRenderer {
+
+    /** Largest PNG side, in pixels. */
+    public static final int MAX_PNG_SIDE = 8192;
+
+    // Grid lines are left out of PNGs whose cells are too small to show them
+    private static final int MIN_PNG_GRID_CELL = 4;
+
+    private final GridMatrix grid;
+    private final int cellSize;
+    private final List<int[]> rectangles;  // {row, column, height, width}
+
+    public FloorRenderer(GridMatrix grid, int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.grid = grid;
+        this.cellSize = cellSize;
+        this.rectangles = mergeWalls(grid);
+    }
+
+    static List<int[]> mergeWalls(GridMatrix grid) {
+        List<int[]> done = new ArrayList<>();
+        // Rectangles still growing, by the columns they span (start << 32 | end)
+        Map<Long, int[]> open = new HashMap<>();
+        for (int i = 0; i < grid.getRows(); i++) {
+            Map<Long, int[]> next = new HashMap<>();
+            int j = 0;
+            while (j < grid.getColumns()) {
+                if (grid.get(i, j) != 1) {
+                    j++;
+                    continue;
+                }
+                int start = j;
+                while (j < grid.getColumns() && grid.get(i, j) == 1) {
+                    j++;
+                }
+                long span = ((long) start << 32) | j;
+                int[] rectangle = open.remove(span);
+                if (rectangle != null) {
+                    rectangle[2]++;
+                } else {
+                    rectangle = new int[]{i, start, 1, j - start};
+                }
+                next.put(span, rectangle);
+            }
+            done.addAll(open.values());
+            open = next;
+        }
+        done.addAll(open.values());
+        return done;
+    }
+
+    public int getWidth() {
+        return grid.getColumns() * cellSize;
+    }
+
+    public int getHeight() {
+        return grid.getRows() * cellSize;
+    }
+
+    /** Number of merged black rectangles. */
+    public int getRectangleCount() {
+        return rectangles.size();
+    }
+
+    public boolean fitsPng() {
+        return getWidth() > 0 && getHeight() > 0 && getWidth() <= MAX_PNG_SIDE && getHeight() <= MAX_PNG_SIDE;
+    }
+
+    /** Rough size of the SVG output, to decide whether it is worth keeping in memory. */
+    public long estimateSvgBytes() {
+        return 400L + 32L * rectangles.size() + 16L * (grid.getRows() + grid.getColumns());
+    }
+
+    /** Writes the SVG straight to {@code out}; the writer is flushed but not closed. */
+    public void writeSvg(Writer out) throws IOException {
+        int width = getWidth();
+        int height = getHeight();
+        out.write("<svg width=\"" + width + "\" height=\"" + height + "\" viewBox=\"0 0 " + width + " " + height
+                + "\" xmlns=\"http://www.w3.org/2000/svg\" shape-rendering=\"crispEdges\">");
+        out.write("<rect width=\"" + width + "\" height=\"" + height + "\" fill=\"white\"/>");
+        if (!rectangles.isEmpty()) {
+            out.write("<path fill=\"black\" d=\"");
+            for (int[] r : rectangles) {
+                out.write("M" + r[1] * cellSize + " " + r[0] * cellSize
+                        + "h" + r[3] * cellSize + "v" + r[2] * cellSize + "h-" + r[3] * cellSize + "z");
+            }
+            out.write("\"/>");
+        }
+        out.write("<path stroke=\"gray\" fill=\"none\" d=\"");
+        for (int i = 0; i <= grid.getRows(); i++) {
+            out.write("M0 " + i * cellSize + "H" + width);
+        }
+        for (int j = 0; j <= grid.getColumns(); j++) {
+            out.write("M" + j * cellSize + " 0V" + height);
+        }
+        out.write("\"/></svg>");
+        out.flush();
+    }
+
+    /**
+     * Writes the floor as a PNG with a three colour palette.
+     *
+     * @throws IllegalArgumentException if a side would exceed {@link #MAX_PNG_SIDE} pixels
+     */
+    public void writePng(OutputStream out) throws IOException {
+        int width = getWidth();
+        int height = getHeight();
+        if (!fitsPng()) {
+            throw new IllegalArgumentException("PNG of " + width + "x" + height + " pixels is not allowed");
+        }
+        byte[] r = {(byte) 255, 0, (byte) 128};
+        byte[] g = {(byte) 255, 0, (byte) 128};
+        byte[] b = {(byte) 255, 0, (byte) 128};
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY,
+                new IndexColorModel(2, 3, r, g, b));
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setColor(Color.BLACK);
+            for (int[] rectangle : rectangles) {
+                graphics.fillRect(rectangle[1] * cellSize, rectangle[0] * cellSize,
+                        rectangle[3] * cellSize, rectangle[2] * cellSize);
+            }
+            if (cellSize >= MIN_PNG_GRID_CELL) {
+                graphics.setColor(Color.GRAY);
+                for (int i = 0; i <= grid.getRows(); i++) {
+                    graphics.drawLine(0, Math.min(i * cellSize, height - 1), width - 1, Math.min(i * cellSize, height - 1));
+                }
+                for (int j = 0; j <= grid.getColumns(); j++) {
+                    graphics.drawLine(Math.min(j * cellSize, width - 1), 0, Math.min(j * cellSize, width - 1), height - 1);
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        ImageIO.write(image, "png", out);
+        out.flush();
+    }
+}
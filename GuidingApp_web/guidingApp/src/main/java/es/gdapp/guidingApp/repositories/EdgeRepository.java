@@ -0,0 +1,7 @@
+package es.gdapp.guidingApp.repositories;
+
+import es.gdapp.guidingApp.models.Edge;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EdgeRepository extends JpaRepository<Edge, Long> {
+}
@@ -0,0 +1,19 @@
+package es.gdapp.guidingApp.repositories;
+
+import es.gdapp.guidingApp.models.MapChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface MapChangeRepository extends JpaRepository<MapChange, Long> {
+
+    List<MapChange> findByMapDataIdAndVersionGreaterThanOrderByVersionAscIdAsc(Long mapDataId, long version);
+
+    @Modifying
+    @Transactional
+    @Query("delete from MapChange c where c.mapDataId = :mapDataId")
+    int deleteByMapDataId(Long mapDataId);
+}
@@ -1,12 +1,67 @@
 package es.gdapp.guidingApp.repositories;
 
+import es.gdapp.guidingApp.dto.MapDataSummaryDTO;
 import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import es.gdapp.guidingApp.repositories.projections.FloorView;
+import es.gdapp.guidingApp.repositories.projections.MapLocationView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MapDataRepository extends JpaRepository<MapData, Long> {
 
     List<MapData> findByNameIgnoreCaseContaining(String name);
-}
 
+    // Scalar columns and node count only; matrices, nodes and edges are never loaded
+    @Query("select new es.gdapp.guidingApp.dto.MapDataSummaryDTO("
+            + "m.id, m.name, m.northAngle, m.latitude, m.longitude, count(n)) "
+            + "from MapData m left join m.nodes n "
+            + "group by m.id, m.name, m.northAngle, m.latitude, m.longitude "
+            + "order by m.id")
+    List<MapDataSummaryDTO> findAllSummaries();
+
+    @Query("select m.id as mapDataId, f.floorNumber as floorNumber, f.name as name "
+            + "from MapData m join m.matrices f "
+            + "order by m.id, f.floorNumber")
+    List<FloorView> findAllFloors();
+
+    @Query("select new es.gdapp.guidingApp.dto.MapDataSummaryDTO("
+            + "m.id, m.name, m.northAngle, m.latitude, m.longitude, count(n)) "
+            + "from MapData m left join m.nodes n where m.id in :ids "
+            + "group by m.id, m.name, m.northAngle, m.latitude, m.longitude "
+            + "order by m.id")
+    List<MapDataSummaryDTO> findSummariesByIdIn(Collection<Long> ids);
+
+    @Query("select m.id as mapDataId, f.floorNumber as floorNumber, f.name as name "
+            + "from MapData m join m.matrices f where m.id in :ids "
+            + "order by m.id, f.floorNumber")
+    List<FloorView> findFloorsByMapDataIdIn(Collection<Long> ids);
+
+    @Query("select m.id as id, m.name as name, m.latitude as latitude, m.longitude as longitude from MapData m")
+    List<MapLocationView> findAllLocations();
+
+    @Query("select m.id as id, m.name as name, m.latitude as latitude, m.longitude as longitude "
+            + "from MapData m where m.id = :id")
+    Optional<MapLocationView> findLocationById(Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("update MapData m set m.version = m.version + 1 where m.id = :id")
+    int incrementVersion(Long id);
+
+    @Query("select m.version from MapData m where m.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select f from MapData m join m.matrices f where m.id = :id and f.floorNumber in :floorNumbers")
+    List<NamedMatrix> findFloors(Long id, Collection<Integer> floorNumbers);
+
+    @Query("select m.id from MapData m where m.id > :afterId order by m.id")
+    List<Long> findIdsAfter(long afterId, Limit limit);
+}
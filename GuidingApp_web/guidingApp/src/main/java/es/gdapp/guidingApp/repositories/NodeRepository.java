@@ -1,13 +1,54 @@
 package es.gdapp.guidingApp.repositories;
 
+import es.gdapp.guidingApp.dto.BeaconLocationDTO;
 import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.repositories.projections.NodeNameView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface NodeRepository extends JpaRepository<Node, Long>, JpaSpecificationExecutor<Node> {
 
     Optional<Node> findByBeaconId(String beaconId);
 
+    // Results go to the query cache; used for the exit and entrance lists of a map, which
+    // only change with the map. Other specification queries use findAll(Specification)
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Node> findAll(Specification<Node> spec, Sort sort);
+
+    // Ids only, without loading the node area
+    @Query("select new es.gdapp.guidingApp.dto.BeaconLocationDTO(n.beaconId, n.id, m.id, n.floorNumber) "
+            + "from Node n left join n.mapData m where n.beaconId = :beaconId")
+    Optional<BeaconLocationDTO> findLocationByBeaconId(String beaconId);
+
+    @Query("select new es.gdapp.guidingApp.dto.BeaconLocationDTO(n.beaconId, n.id, m.id, n.floorNumber) "
+            + "from Node n left join n.mapData m where n.beaconId in :beaconIds")
+    List<BeaconLocationDTO> findLocationsByBeaconIdIn(Collection<String> beaconIds);
+
+    @Query("select n.id as id, n.name as name, m.id as mapDataId, m.name as mapDataName "
+            + "from Node n left join n.mapData m")
+    List<NodeNameView> findAllNameViews();
+
+    @Query("select n.id as id, n.name as name, m.id as mapDataId, m.name as mapDataName "
+            + "from Node n left join n.mapData m where n.id = :id")
+    Optional<NodeNameView> findNameViewById(Long id);
+
+    @Query("select n.id as id, n.name as name, m.id as mapDataId, m.name as mapDataName "
+            + "from Node n left join n.mapData m where n.id in :ids")
+    List<NodeNameView> findNameViewsByIdIn(Collection<Long> ids);
+
+    @Query("select n.id as id, n.name as name, m.id as mapDataId, m.name as mapDataName "
+            + "from Node n join n.mapData m where m.id = :mapDataId")
+    List<NodeNameView> findNameViewsByMapDataId(Long mapDataId);
+
 }
@@ -0,0 +1,12 @@
+package es.gdapp.guidingApp.repositories.projections;
+
+/**
+ * Floor number and name of a map, read without loading the matrix column.
+ */
+public interface FloorView {
+    Long getMapDataId();
+
+    Integer getFloorNumber();
+
+    String getName();
+}
@@ -0,0 +1,14 @@
+package es.gdapp.guidingApp.repositories.projections;
+
+/**
+ * Position of a map, read without loading any of its collections.
+ */
+public interface MapLocationView {
+    Long getId();
+
+    String getName();
+
+    double getLatitude();
+
+    double getLongitude();
+}
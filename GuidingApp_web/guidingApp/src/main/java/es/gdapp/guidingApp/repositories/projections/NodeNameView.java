@@ -0,0 +1,14 @@
+package es.gdapp.guidingApp.repositories.projections;
+
+/**
+ * Searchable names of a node and its map, read without loading either entity.
+ */
+public interface NodeNameView {
+    Long getId();
+
+    String getName();
+
+    Long getMapDataId();
+
+    String getMapDataName();
+}
@@ -0,0 +1,14 @@
+package es.gdapp.guidingApp.routing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class GridRoute {
+    /** Total cost of the route, including the wall proximity penalties */
+    private int cost;
+
+    /** [x, y] pairs from start to end, both included, in the client's coordinate system */
+    private int[][] path;
+}
@@ -0,0 +1,144 @@
+package es.gdapp.guidingApp.routing;
+
+import es.gdapp.guidingApp.models.GridMatrix;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Wall-aware A* over a floor matrix, the server-side counterpart of the app's
+ * {@code findShortestPathInMatrix}.
+ * Coordinates follow the client convention: x is the column and y grows upwards,
+ * so cell (x, y) lives at row {@code rows - 1 - y}, column x. Cells with value 1 are walls.
+ * Moving into a cell costs 1 plus the number of walls among its eight neighbours,
+ * which keeps routes away from walls whenever there is room to do so.
+ */
+@Component
+public class GridRouteEngine {
+
+    private static final int WALL = 1;
+
+    /**
+     * Same as {@link #findRoute(GridMatrix, int, int, int, int)} for an unpacked matrix.
+     */
+    public Optional<GridRoute> findRoute(int[][] matrix, int fromX, int fromY, int toX, int toY) {
+        return findRoute(GridMatrix.of(matrix), fromX, fromY, toX, toY);
+    }
+
+    /**
+     * Finds the cheapest route between two free cells of the grid.
+     *
+     * @param grid   the floor grid (rows x columns)
+     * @param fromX  start column
+     * @param fromY  start row, counted from the bottom
+     * @param toX    destination column
+     * @param toY    destination row, counted from the bottom
+     * @return the route, or empty if the destination is unreachable
+     * @throws IllegalArgumentException if either point is outside the matrix or on a wall
+     */
+    public Optional<GridRoute> findRoute(GridMatrix grid, int fromX, int fromY, int toX, int toY) {
+        int height = grid.getRows();
+        int width = grid.getColumns();
+        if (!isFree(grid, width, height, fromX, fromY)) {
+            throw new IllegalArgumentException("Start point is not a free cell: (" + fromX + ", " + fromY + ")");
+        }
+        if (!isFree(grid, width, height, toX, toY)) {
+            throw new IllegalArgumentException("End point is not a free cell: (" + toX + ", " + toY + ")");
+        }
+
+        SearchBuffers b = SearchBuffers.acquire();
+        try {
+            int gen = b.begin(width * height);
+            int[] g = b.gScore;
+            int[] f = b.fScore;
+            int[] parent = b.parent;
+            int[] seen = b.seenStamp;
+            int[] closed = b.closedStamp;
+            int[] heapPos = b.heapPos;
+
+            int start = fromY * width + fromX;
+            int goal = toY * width + toX;
+            g[start] = 0;
+            f[start] = Math.abs(fromX - toX) + Math.abs(fromY - toY);
+            parent[start] = -1;
+            seen[start] = gen;
+            b.pushOrDecrease(start, false);
+
+            while (b.heapSize > 0) {
+                int current = b.poll();
+                if (current == goal) {
+                    return Optional.of(new GridRoute(g[goal], buildPath(parent, goal, width)));
+                }
+                closed[current] = gen;
+
+                int cx = current % width;
+                int cy = current / width;
+                for (int dir = 0; dir < 4; dir++) {
+                    int nx = cx;
+                    int ny = cy;
+                    switch (dir) {
+                        case 0 -> ny--;
+                        case 1 -> ny++;
+                        case 2 -> nx--;
+                        default -> nx++;
+                    }
+                    if (!isFree(grid, width, height, nx, ny)) {
+                        continue;
+                    }
+                    int next = ny * width + nx;
+                    if (closed[next] == gen) {
+                        continue;
+                    }
+                    int cost = g[current] + 1 + wallsAround(grid, width, height, nx, ny);
+                    boolean queued = seen[next] == gen && heapPos[next] >= 0;
+                    if (seen[next] == gen && cost >= g[next]) {
+                        continue;
+                    }
+                    seen[next] = gen;
+                    g[next] = cost;
+                    f[next] = cost + Math.abs(nx - toX) + Math.abs(ny - toY);
+                    parent[next] = current;
+                    b.pushOrDecrease(next, queued);
+                }
+            }
+            return Optional.empty();
+        } finally {
+            b.release();
+        }
+    }
+
+    private static int[][] buildPath(int[] parent, int goal, int width) {
+        int length = 0;
+        for (int c = goal; c != -1; c = parent[c]) {
+            length++;
+        }
+        int[][] path = new int[length][];
+        int i = length;
+        for (int c = goal; c != -1; c = parent[c]) {
+            path[--i] = new int[]{c % width, c / width};
+        }
+        return path;
+    }
+
+    private static boolean isFree(GridMatrix grid, int width, int height, int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && grid.get(height - 1 - y, x) != WALL;
+    }
+
+    private static int wallsAround(GridMatrix grid, int width, int height, int x, int y) {
+        int count = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            int ny = y + dy;
+            if (ny < 0 || ny >= height) {
+                continue;
+            }
+            int row = height - 1 - ny;
+            for (int dx = -1; dx <= 1; dx++) {
+                int nx = x + dx;
+                if ((dx != 0 || dy != 0) && nx >= 0 && nx < width && grid.get(row, nx) == WALL) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,230 @@
+package es.gdapp.guidingApp.routing;
+
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable compressed (CSR) adjacency structure of the node graph of a MapData.
+ * Nodes are renumbered 0..n-1 in ascending id order; the outgoing edges of node i are stored
+ * in slots {@code offsets[i] .. offsets[i + 1] - 1} of the {@code targets}, {@code weights}
+ * and {@code edgeIds} arrays. Floor changes need no special handling: stair nodes are
+ * ordinary nodes connected by edges across floors.
+ */
+public final class NodeGraph {
+
+    private final long mapDataId;
+    private final long[] nodeIds;   // Sorted, index -> node id
+    private final int[] offsets;    // Length n + 1
+    private final int[] targets;    // Target node index per edge slot
+    private final int[] weights;    // Edge weight per edge slot
+    private final long[] edgeIds;   // Edge id per edge slot
+
+    private NodeGraph(long mapDataId, long[] nodeIds, int[] offsets, int[] targets, int[] weights, long[] edgeIds) {
+        this.mapDataId = mapDataId;
+        this.nodeIds = nodeIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgeIds = edgeIds;
+    }
+
+    /**
+     * Builds the graph from the nodes and edges of a map. Edges whose endpoints are not nodes
+     * of the map are ignored; a missing weight counts as 1.
+     */
+    public static NodeGraph of(MapData mapData) {
+        List<Node> nodes = mapData.getNodes() != null ? mapData.getNodes() : List.of();
+        List<Edge> edges = mapData.getEdges() != null ? mapData.getEdges() : List.of();
+
+        long[] ids = nodes.stream()
+                .map(Node::getId)
+                .filter(id -> id != null)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        int n = ids.length;
+
+        // First pass: resolve endpoints and count out-degrees
+        int[] from = new int[edges.size()];
+        int[] to = new int[edges.size()];
+        int[] offsets = new int[n + 1];
+        int m = 0;
+        for (Edge edge : edges) {
+            int f = indexIn(ids, edge.getFromNode());
+            int t = indexIn(ids, edge.getToNode());
+            if (f < 0 || t < 0) {
+                from[m] = -1;
+            } else {
+                from[m] = f;
+                to[m] = t;
+                offsets[f + 1]++;
+            }
+            m++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        // Second pass: scatter edges into their slots
+        int total = offsets[n];
+        int[] targets = new int[total];
+        int[] weights = new int[total];
+        long[] edgeIds = new long[total];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int e = 0;
+        for (Edge edge : edges) {
+            int f = from[e];
+            if (f >= 0) {
+                int slot = cursor[f]++;
+                targets[slot] = to[e];
+                weights[slot] = edge.getWeight() != null ? edge.getWeight() : 1;
+                edgeIds[slot] = edge.getId() != null ? edge.getId() : -1L;
+            }
+            e++;
+        }
+
+        long mapDataId = mapData.getId() != null ? mapData.getId() : -1L;
+        return new NodeGraph(mapDataId, ids, offsets, targets, weights, edgeIds);
+    }
+
+    private static int indexIn(long[] ids, Node node) {
+        if (node == null || node.getId() == null) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(ids, node.getId());
+        return i >= 0 ? i : -1;
+    }
+
+    public long getMapDataId() {
+        return mapDataId;
+    }
+
+    public int getNodeCount() {
+        return nodeIds.length;
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    public boolean containsNode(long nodeId) {
+        return Arrays.binarySearch(nodeIds, nodeId) >= 0;
+    }
+
+    /** Index of a node id, or a negative value if the node is not in the graph. */
+    int indexOf(long nodeId) {
+        return Arrays.binarySearch(nodeIds, nodeId);
+    }
+
+    long nodeIdAt(int index) {
+        return nodeIds[index];
+    }
+
+    int firstSlot(int index) {
+        return offsets[index];
+    }
+
+    int endSlot(int index) {
+        return offsets[index + 1];
+    }
+
+    int targetAt(int slot) {
+        return targets[slot];
+    }
+
+    int weightAt(int slot) {
+        return weights[slot];
+    }
+
+    long edgeIdAt(int slot) {
+        return edgeIds[slot];
+    }
+
+    /** Approximate heap footprint of the arrays, in bytes. */
+    long footprintBytes() {
+        return 8L * nodeIds.length + 4L * offsets.length + 4L * targets.length
+                + 4L * weights.length + 8L * edgeIds.length;
+    }
+
+    /**
+     * Dijkstra over the compressed graph.
+     *
+     * @param fromNodeId id of the start node
+     * @param toNodeId   id of the destination node
+     * @return the route, or empty if either node is unknown or the destination is unreachable
+     */
+    public Optional<NodeRoute> findRoute(long fromNodeId, long toNodeId) {
+        int start = Arrays.binarySearch(nodeIds, fromNodeId);
+        int goal = Arrays.binarySearch(nodeIds, toNodeId);
+        if (start < 0 || goal < 0) {
+            return Optional.empty();
+        }
+
+        SearchBuffers b = SearchBuffers.acquire();
+        try {
+            int gen = b.begin(nodeIds.length);
+            int[] dist = b.fScore;
+            int[] parent = b.parent;
+            int[] parentEdge = b.parentEdge;
+            int[] seen = b.seenStamp;
+            int[] closed = b.closedStamp;
+            int[] heapPos = b.heapPos;
+
+            dist[start] = 0;
+            parent[start] = -1;
+            seen[start] = gen;
+            b.pushOrDecrease(start, false);
+
+            while (b.heapSize > 0) {
+                int current = b.poll();
+                if (current == goal) {
+                    return Optional.of(buildRoute(parent, parentEdge, goal, dist[goal]));
+                }
+                closed[current] = gen;
+                for (int slot = offsets[current], end = offsets[current + 1]; slot < end; slot++) {
+                    int next = targets[slot];
+                    if (closed[next] == gen) {
+                        continue;
+                    }
+                    int d = dist[current] + weights[slot];
+                    boolean wasSeen = seen[next] == gen;
+                    if (wasSeen && d >= dist[next]) {
+                        continue;
+                    }
+                    boolean queued = wasSeen && heapPos[next] >= 0;
+                    seen[next] = gen;
+                    dist[next] = d;
+                    parent[next] = current;
+                    parentEdge[next] = slot;
+                    b.pushOrDecrease(next, queued);
+                }
+            }
+            return Optional.empty();
+        } finally {
+            b.release();
+        }
+    }
+
+    private NodeRoute buildRoute(int[] parent, int[] parentEdge, int goal, int totalWeight) {
+        int length = 0;
+        for (int c = goal; c != -1; c = parent[c]) {
+            length++;
+        }
+        long[] pathNodes = new long[length];
+        long[] pathEdges = new long[length - 1];
+        int i = length;
+        for (int c = goal; c != -1; c = parent[c]) {
+            pathNodes[--i] = nodeIds[c];
+            if (i > 0) {
+                pathEdges[i - 1] = edgeIds[parentEdge[c]];
+            }
+        }
+        return new NodeRoute(totalWeight, pathNodes, pathEdges);
+    }
+}
@@ -0,0 +1,17 @@
+package es.gdapp.guidingApp.routing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class NodeRoute {
+    /** Sum of the weights of the traversed edges */
+    private int totalWeight;
+
+    /** Node ids from start to end, both included */
+    private long[] nodeIds;
+
+    /** Ids of the traversed edges, one fewer than the nodes */
+    private long[] edgeIds;
+}
@@ -0,0 +1,141 @@
+package es.gdapp.guidingApp.routing;
+
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.repositories.MapDataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one {@link NodeRouteTable} per MapData. Tables are recomputed in the background as
+ * soon as a map changes, and route requests keep getting the previous table until the new
+ * one is ready, so they never pay for the precomputation; maps that were never changed
+ * through the services are tabulated on first use.
+ * <p>
+ * Changes that arrive while a map is waiting for or going through a rebuild are coalesced
+ * into a single further rebuild, so a burst of saves does not queue one build per save, and
+ * builds of the same map never overlap.
+ * <p>
+ * Tables are built outside the map that holds them and only stored if the map has not
+ * changed since the build started reading it, so a table built from older data never
+ * replaces a newer one.
+ */
+@Service
+public class NodeRouteService {
+
+    private static final Logger log = LoggerFactory.getLogger(NodeRouteService.class);
+
+    private final MapDataRepository mapDataRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final Timer buildTimer;
+    private final Executor executor;
+    private final Map<Long, NodeRouteTable> tables = new ConcurrentHashMap<>();
+    // Maps with a rebuild queued or running; true when they changed again since it started
+    private final Map<Long, Boolean> rebuilds = new ConcurrentHashMap<>();
+    // Changes seen per map; a build may only store its table if this did not move meanwhile
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    public NodeRouteService(MapDataRepository mapDataRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.mapDataRepository = mapDataRepository;
+        this.executor = executor;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.buildTimer = Timer.builder("guidingapp.route.table.build")
+                .description("Time spent computing the all-pairs node route table of a map")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("guidingapp.route.table.maps", List.of(), tables);
+    }
+
+    /**
+     * Returns the route table of a map, computing it if needed.
+     *
+     * @param mapDataId the map id
+     * @return the table, or empty if the map does not exist
+     */
+    public Optional<NodeRouteTable> getRouteTable(Long mapDataId) {
+        NodeRouteTable cached = tables.get(mapDataId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = generation(mapDataId);
+        NodeRouteTable table = build(mapDataId);
+        if (table != null) {
+            // Two first requests may both build; the second one just stores an equal table
+            publish(mapDataId, generation, table);
+        }
+        return Optional.ofNullable(table);
+    }
+
+    public Optional<NodeGraph> getGraph(Long mapDataId) {
+        return getRouteTable(mapDataId).map(NodeRouteTable::getGraph);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMapDataChanged(MapDataChangedEvent event) {
+        Long mapDataId = event.getMapDataId();
+        generations.merge(mapDataId, 1L, Long::sum);
+        if (rebuilds.put(mapDataId, true) != null) {
+            return;
+        }
+        try {
+            executor.execute(() -> rebuild(mapDataId));
+        } catch (RejectedExecutionException e) {
+            // Shutting down or saturated: drop the table so the next request builds it
+            rebuilds.remove(mapDataId);
+            tables.remove(mapDataId);
+        }
+    }
+
+    private void rebuild(Long mapDataId) {
+        do {
+            rebuilds.put(mapDataId, false);
+            long generation = generation(mapDataId);
+            try {
+                // Not stored when the map changed again meanwhile: the loop builds once more
+                publish(mapDataId, generation, build(mapDataId));
+            } catch (RuntimeException e) {
+                tables.remove(mapDataId);
+                log.warn("Could not rebuild the route table of map {}", mapDataId, e);
+            }
+        } while (!rebuilds.remove(mapDataId, false));
+    }
+
+    private long generation(Long mapDataId) {
+        return generations.getOrDefault(mapDataId, 0L);
+    }
+
+    // Stores the table, or drops the map's table when null, unless the map changed after
+    // the build read it
+    private void publish(Long mapDataId, long generation, NodeRouteTable table) {
+        tables.compute(mapDataId, (id, current) -> generation(id) == generation ? table : current);
+    }
+
+    private NodeRouteTable build(Long mapDataId) {
+        NodeGraph graph = readOnlyTx.execute(status ->
+                mapDataRepository.findById(mapDataId).map(NodeGraph::of).orElse(null));
+        if (graph == null) {
+            return null;
+        }
+        NodeRouteTable table = NodeRouteTable.of(graph);
+        buildTimer.record(table.getBuildNanos(), TimeUnit.NANOSECONDS);
+        return table;
+    }
+}
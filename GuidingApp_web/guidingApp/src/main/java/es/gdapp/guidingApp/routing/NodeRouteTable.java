@@ -0,0 +1,174 @@
+package es.gdapp.guidingApp.routing;
+
+import java.util.Optional;
+
+/**
+ * All-pairs shortest-path table over a {@link NodeGraph}.
+ * For every ordered pair (i, j) of node indices it stores the route distance in
+ * {@code dist[i * n + j]} and the index of the first node after i in {@code nextHop[i * n + j]},
+ * so a route is recovered by following next hops in O(path length) without searching.
+ * The table needs 6 bytes per pair; graphs above {@link #MAX_TABLE_NODES} nodes are not
+ * tabulated and their routes fall back to an on-demand search over the graph.
+ */
+public final class NodeRouteTable {
+
+    /** Largest graph that gets a table (about 6 MB). */
+    public static final int MAX_TABLE_NODES = 1024;
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final NodeGraph graph;
+    private final int[] dist;       // null when not tabulated
+    private final short[] nextHop;  // null when not tabulated, -1 when unreachable
+    private final long buildNanos;
+
+    private NodeRouteTable(NodeGraph graph, int[] dist, short[] nextHop, long buildNanos) {
+        this.graph = graph;
+        this.dist = dist;
+        this.nextHop = nextHop;
+        this.buildNanos = buildNanos;
+    }
+
+    /**
+     * Runs one Dijkstra per source node and records distances and first hops.
+     */
+    public static NodeRouteTable of(NodeGraph graph) {
+        long started = System.nanoTime();
+        int n = graph.getNodeCount();
+        if (n > MAX_TABLE_NODES) {
+            return new NodeRouteTable(graph, null, null, System.nanoTime() - started);
+        }
+
+        int[] dist = new int[n * n];
+        short[] nextHop = new short[n * n];
+        int[] settled = new int[n];
+        SearchBuffers b = SearchBuffers.acquire();
+        try {
+            for (int source = 0; source < n; source++) {
+                int gen = b.begin(n);
+                int[] d = b.fScore;
+                int[] parent = b.parent;
+                int[] seen = b.seenStamp;
+                int[] closed = b.closedStamp;
+                int[] heapPos = b.heapPos;
+
+                d[source] = 0;
+                parent[source] = -1;
+                seen[source] = gen;
+                b.pushOrDecrease(source, false);
+                int settledCount = 0;
+
+                while (b.heapSize > 0) {
+                    int current = b.poll();
+                    closed[current] = gen;
+                    settled[settledCount++] = current;
+                    for (int slot = graph.firstSlot(current), end = graph.endSlot(current); slot < end; slot++) {
+                        int next = graph.targetAt(slot);
+                        if (closed[next] == gen) {
+                            continue;
+                        }
+                        int cost = d[current] + graph.weightAt(slot);
+                        boolean wasSeen = seen[next] == gen;
+                        if (wasSeen && cost >= d[next]) {
+                            continue;
+                        }
+                        boolean queued = wasSeen && heapPos[next] >= 0;
+                        seen[next] = gen;
+                        d[next] = cost;
+                        parent[next] = current;
+                        b.pushOrDecrease(next, queued);
+                    }
+                }
+
+                int row = source * n;
+                for (int j = 0; j < n; j++) {
+                    dist[row + j] = UNREACHABLE;
+                    nextHop[row + j] = -1;
+                }
+                // Nodes are settled after their parent, so the parent's first hop is already known
+                for (int k = 0; k < settledCount; k++) {
+                    int node = settled[k];
+                    dist[row + node] = d[node];
+                    if (node == source || parent[node] == source) {
+                        nextHop[row + node] = (short) node;
+                    } else {
+                        nextHop[row + node] = nextHop[row + parent[node]];
+                    }
+                }
+            }
+        } finally {
+            b.release();
+        }
+        return new NodeRouteTable(graph, dist, nextHop, System.nanoTime() - started);
+    }
+
+    public NodeGraph getGraph() {
+        return graph;
+    }
+
+    public boolean isTabulated() {
+        return dist != null;
+    }
+
+    /** Time spent building the table, in nanoseconds. */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /** Approximate heap footprint of the table and its graph, in bytes. */
+    public long getFootprintBytes() {
+        long tableBytes = dist != null ? 4L * dist.length + 2L * nextHop.length : 0L;
+        return tableBytes + graph.footprintBytes();
+    }
+
+    /**
+     * Looks up the route between two nodes.
+     *
+     * @return the route, or empty if either node is unknown or the destination is unreachable
+     */
+    public Optional<NodeRoute> findRoute(long fromNodeId, long toNodeId) {
+        if (dist == null) {
+            return graph.findRoute(fromNodeId, toNodeId);
+        }
+        int start = graph.indexOf(fromNodeId);
+        int goal = graph.indexOf(toNodeId);
+        if (start < 0 || goal < 0) {
+            return Optional.empty();
+        }
+        int n = graph.getNodeCount();
+        if (dist[start * n + goal] == UNREACHABLE) {
+            return Optional.empty();
+        }
+
+        int length = 1;
+        for (int c = start; c != goal; c = nextHop[c * n + goal]) {
+            if (++length > n) {
+                // Only possible with zero-weight cycles, where next hops of tied nodes may loop
+                return graph.findRoute(fromNodeId, toNodeId);
+            }
+        }
+        long[] nodeIds = new long[length];
+        long[] edgeIds = new long[length - 1];
+        int i = 0;
+        int c = start;
+        nodeIds[0] = graph.nodeIdAt(c);
+        while (c != goal) {
+            int next = nextHop[c * n + goal];
+            edgeIds[i++] = graph.edgeIdAt(cheapestSlot(c, next));
+            nodeIds[i] = graph.nodeIdAt(next);
+            c = next;
+        }
+        return Optional.of(new NodeRoute(dist[start * n + goal], nodeIds, edgeIds));
+    }
+
+    // Among parallel edges from -> to, the route always uses the lightest one
+    private int cheapestSlot(int from, int to) {
+        int best = -1;
+        for (int slot = graph.firstSlot(from), end = graph.endSlot(from); slot < end; slot++) {
+            if (graph.targetAt(slot) == to && (best < 0 || graph.weightAt(slot) < graph.weightAt(best))) {
+                best = slot;
+            }
+        }
+        return best;
+    }
+}
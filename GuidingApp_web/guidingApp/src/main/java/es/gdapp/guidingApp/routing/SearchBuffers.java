@@ -0,0 +1,164 @@
+package es.gdapp.guidingApp.routing;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Per-thread scratch space for {@link GridRouteEngine} and {@link NodeGraph}.
+ * Arrays are indexed by vertex (a grid cell y * width + x, or a node index) and grow as
+ * needed, so a thread that has already searched a graph of a given size never allocates
+ * again for graphs up to that size. Only up to {@link #MAX_RETAINED_CELLS} vertices are
+ * kept between searches: larger arrays are dropped on release, since every request thread
+ * would otherwise hold on to the largest floor it ever searched.
+ * Virtual threads live for a single request, so per-thread buffers would be allocated for
+ * every search; they borrow buffers from a small shared pool instead.
+ * Instead of clearing the arrays between searches, every search gets a new generation
+ * number and a vertex is only considered initialised when its stamp matches it.
+ */
+final class SearchBuffers {
+
+    private static final ThreadLocal<SearchBuffers> BUFFERS = ThreadLocal.withInitial(() -> new SearchBuffers(false));
+
+    // 8 arrays of this many ints, 1 MB, is the most a thread or pooled entry keeps
+    static final int MAX_RETAINED_CELLS = 1 << 15;
+
+    // Buffers returned by virtual threads; more than this are left to the garbage collector
+    private static final BlockingQueue<SearchBuffers> POOL =
+            new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+
+    int[] gScore = new int[0];      // Lowest known cost from the start vertex
+    int[] fScore = new int[0];      // gScore + heuristic, used as the heap key
+    int[] parent = new int[0];      // Predecessor vertex on the best known path
+    int[] parentEdge = new int[0];  // Edge slot used to reach the vertex (graph searches only)
+    int[] seenStamp = new int[0];   // == generation when gScore/parent are valid for this search
+    int[] closedStamp = new int[0]; // == generation when the vertex has been expanded
+    int[] heapPos = new int[0];     // Position of the vertex inside the heap, -1 if not queued
+    int[] heap = new int[0];        // Binary min-heap of vertex indices ordered by fScore
+    int heapSize;
+
+    private int generation;
+    private final boolean pooled;
+
+    private SearchBuffers(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /** Buffers for one search on the current thread; to be handed back with {@link #release()}. */
+    static SearchBuffers acquire() {
+        if (!Thread.currentThread().isVirtual()) {
+            return BUFFERS.get();
+        }
+        SearchBuffers buffers = POOL.poll();
+        return buffers != null ? buffers : new SearchBuffers(true);
+    }
+
+    void release() {
+        if (gScore.length > MAX_RETAINED_CELLS) {
+            allocate(0);
+        }
+        if (pooled) {
+            POOL.offer(this);
+        }
+    }
+
+    /** Number of vertices the arrays currently hold. */
+    int capacity() {
+        return gScore.length;
+    }
+
+    /**
+     * Prepares the buffers for a search over {@code cells} vertices and returns the generation
+     * number that marks entries written by this search.
+     */
+    int begin(int cells) {
+        if (gScore.length < cells) {
+            allocate(cells);
+        }
+        heapSize = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            // Stamps would become ambiguous after wrapping, so start over from a clean slate
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+
+    private void allocate(int cells) {
+        gScore = new int[cells];
+        fScore = new int[cells];
+        parent = new int[cells];
+        parentEdge = new int[cells];
+        seenStamp = new int[cells];
+        closedStamp = new int[cells];
+        heapPos = new int[cells];
+        heap = new int[cells];
+        generation = 0;
+    }
+
+    /** Inserts a vertex or moves it up after its fScore decreased. */
+    void pushOrDecrease(int cell, boolean queued) {
+        int pos;
+        if (queued) {
+            pos = heapPos[cell];
+        } else {
+            pos = heapSize++;
+            heap[pos] = cell;
+            heapPos[cell] = pos;
+        }
+        siftUp(pos);
+    }
+
+    /** Removes and returns the queued vertex with the lowest fScore. */
+    int poll() {
+        int top = heap[0];
+        heapPos[top] = -1;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapPos[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int pos) {
+        int cell = heap[pos];
+        int key = fScore[cell];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int other = heap[parentPos];
+            if (fScore[other] <= key) {
+                break;
+            }
+            heap[pos] = other;
+            heapPos[other] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = cell;
+        heapPos[cell] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int cell = heap[pos];
+        int key = fScore[cell];
+        int half = heapSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < heapSize && fScore[heap[right]] < fScore[heap[child]]) {
+                child = right;
+            }
+            int other = heap[child];
+            if (key <= fScore[other]) {
+                break;
+            }
+            heap[pos] = other;
+            heapPos[other] = pos;
+            pos = child;
+        }
+        heap[pos] = cell;
+        heapPos[cell] = pos;
+    }
+}
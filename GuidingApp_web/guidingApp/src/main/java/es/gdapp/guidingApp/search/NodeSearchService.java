@@ -0,0 +1,182 @@
+package es.gdapp.guidingApp.search;
+
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.events.NodeChangedEvent;
+import es.gdapp.guidingApp.models.MapChange;
+import es.gdapp.guidingApp.repositories.MapDataRepository;
+import es.gdapp.guidingApp.repositories.NodeRepository;
+import es.gdapp.guidingApp.repositories.projections.NodeNameView;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps a {@link TextIndex} and a {@link SuggestIndex} of every node name and map name.
+ * Both are loaded from the database on first use and then updated one node or one map at
+ * a time as they change.
+ */
+@Service
+public class NodeSearchService {
+
+    // Node ids per lookup query when reindexing the nodes of a save
+    private static final int RELOAD_BATCH = 1000;
+
+    private final NodeRepository nodeRepository;
+    private final MapDataRepository mapDataRepository;
+    private final TextIndex index = new TextIndex();
+    private final SuggestIndex suggestIndex = new SuggestIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    public NodeSearchService(NodeRepository nodeRepository, MapDataRepository mapDataRepository) {
+        this.nodeRepository = nodeRepository;
+        this.mapDataRepository = mapDataRepository;
+    }
+
+    /**
+     * Finds the nodes whose name or map name contain the keywords.
+     *
+     * @param keywords   lower-case keywords
+     * @param maxResults maximum number of hits
+     * @return the best hits, highest score first
+     */
+    public List<TextIndex.Hit> search(List<String> keywords, int maxResults) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return index.search(keywords, maxResults);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Typeahead suggestions for a partially typed, possibly misspelt, node or map name.
+     *
+     * @param query the text typed so far
+     * @param limit maximum number of suggestions
+     * @return the best suggestions, best first
+     */
+    public List<SuggestIndex.Suggestion> suggest(String query, int limit) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return suggestIndex.suggest(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNodeChanged(NodeChangedEvent event) {
+        // Reads happen under the write lock so that updates are applied in order and none
+        // is lost to a concurrent first load
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;  // The first load will read the change
+            }
+            nodeRepository.findNameViewById(event.getNodeId())
+                    .ifPresentOrElse(this::put, () -> remove(event.getNodeId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMapDataChanged(MapDataChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            if (isWholeMap(event.getChanges())) {
+                reloadMap(event.getMapDataId());
+                return;
+            }
+            // Only the written nodes need reindexing; a bulk save of N nodes stays O(N)
+            List<Long> nodeIds = event.getChanges().stream()
+                    .filter(change -> change.getKind() == MapChange.Kind.NODE)
+                    .map(MapChange::getEntityId)
+                    .distinct()
+                    .toList();
+            reloadNodes(nodeIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A deleted or renamed map, or a write that was not broken down, can affect every node of it
+    private static boolean isWholeMap(List<MapChange> changes) {
+        return changes == null || changes.stream().anyMatch(change ->
+                change.getKind() == MapChange.Kind.MAP || change.getKind() == MapChange.Kind.RESET);
+    }
+
+    private void reloadMap(Long mapDataId) {
+        mapDataRepository.findLocationById(mapDataId).ifPresentOrElse(
+                map -> suggestIndex.putMap(map.getId(), map.getName()),
+                () -> suggestIndex.removeMap(mapDataId));
+        List<NodeNameView> views = nodeRepository.findNameViewsByMapDataId(mapDataId);
+        // Nodes no longer in the map were deleted with it or moved away
+        Set<Long> current = new HashSet<>();
+        for (NodeNameView view : views) {
+            current.add(view.getId());
+            put(view);
+        }
+        for (Long nodeId : index.nodesOfMap(mapDataId)) {
+            if (!current.contains(nodeId)) {
+                remove(nodeId);
+            }
+        }
+    }
+
+    // One query per RELOAD_BATCH nodes, since the write lock holds searches back meanwhile
+    private void reloadNodes(List<Long> nodeIds) {
+        for (int from = 0; from < nodeIds.size(); from += RELOAD_BATCH) {
+            List<Long> batch = nodeIds.subList(from, Math.min(from + RELOAD_BATCH, nodeIds.size()));
+            Set<Long> found = new HashSet<>();
+            for (NodeNameView view : nodeRepository.findNameViewsByIdIn(batch)) {
+                found.add(view.getId());
+                put(view);
+            }
+            for (Long nodeId : batch) {
+                if (!found.contains(nodeId)) {
+                    remove(nodeId);
+                }
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                index.clear();
+                suggestIndex.clear();
+                nodeRepository.findAllNameViews().forEach(this::put);
+                mapDataRepository.findAllLocations().forEach(map -> suggestIndex.putMap(map.getId(), map.getName()));
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(NodeNameView view) {
+        index.put(view.getId(), view.getName(), view.getMapDataId(), view.getMapDataName());
+        suggestIndex.putNode(view.getId(), view.getName(), view.getMapDataId(), view.getMapDataName());
+    }
+
+    private void remove(Long nodeId) {
+        index.remove(nodeId);
+        suggestIndex.removeNode(nodeId);
+    }
+}
@@ -0,0 +1,57 @@
+package es.gdapp.guidingApp.search;
+
+import java.util.Arrays;
+
+/**
+ * Growable sorted set of ints backed by an array; used for the posting lists of
+ * {@link TextIndex}, where boxed sets would cost several times the memory.
+ */
+final class SortedIntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    void add(int value) {
+        // Fast path: slots are mostly added in increasing order
+        if (size == 0 || values[size - 1] < value) {
+            grow();
+            values[size++] = value;
+            return;
+        }
+        int at = Arrays.binarySearch(values, 0, size, value);
+        if (at >= 0) {
+            return;
+        }
+        at = -at - 1;
+        grow();
+        System.arraycopy(values, at, values, at + 1, size - at);
+        values[at] = value;
+        size++;
+    }
+
+    void remove(int value) {
+        int at = Arrays.binarySearch(values, 0, size, value);
+        if (at >= 0) {
+            System.arraycopy(values, at + 1, values, at, size - at - 1);
+            size--;
+        }
+    }
+
+    private void grow() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package es.gdapp.guidingApp.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Typo-tolerant typeahead over node names and map names.
+ * <p>
+ * Names are split into words (lower case, accents removed) and every distinct word is
+ * stored in a trie. A query is matched word by word by walking the trie with a Levenshtein
+ * row per visited trie node, which prunes every branch that is already too far from the
+ * query word: complete words match words within a small edit distance, and the last word,
+ * still being typed, also matches any word starting with something close to it. Each name
+ * must match every query word; names are ranked by how well they match.
+ * <p>
+ * A node entry holds the words of the node name and of its map name, so "aulario 1" finds
+ * room "Aula 1" of map "Aulario". Maps are entries of their own.
+ * <p>
+ * Not thread-safe: callers guard reads and writes with a read-write lock.
+ */
+public class SuggestIndex {
+
+    // Score of a query word against a name word
+    private static final int EXACT = 10;
+    private static final int PREFIX = 8;
+    private static final int FUZZY = 6;            // Minus 2 per edit beyond the first
+    private static final int FUZZY_PREFIX = 5;
+
+    // Bounds that keep short prefixes ("a") from expanding to the whole vocabulary
+    static final int MAX_WORDS_PER_TERM = 256;
+    static final int MAX_CANDIDATES = 1024;
+
+    public enum Kind { NODE, MAP }
+
+    /** A suggestion: a node (with its map) or a whole map */
+    public record Suggestion(Kind kind, long id, Long mapDataId, String text, int score) {
+    }
+
+    private static final class TrieNode {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        int wordId = -1;
+
+        TrieNode child(char c) {
+            int at = Arrays.binarySearch(keys, c);
+            return at >= 0 ? children[at] : null;
+        }
+
+        TrieNode childOrCreate(char c) {
+            int at = Arrays.binarySearch(keys, c);
+            if (at >= 0) {
+                return children[at];
+            }
+            at = -at - 1;
+            char[] k = new char[keys.length + 1];
+            TrieNode[] n = new TrieNode[keys.length + 1];
+            System.arraycopy(keys, 0, k, 0, at);
+            System.arraycopy(children, 0, n, 0, at);
+            System.arraycopy(keys, at, k, at + 1, keys.length - at);
+            System.arraycopy(children, at, n, at + 1, keys.length - at);
+            k[at] = c;
+            n[at] = new TrieNode();
+            keys = k;
+            children = n;
+            return n[at];
+        }
+    }
+
+    private record Entry(Kind kind, long id, Long mapDataId, String text, int[] wordIds) {
+    }
+
+    private TrieNode root = new TrieNode();
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<SortedIntList> postings = new ArrayList<>();   // By word id: entry slots
+
+    private final List<Entry> entries = new ArrayList<>();            // By slot, null when free
+    private final List<Integer> freeSlots = new ArrayList<>();
+    private final Map<Long, Integer> nodeSlots = new HashMap<>();
+    private final Map<Long, Integer> mapSlots = new HashMap<>();
+
+    public int size() {
+        return nodeSlots.size() + mapSlots.size();
+    }
+
+    public void putNode(long nodeId, String name, Long mapDataId, String mapName) {
+        removeNode(nodeId);
+        String text = mapName == null ? name : name + ", " + mapName;
+        nodeSlots.put(nodeId, add(new Entry(Kind.NODE, nodeId, mapDataId, text, words(text))));
+    }
+
+    public void removeNode(long nodeId) {
+        Integer slot = nodeSlots.remove(nodeId);
+        if (slot != null) free(slot);
+    }
+
+    public void putMap(long mapDataId, String name) {
+        removeMap(mapDataId);
+        mapSlots.put(mapDataId, add(new Entry(Kind.MAP, mapDataId, mapDataId, name, words(name))));
+    }
+
+    public void removeMap(long mapDataId) {
+        Integer slot = mapSlots.remove(mapDataId);
+        if (slot != null) free(slot);
+    }
+
+    public void clear() {
+        nodeSlots.clear();
+        mapSlots.clear();
+        entries.clear();
+        freeSlots.clear();
+        root = new TrieNode();
+        wordIds.clear();
+        postings.clear();
+    }
+
+    private int add(Entry entry) {
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = entries.size();
+            entries.add(entry);
+        } else {
+            slot = freeSlots.remove(freeSlots.size() - 1);
+            entries.set(slot, entry);
+        }
+        for (int wordId : entry.wordIds()) {
+            postings.get(wordId).add(slot);
+        }
+        return slot;
+    }
+
+    private void free(int slot) {
+        // Words left without names stay in the trie but have empty postings and never match
+        for (int wordId : entries.get(slot).wordIds()) {
+            postings.get(wordId).remove(slot);
+        }
+        entries.set(slot, null);
+        freeSlots.add(slot);
+    }
+
+    private int[] words(String text) {
+        return Arrays.stream(tokenize(text)).mapToInt(this::wordId).distinct().toArray();
+    }
+
+    private int wordId(String word) {
+        Integer id = wordIds.get(word);
+        if (id == null) {
+            id = postings.size();
+            wordIds.put(word, id);
+            postings.add(new SortedIntList());
+            TrieNode node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.childOrCreate(word.charAt(i));
+            }
+            node.wordId = id;
+        }
+        return id;
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null) return new String[0];
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(plain.split("[^\\p{L}\\p{N}]+")).filter(w -> !w.isEmpty()).toArray(String[]::new);
+    }
+
+    static int maxEdits(String term) {
+        return term.length() <= 2 ? 0 : term.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Suggests names for what has been typed so far.
+     *
+     * @param query the typed text; its last word counts as a prefix unless followed by a space
+     * @param limit maximum number of suggestions
+     * @return the best suggestions, best first
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        boolean lastIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        // Matching vocabulary words of each query term, sorted by word id, with their scores
+        int[][] termWords = new int[terms.length][];
+        int[][] termScores = new int[terms.length][];
+        for (int t = 0; t < terms.length; t++) {
+            Map<Integer, Integer> termMatches = match(terms[t], lastIsPrefix && t == terms.length - 1);
+            if (termMatches.isEmpty()) {
+                return List.of();
+            }
+            termWords[t] = termMatches.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            termScores[t] = new int[termWords[t].length];
+            for (int i = 0; i < termWords[t].length; i++) {
+                termScores[t][i] = termMatches.get(termWords[t][i]);
+            }
+        }
+
+        // Candidates come from the most selective term; the others are checked per entry
+        int pivot = 0;
+        long pivotSize = Long.MAX_VALUE;
+        for (int t = 0; t < terms.length; t++) {
+            long size = 0;
+            for (int wordId : termWords[t]) size += postings.get(wordId).size();
+            if (size < pivotSize) {
+                pivot = t;
+                pivotSize = size;
+            }
+        }
+
+        Comparator<Suggestion> ranking = Comparator.comparingInt(Suggestion::score).reversed()
+                .thenComparingInt(s -> s.text().length())
+                .thenComparing(Suggestion::text)
+                .thenComparingLong(Suggestion::id);
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(ranking.reversed());
+        for (int slot : candidates(termWords[pivot], termScores[pivot])) {
+            Entry entry = entries.get(slot);
+            int score = 0;
+            for (int t = 0; t < terms.length; t++) {
+                int termScore = 0;
+                for (int wordId : entry.wordIds()) {
+                    int at = Arrays.binarySearch(termWords[t], wordId);
+                    if (at >= 0) termScore = Math.max(termScore, termScores[t][at]);
+                }
+                if (termScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += termScore;
+            }
+            if (score == 0) continue;
+            if (best.size() == limit) {
+                // Cheap checks first: most candidates lose on score or length alone
+                Suggestion worst = best.peek();
+                if (score < worst.score()
+                        || (score == worst.score() && entry.text().length() > worst.text().length())) {
+                    continue;
+                }
+            }
+            Suggestion suggestion = new Suggestion(entry.kind(), entry.id(), entry.mapDataId(), entry.text(), score);
+            if (best.size() < limit) {
+                best.add(suggestion);
+            } else if (ranking.compare(suggestion, best.peek()) < 0) {
+                best.poll();
+                best.add(suggestion);
+            }
+        }
+        List<Suggestion> result = new ArrayList<>(best);
+        result.sort(ranking);
+        return result;
+    }
+
+    // Distinct entry slots holding any of the words, best words first, at most MAX_CANDIDATES
+    private int[] candidates(int[] words, int[] scores) {
+        Integer[] order = new Integer[words.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(scores[b], scores[a]));
+
+        int[] slots = new int[MAX_CANDIDATES];
+        int count = 0;
+        BitSet seen = new BitSet(entries.size());
+        for (int w : order) {
+            SortedIntList posting = postings.get(words[w]);
+            for (int i = 0; i < posting.size() && count < MAX_CANDIDATES; i++) {
+                int slot = posting.get(i);
+                if (!seen.get(slot)) {
+                    seen.set(slot);
+                    slots[count++] = slot;
+                }
+            }
+            if (count == MAX_CANDIDATES) break;
+        }
+        return Arrays.copyOf(slots, count);
+    }
+
+    /**
+     * Walks the trie keeping the Levenshtein row of the term against the current path, and
+     * returns the score of each word close enough to the term (or, for a prefix term, each
+     * word starting with something close enough).
+     * <p>
+     * At most {@link #MAX_WORDS_PER_TERM} words are kept, best first: the trie is walked once
+     * per allowed number of edits, so exact words and completions are all collected before
+     * any one-edit match, and those before any two-edit match. A single walk would fill up
+     * in alphabetical order instead, and "sal" could lose "sala" to hundreds of words
+     * starting with "al".
+     */
+    Map<Integer, Integer> match(String term, boolean prefix) {
+        Map<Integer, Integer> found = new HashMap<>();
+        int[] firstRow = new int[term.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) firstRow[i] = i;
+        for (int edits = 0; edits <= maxEdits(term) && found.size() < MAX_WORDS_PER_TERM; edits++) {
+            walk(root, firstRow, Integer.MAX_VALUE, term, prefix, edits, found);
+        }
+        return found;
+    }
+
+    // prefixDistance: smallest distance between the whole term and a prefix of the path
+    private void walk(TrieNode node, int[] row, int prefixDistance, String term, boolean prefix, int maxEdits,
+                      Map<Integer, Integer> found) {
+        if (found.size() >= MAX_WORDS_PER_TERM) {
+            return;
+        }
+        int distance = row[term.length()];
+        prefixDistance = Math.min(prefixDistance, distance);
+        if (node.wordId >= 0 && live(node.wordId)) {
+            if (distance == 0) {
+                found.put(node.wordId, EXACT);
+            } else if (prefix && prefixDistance == 0) {
+                found.merge(node.wordId, PREFIX, Math::max);
+            } else if (distance <= maxEdits) {
+                found.merge(node.wordId, FUZZY - 2 * (distance - 1), Math::max);
+            } else if (prefix && prefixDistance <= maxEdits) {
+                found.merge(node.wordId, FUZZY_PREFIX - 2 * (prefixDistance - 1), Math::max);
+            }
+        }
+        boolean subtreeMatches = prefix && prefixDistance <= maxEdits;
+        for (int c = 0; c < node.keys.length; c++) {
+            int[] next = new int[row.length];
+            next[0] = row[0] + 1;
+            int min = next[0];
+            for (int i = 1; i < row.length; i++) {
+                int cost = term.charAt(i - 1) == node.keys[c] ? 0 : 1;
+                next[i] = Math.min(Math.min(next[i - 1] + 1, row[i] + 1), row[i - 1] + cost);
+                min = Math.min(min, next[i]);
+            }
+            // Branches that can no longer get close are pruned, unless an earlier prefix
+            // already matched, in which case every word below is a completion
+            if (min <= maxEdits || subtreeMatches) {
+                walk(node.children[c], next, prefixDistance, term, prefix, maxEdits, found);
+            }
+        }
+    }
+
+    private boolean live(int wordId) {
+        return postings.get(wordId).size() > 0;
+    }
+}
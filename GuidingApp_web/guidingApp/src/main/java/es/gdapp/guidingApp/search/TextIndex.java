@@ -0,0 +1,261 @@
+package es.gdapp.guidingApp.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * In-memory inverted index over node names and the names of their maps, giving the same
+ * results as a case-insensitive substring search without scanning the node table.
+ * <p>
+ * Each node gets a dense slot; node names are indexed by their trigrams, each trigram
+ * pointing to the sorted slots whose name contains it. A keyword of three or more characters
+ * is looked up by intersecting the lists of its trigrams and checking the few survivors;
+ * shorter keywords, and map names (one per map, far fewer than nodes), are matched by a
+ * scan of the in-memory names.
+ * <p>
+ * Not thread-safe: callers guard reads and writes with a read-write lock.
+ */
+public class TextIndex {
+
+    static final int GRAM = 3;
+
+    /** A matching node and the number of keyword hits in its name and its map name */
+    public record Hit(long nodeId, int score) {
+    }
+
+    private final Map<Long, Integer> slotsByNode = new HashMap<>();
+    private final List<Integer> freeSlots = new ArrayList<>();
+    private long[] nodeIds = new long[16];
+    private String[] names = new String[16];       // Lower-cased, null for free slots
+    private Long[] mapIds = new Long[16];
+    private int slotCount;
+
+    private final Map<String, SortedIntList> postings = new HashMap<>();
+    private final Map<Long, String> mapNames = new HashMap<>();
+    private final Map<Long, SortedIntList> mapSlots = new HashMap<>();
+
+    public int size() {
+        return slotsByNode.size();
+    }
+
+    /** Adds a node or replaces what is indexed for it. */
+    public void put(long nodeId, String name, Long mapId, String mapName) {
+        remove(nodeId);
+        int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.remove(freeSlots.size() - 1);
+        ensureCapacity(slot + 1);
+        String lower = lower(name);
+        nodeIds[slot] = nodeId;
+        names[slot] = lower;
+        mapIds[slot] = mapId;
+        slotsByNode.put(nodeId, slot);
+        for (String gram : grams(lower)) {
+            postings.computeIfAbsent(gram, g -> new SortedIntList()).add(slot);
+        }
+        if (mapId != null) {
+            mapNames.put(mapId, lower(mapName));
+            mapSlots.computeIfAbsent(mapId, id -> new SortedIntList()).add(slot);
+        }
+    }
+
+    public void remove(long nodeId) {
+        Integer slot = slotsByNode.remove(nodeId);
+        if (slot == null) {
+            return;
+        }
+        for (String gram : grams(names[slot])) {
+            SortedIntList list = postings.get(gram);
+            list.remove(slot);
+            if (list.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+        Long mapId = mapIds[slot];
+        if (mapId != null) {
+            SortedIntList slots = mapSlots.get(mapId);
+            slots.remove(slot);
+            if (slots.size() == 0) {
+                mapSlots.remove(mapId);
+                mapNames.remove(mapId);
+            }
+        }
+        names[slot] = null;
+        mapIds[slot] = null;
+        freeSlots.add(slot);
+    }
+
+    /** Node ids currently indexed under a map. */
+    public List<Long> nodesOfMap(long mapId) {
+        SortedIntList slots = mapSlots.get(mapId);
+        List<Long> ids = new ArrayList<>();
+        if (slots != null) {
+            for (int i = 0; i < slots.size(); i++) {
+                ids.add(nodeIds[slots.get(i)]);
+            }
+        }
+        return ids;
+    }
+
+    public void clear() {
+        slotsByNode.clear();
+        freeSlots.clear();
+        slotCount = 0;
+        postings.clear();
+        mapNames.clear();
+        mapSlots.clear();
+    }
+
+    /**
+     * Scores every node by the number of keywords found in its name plus the number found
+     * in its map name, and returns the best ones.
+     *
+     * @param keywords   lower-case keywords; repeated keywords count every time
+     * @param maxResults maximum number of hits
+     * @return the hits with a positive score, highest score first, then lowest node id
+     */
+    public List<Hit> search(List<String> keywords, int maxResults) {
+        Scores scores = Scores.acquire(slotCount);
+        try {
+            for (String keyword : keywords) {
+                if (keyword.length() >= GRAM) {
+                    SortedIntList candidates = intersect(keyword);
+                    for (int i = 0; i < candidates.size(); i++) {
+                        int slot = candidates.get(i);
+                        if (names[slot].contains(keyword)) scores.add(slot);
+                    }
+                } else {
+                    for (int slot = 0; slot < slotCount; slot++) {
+                        if (names[slot] != null && names[slot].contains(keyword)) scores.add(slot);
+                    }
+                }
+                for (Map.Entry<Long, String> map : mapNames.entrySet()) {
+                    if (map.getValue().contains(keyword)) {
+                        SortedIntList slots = mapSlots.get(map.getKey());
+                        for (int i = 0; i < slots.size(); i++) {
+                            scores.add(slots.get(i));
+                        }
+                    }
+                }
+            }
+
+            // Bounded heap whose head is the worst hit kept so far
+            Comparator<Hit> ranking = Comparator.comparingInt(Hit::score).reversed()
+                    .thenComparingLong(Hit::nodeId);
+            PriorityQueue<Hit> best = new PriorityQueue<>(ranking.reversed());
+            for (int i = 0; i < scores.touchedCount; i++) {
+                int slot = scores.touched[i];
+                int score = scores.values[slot];
+                if (best.size() < maxResults) {
+                    best.add(new Hit(nodeIds[slot], score));
+                } else if (maxResults > 0 && ranksBefore(score, nodeIds[slot], best.peek())) {
+                    best.poll();
+                    best.add(new Hit(nodeIds[slot], score));
+                }
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(ranking);
+            return hits;
+        } finally {
+            scores.release();
+        }
+    }
+
+    // Same order as the ranking comparator, without allocating a hit that is not kept
+    private static boolean ranksBefore(int score, long nodeId, Hit other) {
+        return score > other.score() || (score == other.score() && nodeId < other.nodeId());
+    }
+
+    /**
+     * Score per slot for one search, with the list of slots that scored so that only those
+     * are read and reset afterwards. Searches run concurrently under the read lock, so each
+     * borrows its own from a small pool instead of allocating an array the size of the index.
+     */
+    private static final class Scores {
+
+        // More than this are left to the garbage collector
+        private static final BlockingQueue<Scores> POOL =
+                new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+
+        private int[] values = new int[0];
+        private int[] touched = new int[0];
+        private int touchedCount;
+
+        static Scores acquire(int slots) {
+            Scores scores = POOL.poll();
+            if (scores == null) {
+                scores = new Scores();
+            }
+            if (scores.values.length < slots) {
+                scores.values = new int[slots];
+                scores.touched = new int[slots];
+            }
+            return scores;
+        }
+
+        void add(int slot) {
+            if (values[slot]++ == 0) {
+                touched[touchedCount++] = slot;
+            }
+        }
+
+        void release() {
+            for (int i = 0; i < touchedCount; i++) {
+                values[touched[i]] = 0;
+            }
+            touchedCount = 0;
+            POOL.offer(this);
+        }
+    }
+
+    // Slots whose name has every trigram of the keyword, smallest list first
+    private SortedIntList intersect(String keyword) {
+        List<SortedIntList> lists = new ArrayList<>();
+        for (String gram : grams(keyword)) {
+            SortedIntList list = postings.get(gram);
+            if (list == null) {
+                return new SortedIntList();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(SortedIntList::size));
+        SortedIntList result = lists.get(0);
+        for (int l = 1; l < lists.size() && result.size() > 0; l++) {
+            SortedIntList next = new SortedIntList();
+            for (int i = 0; i < result.size(); i++) {
+                if (lists.get(l).contains(result.get(i))) next.add(result.get(i));
+            }
+            result = next;
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    static String lower(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > nodeIds.length) {
+            int length = Math.max(capacity, nodeIds.length * 2);
+            nodeIds = Arrays.copyOf(nodeIds, length);
+            names = Arrays.copyOf(names, length);
+            mapIds = Arrays.copyOf(mapIds, length);
+        }
+    }
+}
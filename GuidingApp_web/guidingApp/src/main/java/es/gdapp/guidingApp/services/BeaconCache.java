@@ -0,0 +1,154 @@
+package es.gdapp.guidingApp.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.gdapp.guidingApp.dto.BeaconLocationDTO;
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.repositories.NodeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory beaconId → location cache in front of {@link NodeRepository}. Unknown beacons
+ * (those of other buildings, seen all the time by the app) are cached too, so repeated
+ * scans of the same foreign beacon never reach the database.
+ * <p>
+ * {@link NodeService} evicts the beacon ids of every node it writes; map changes evict the
+ * beacons of that map and every unknown id, since new nodes may have been cascaded in.
+ */
+@Service
+public class BeaconCache {
+
+    // Beyond this many entries the least used are evicted, so random ids cannot grow it forever
+    static final int MAX_ENTRIES = 100_000;
+
+    private final NodeRepository nodeRepository;
+    private final Cache<String, Optional<BeaconLocationDTO>> entries =
+            Caffeine.newBuilder().maximumSize(MAX_ENTRIES).build();
+    private final AtomicLong evictions = new AtomicLong();  // Bumped by every eviction
+    private final Counter hits;
+    private final Counter misses;
+
+    public BeaconCache(NodeRepository nodeRepository, MeterRegistry meterRegistry) {
+        this.nodeRepository = nodeRepository;
+        this.hits = Counter.builder("guidingapp.beacon.cache.requests").tag("result", "hit")
+                .description("Beacon lookups answered from memory").register(meterRegistry);
+        this.misses = Counter.builder("guidingapp.beacon.cache.requests").tag("result", "miss")
+                .description("Beacon lookups that went to the database").register(meterRegistry);
+        meterRegistry.gaugeMapSize("guidingapp.beacon.cache.size", List.of(), entries.asMap());
+    }
+
+    /**
+     * Resolves a beacon id.
+     *
+     * @param beaconId the beacon id
+     * @return the beacon location, or empty if no node has that beacon
+     */
+    public Optional<BeaconLocationDTO> resolve(String beaconId) {
+        Optional<BeaconLocationDTO> cached = entries.getIfPresent(beaconId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        // The load is atomic with the entry, so a concurrent eviction waits for it and a
+        // location read before a change is never left behind once the change has been evicted
+        return entries.get(beaconId, id -> {
+            misses.increment();
+            return nodeRepository.findLocationByBeaconId(id);
+        });
+    }
+
+    /**
+     * Resolves several beacon ids with at most one query for those not cached yet.
+     *
+     * @param beaconIds the beacon ids; duplicates are resolved once
+     * @return the locations of the known beacons, in request order
+     */
+    public List<BeaconLocationDTO> resolveAll(Collection<String> beaconIds) {
+        List<BeaconLocationDTO> found = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String beaconId : new LinkedHashSet<>(beaconIds)) {
+            Optional<BeaconLocationDTO> cached = beaconId == null ? Optional.empty() : entries.getIfPresent(beaconId);
+            if (cached == null) {
+                missing.add(beaconId);
+            } else {
+                hits.increment();
+                cached.ifPresent(found::add);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        misses.increment(missing.size());
+        long generation = evictions.get();
+        Map<String, BeaconLocationDTO> loaded = new HashMap<>();
+        for (BeaconLocationDTO location : nodeRepository.findLocationsByBeaconIdIn(missing)) {
+            loaded.putIfAbsent(location.getBeaconId(), location);
+        }
+        for (String beaconId : missing) {
+            Optional<BeaconLocationDTO> location = Optional.ofNullable(loaded.get(beaconId));
+            location.ifPresent(found::add);
+            // Results read before an eviction may be stale: return them but don't keep them
+            if (evictions.get() == generation) {
+                entries.asMap().putIfAbsent(beaconId, location);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Drops the given beacon ids now and, when called inside a transaction, again once it
+     * completes, in case another thread cached the old location in the meantime.
+     */
+    public void evict(String... beaconIds) {
+        evictNow(beaconIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(beaconIds);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String... beaconIds) {
+        evictions.incrementAndGet();
+        for (String beaconId : beaconIds) {
+            if (beaconId != null) {
+                entries.invalidate(beaconId);
+            }
+        }
+    }
+
+    // After commit, so a concurrent lookup cannot cache the old locations again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMapDataChanged(MapDataChangedEvent event) {
+        evictions.incrementAndGet();
+        entries.asMap().values().removeIf(location -> location.isEmpty()
+                || Objects.equals(location.get().getMapDataId(), event.getMapDataId()));
+    }
+
+    public long getHits() {
+        return (long) hits.count();
+    }
+
+    public long getMisses() {
+        return (long) misses.count();
+    }
+}
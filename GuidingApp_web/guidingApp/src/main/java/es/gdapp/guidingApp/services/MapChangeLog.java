@@ -0,0 +1,170 @@
+package es.gdapp.guidingApp.services;
+
+import es.gdapp.guidingApp.dto.EdgeDTO;
+import es.gdapp.guidingApp.dto.MapDataChangesDTO;
+import es.gdapp.guidingApp.dto.MapDataDTO;
+import es.gdapp.guidingApp.dto.NodeDTO;
+import es.gdapp.guidingApp.mappers.DataMapper;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapChange;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.repositories.EdgeRepository;
+import es.gdapp.guidingApp.repositories.MapChangeRepository;
+import es.gdapp.guidingApp.repositories.MapDataRepository;
+import es.gdapp.guidingApp.repositories.NodeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Per-map log of which floors, nodes and edges changed at each map version, so offline
+ * clients can catch up with a delta instead of downloading the whole map again.
+ */
+@Service
+public class MapChangeLog {
+
+    private final MapChangeRepository mapChangeRepository;
+    private final MapDataRepository mapDataRepository;
+    private final NodeRepository nodeRepository;
+    private final EdgeRepository edgeRepository;
+    private final DataMapper dataMapper;
+
+    public MapChangeLog(MapChangeRepository mapChangeRepository, MapDataRepository mapDataRepository,
+                        NodeRepository nodeRepository, EdgeRepository edgeRepository, DataMapper dataMapper) {
+        this.mapChangeRepository = mapChangeRepository;
+        this.mapDataRepository = mapDataRepository;
+        this.nodeRepository = nodeRepository;
+        this.edgeRepository = edgeRepository;
+        this.dataMapper = dataMapper;
+    }
+
+    // Bumps the map version and logs the changes under the new version. The version row stays
+    // locked until the entries are written, so concurrent writers never share a version
+    @Transactional
+    public void record(Long mapDataId, Collection<MapChange> changes) {
+        mapDataRepository.incrementVersion(mapDataId);
+        Optional<Long> version = mapDataRepository.findVersionById(mapDataId);
+        if (version.isEmpty()) {
+            return;  // Map deleted meanwhile
+        }
+        for (MapChange change : changes) {
+            change.setMapDataId(mapDataId);
+            change.setVersion(version.get());
+        }
+        mapChangeRepository.saveAll(changes);
+    }
+
+    public void forget(Long mapDataId) {
+        mapChangeRepository.deleteByMapDataId(mapDataId);
+    }
+
+    /**
+     * Everything written to the map after version {@code since}, with the current state of
+     * each changed entity. Empty if the map does not exist.
+     *
+     * @throws IllegalArgumentException if {@code since} is negative or ahead of the map
+     */
+    public Optional<MapDataChangesDTO> getChangesSince(Long mapDataId, long since) {
+        Optional<Long> version = mapDataRepository.findVersionById(mapDataId);
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+        if (since < 0 || since > version.get()) {
+            throw new IllegalArgumentException("Version " + since + " is not between 0 and " + version.get());
+        }
+        // Entries read after the version may be newer than it; sending their current state
+        // again at the next sync is harmless
+        MapDataChangesDTO delta = new MapDataChangesDTO(mapDataId, since, version.get());
+        if (since == version.get()) {
+            return Optional.of(delta);
+        }
+
+        // Only the last entry of each entity counts
+        Map<MapChange.Kind, Map<Long, Boolean>> latest = new EnumMap<>(MapChange.Kind.class);
+        for (MapChange change : mapChangeRepository
+                .findByMapDataIdAndVersionGreaterThanOrderByVersionAscIdAsc(mapDataId, since)) {
+            latest.computeIfAbsent(change.getKind(), kind -> new LinkedHashMap<>())
+                    .put(change.getEntityId(), change.isRemoved());
+        }
+
+        if (latest.containsKey(MapChange.Kind.RESET)) {
+            delta.setReset(true);
+            return Optional.of(delta);
+        }
+
+        if (latest.containsKey(MapChange.Kind.MAP)) {
+            mapDataRepository.findById(mapDataId).ifPresent(map -> {
+                MapDataDTO header = dataMapper.toMapDataHeaderDTO(map);
+                header.setVersion(version.get());
+                delta.setMap(header);
+            });
+        }
+
+        Set<Long> floors = written(latest.get(MapChange.Kind.FLOOR), floor -> delta.getRemovedFloors().add(floor.intValue()));
+        if (!floors.isEmpty()) {
+            List<Integer> floorNumbers = floors.stream().map(Long::intValue).toList();
+            List<NamedMatrix> found = new ArrayList<>(mapDataRepository.findFloors(mapDataId, floorNumbers));
+            found.sort(Comparator.comparing(NamedMatrix::getFloorNumber));
+            delta.setMatrices(dataMapper.toNamedMatrixDTOs(found));
+            found.forEach(floor -> floors.remove(floor.getFloorNumber().longValue()));
+            floors.forEach(floor -> delta.getRemovedFloors().add(floor.intValue()));
+        }
+
+        Set<Long> nodeIds = written(latest.get(MapChange.Kind.NODE), delta.getRemovedNodes()::add);
+        if (!nodeIds.isEmpty()) {
+            for (Node node : nodeRepository.findAllById(nodeIds)) {
+                // Nodes moved to another map count as removed from this one
+                if (node.getMapData() != null && mapDataId.equals(node.getMapData().getId())) {
+                    delta.getNodes().add(dataMapper.toNodeDTO(node));
+                    nodeIds.remove(node.getId());
+                }
+            }
+            delta.getRemovedNodes().addAll(nodeIds);
+        }
+
+        Set<Long> edgeIds = written(latest.get(MapChange.Kind.EDGE), delta.getRemovedEdges()::add);
+        if (!edgeIds.isEmpty()) {
+            for (Edge edge : edgeRepository.findAllById(edgeIds)) {
+                if (edge.getMapData() != null && mapDataId.equals(edge.getMapData().getId())) {
+                    delta.getEdges().add(dataMapper.toEdgeDTO(edge));
+                    edgeIds.remove(edge.getId());
+                }
+            }
+            delta.getRemovedEdges().addAll(edgeIds);
+        }
+
+        delta.getRemovedFloors().sort(null);
+        delta.getNodes().sort(Comparator.comparing(NodeDTO::getId));
+        delta.getRemovedNodes().sort(null);
+        delta.getEdges().sort(Comparator.comparing(EdgeDTO::getId));
+        delta.getRemovedEdges().sort(null);
+        return Optional.of(delta);
+    }
+
+    // Ids whose last entry is a write; those whose last entry is a removal go to removed
+    private static Set<Long> written(Map<Long, Boolean> entries, Consumer<Long> removed) {
+        Set<Long> ids = new HashSet<>();
+        if (entries != null) {
+            entries.forEach((id, isRemoval) -> {
+                if (isRemoval) {
+                    removed.accept(id);
+                } else {
+                    ids.add(id);
+                }
+            });
+        }
+        return ids;
+    }
+}
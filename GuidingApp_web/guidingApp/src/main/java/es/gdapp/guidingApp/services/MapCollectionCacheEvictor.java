@@ -0,0 +1,36 @@
+package es.gdapp.guidingApp.services;
+
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.models.MapData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the cached node and edge lists of a map in step with the database. Nodes and edges
+ * own their link to the map, so saving or deleting one on its own does not touch the
+ * MapData.nodes or MapData.edges entry Hibernate keeps in the second-level cache. Floors
+ * are evicted too, since the importer writes them without going through the entity.
+ */
+@Component
+public class MapCollectionCacheEvictor {
+
+    private static final String NODES = MapData.class.getName() + ".nodes";
+    private static final String EDGES = MapData.class.getName() + ".edges";
+    private static final String MATRICES = MapData.class.getName() + ".matrices";
+
+    private final Cache cache;
+
+    public MapCollectionCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMapDataChanged(MapDataChangedEvent event) {
+        cache.evictCollectionData(NODES, event.getMapDataId());
+        cache.evictCollectionData(EDGES, event.getMapDataId());
+        cache.evictCollectionData(MATRICES, event.getMapDataId());
+    }
+}
@@ -1,26 +1,55 @@
 package es.gdapp.guidingApp.services;
 
+import es.gdapp.guidingApp.dto.CursorPageDTO;
+import es.gdapp.guidingApp.dto.FloorSummaryDTO;
+import es.gdapp.guidingApp.dto.MapDataChangesDTO;
+import es.gdapp.guidingApp.dto.MapDataSummaryDTO;
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.models.MapChange;
 import es.gdapp.guidingApp.models.MapData;
 import es.gdapp.guidingApp.repositories.MapDataRepository;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import es.gdapp.guidingApp.repositories.projections.FloorView;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class MapDataService {
 
     private final MapDataRepository mapDataRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MapChangeLog mapChangeLog;
 
-    public MapDataService(MapDataRepository mapDataRepository) {
+    public MapDataService(MapDataRepository mapDataRepository, ApplicationEventPublisher eventPublisher,
+                          MapChangeLog mapChangeLog) {
         this.mapDataRepository = mapDataRepository;
+        this.eventPublisher = eventPublisher;
+        this.mapChangeLog = mapChangeLog;
     }
 
+    // The save and its change log entry commit together, so the version never moves
+    // without the data or the other way round
+    @Transactional
     public MapData saveMapData(MapData mapData) {
-        return mapDataRepository.save(mapData);
+        MapSnapshot before = MapSnapshot.EMPTY;
+        if (mapData.getId() != null) {
+            Optional<MapData> stored = mapDataRepository.findById(mapData.getId());
+            if (stored.isPresent()) {
+                before = snapshotOf(stored.get(), mapData);
+            }
+        }
+        MapData saved = mapDataRepository.save(mapData);
+        markChanged(saved.getId(), changesBetween(before, saved));
+        return saved;
     }
 
     public Optional<MapData> getMapDataById(Long id) {
@@ -32,20 +61,86 @@ public class MapDataService {
         return res;
     }
 
+    // Summaries of every map built from two projection queries, without touching the matrices
+    public List<MapDataSummaryDTO> getMapDataSummaries() {
+        return withFloors(mapDataRepository.findAllSummaries(), mapDataRepository.findAllFloors());
+    }
+
+    // Summaries of the given maps only, ordered by id
+    public List<MapDataSummaryDTO> getMapDataSummaries(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return withFloors(mapDataRepository.findSummariesByIdIn(ids), mapDataRepository.findFloorsByMapDataIdIn(ids));
+    }
+
+    private static List<MapDataSummaryDTO> withFloors(List<MapDataSummaryDTO> summaries, List<FloorView> floors) {
+        Map<Long, MapDataSummaryDTO> byId = summaries.stream()
+                .collect(Collectors.toMap(MapDataSummaryDTO::getId, Function.identity()));
+        for (FloorView floor : floors) {
+            MapDataSummaryDTO summary = byId.get(floor.getMapDataId());
+            if (summary != null) {
+                summary.getFloors().add(new FloorSummaryDTO(floor.getFloorNumber(), floor.getName()));
+            }
+        }
+        return summaries;
+    }
+
+    @Transactional
     public MapData updateMapData(Long id, MapData mapData) {
-        if (mapDataRepository.findById(id).isPresent()) {
+        Optional<MapData> stored = mapDataRepository.findById(id);
+        if (stored.isPresent()) {
+            MapSnapshot before = snapshotOf(stored.get(), mapData);
             // Optionally, you can set the id explicitly before saving
             mapData.setId(id);
-            return mapDataRepository.save(mapData);
+            MapData saved = mapDataRepository.save(mapData);
+            markChanged(id, changesBetween(before, saved));
+            return saved;
         }
         throw new NoSuchElementException("MapData not found with id: " + id);
     }
 
+    // State of the stored map before a whole-map save, or null when the caller edited the
+    // managed instance itself: its edits are already applied and cannot be told apart
+    private static MapSnapshot snapshotOf(MapData stored, MapData incoming) {
+        return stored == incoming ? null : MapSnapshot.of(stored);
+    }
+
+    private static List<MapChange> changesBetween(MapSnapshot before, MapData saved) {
+        return before == null ? List.of(MapChange.reset()) : before.changesTo(MapSnapshot.of(saved));
+    }
+
+    @Transactional
     public void deleteMapData(Long id) {
         mapDataRepository.deleteById(id);
+        mapChangeLog.forget(id);
+        eventPublisher.publishEvent(new MapDataChangedEvent(id));
+    }
+
+    // Bumps the map version (and so its ETag), logs what changed for delta sync and notifies
+    // listeners that keep derived data; to be called after any write to the map, its floors,
+    // nodes or edges, in the transaction of that write
+    @Transactional
+    public void markChanged(Long id, Collection<MapChange> changes) {
+        mapChangeLog.record(id, changes);
+        eventPublisher.publishEvent(new MapDataChangedEvent(id, List.copyOf(changes)));
+    }
+
+    // Floors, nodes and edges changed after the given version; empty if the map does not exist
+    public Optional<MapDataChangesDTO> getChangesSince(Long id, long since) {
+        return mapChangeLog.getChangesSince(id, since);
+    }
+
+    // Current version of a map, read without loading it
+    public Optional<Long> getMapDataVersion(Long id) {
+        return mapDataRepository.findVersionById(id);
     }
 
-    public Page<MapData> getMapDataPage(Pageable pageable) {
-        return mapDataRepository.findAll(pageable);
+    // Map summaries in id order after the cursor; each page reads its ids off the primary
+    // key index instead of skipping an offset
+    public CursorPageDTO<MapDataSummaryDTO> getMapDataSummaryPage(String cursor, int limit) {
+        List<Long> ids = mapDataRepository.findIdsAfter(PageCursor.decode(cursor), Limit.of(limit + 1));
+        CursorPageDTO<Long> page = PageCursor.page(ids, limit, Function.identity());
+        return new CursorPageDTO<>(getMapDataSummaries(page.getContent()), page.getNextCursor());
     }
 }
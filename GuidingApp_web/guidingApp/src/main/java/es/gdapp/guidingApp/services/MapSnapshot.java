@@ -0,0 +1,103 @@
+package es.gdapp.guidingApp.services;
+
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.GridMatrix;
+import es.gdapp.guidingApp.models.MapChange;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import es.gdapp.guidingApp.models.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Detached copy of what a map looks like to clients, taken before a whole-map save so the
+ * change log can record only the floors, nodes and edges that the save really changed.
+ */
+final class MapSnapshot {
+
+    static final MapSnapshot EMPTY = new MapSnapshot(null, Map.of(), Map.of(), Map.of());
+
+    private record Header(String name, double northAngle, double latitude, double longitude) {}
+
+    // Grids are immutable, so holding the reference is enough
+    private record Floor(String name, GridMatrix grid) {}
+
+    private record NodeState(String name, String beaconId, Integer floorNumber, boolean isExit,
+                             boolean isEntrance, Integer x, Integer y, String area) {}
+
+    private record EdgeState(Integer weight, String comment, Long fromNode, Long toNode) {}
+
+    private final Header header;
+    private final Map<Integer, Floor> floors;
+    private final Map<Long, NodeState> nodes;
+    private final Map<Long, EdgeState> edges;
+
+    private MapSnapshot(Header header, Map<Integer, Floor> floors,
+                        Map<Long, NodeState> nodes, Map<Long, EdgeState> edges) {
+        this.header = header;
+        this.floors = floors;
+        this.nodes = nodes;
+        this.edges = edges;
+    }
+
+    static MapSnapshot of(MapData map) {
+        Map<Integer, Floor> floors = new HashMap<>();
+        if (map.getMatrices() != null) {
+            for (NamedMatrix matrix : map.getMatrices()) {
+                floors.put(matrix.getFloorNumber(), new Floor(matrix.getName(), matrix.getGrid()));
+            }
+        }
+        Map<Long, NodeState> nodes = new HashMap<>();
+        if (map.getNodes() != null) {
+            for (Node node : map.getNodes()) {
+                if (node.getId() == null) continue;
+                nodes.put(node.getId(), new NodeState(node.getName(), node.getBeaconId(), node.getFloorNumber(),
+                        node.isExit(), node.isEntrance(), node.getX(), node.getY(),
+                        node.getArea() == null ? null : Arrays.deepToString(node.getArea())));
+            }
+        }
+        Map<Long, EdgeState> edges = new HashMap<>();
+        if (map.getEdges() != null) {
+            for (Edge edge : map.getEdges()) {
+                if (edge.getId() == null) continue;
+                edges.put(edge.getId(), new EdgeState(edge.getWeight(), edge.getComment(),
+                        edge.getFromNode() == null ? null : edge.getFromNode().getId(),
+                        edge.getToNode() == null ? null : edge.getToNode().getId()));
+            }
+        }
+        Header header = new Header(map.getName(), map.getNorthAngle(), map.getLatitude(), map.getLongitude());
+        return new MapSnapshot(header, floors, nodes, edges);
+    }
+
+    /** Log entries that turn this state into {@code after}; everything is new when this is {@link #EMPTY}. */
+    List<MapChange> changesTo(MapSnapshot after) {
+        List<MapChange> changes = new ArrayList<>();
+        if (!Objects.equals(header, after.header)) {
+            changes.add(MapChange.header());
+        }
+        diff(floors, after.floors, MapChange::floor, changes);
+        diff(nodes, after.nodes, MapChange::node, changes);
+        diff(edges, after.edges, MapChange::edge, changes);
+        return changes;
+    }
+
+    private static <K, V> void diff(Map<K, V> before, Map<K, V> after,
+                                    BiFunction<K, Boolean, MapChange> change, List<MapChange> out) {
+        after.forEach((key, value) -> {
+            if (!value.equals(before.get(key))) {
+                out.add(change.apply(key, false));
+            }
+        });
+        for (K key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                out.add(change.apply(key, true));
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package es.gdapp.guidingApp.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.converters.GridMatrixConverter;
+import es.gdapp.guidingApp.models.GridMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One-off migration of floor matrices from the old JSON {@code TEXT} column to the packed
+ * {@link GridMatrix} {@code LONGBLOB} format. Enable it for a single start-up with
+ * {@code guidingapp.migration.matrix-blob=true} on databases created before the change
+ * (it is pointless with {@code ddl-auto=create-drop}).
+ * <p>
+ * Changing the column type keeps the stored bytes, so legacy rows stay readable through
+ * {@link GridMatrixConverter} even if this migration is never run; running it rewrites
+ * them in binary, so the storage savings apply to the whole table. Rows are read in keyset
+ * pages over {@code (map_data_id, floor_number)} and each page is written back as one
+ * batch, so only a page of matrices is held in memory at a time.
+ */
+@Service
+@ConditionalOnProperty(name = "guidingapp.migration.matrix-blob", havingValue = "true")
+public class MatrixColumnMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MatrixColumnMigration.class);
+    private static final int PAGE_SIZE = 20;
+    private static final String PAGE_QUERY = "SELECT map_data_id, floor_number, matrix FROM map_data_matrices "
+            + "WHERE map_data_id > ? OR (map_data_id = ? AND floor_number > ?) "
+            + "ORDER BY map_data_id, floor_number LIMIT " + PAGE_SIZE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public MatrixColumnMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute("ALTER TABLE map_data_matrices MODIFY matrix LONGBLOB");
+
+        List<Object[]> batch = new ArrayList<>(PAGE_SIZE);
+        long[] migrated = {0, 0};  // rows, bytes saved
+        long[] last = {Long.MIN_VALUE, Integer.MIN_VALUE};  // key of the last row read
+        int[] read = new int[1];
+        do {
+            read[0] = 0;
+            jdbcTemplate.query(PAGE_QUERY, rs -> {
+                long mapDataId = rs.getLong("map_data_id");
+                int floorNumber = rs.getInt("floor_number");
+                last[0] = mapDataId;
+                last[1] = floorNumber;
+                read[0]++;
+                byte[] stored = rs.getBytes("matrix");
+                if (stored == null || !GridMatrixConverter.isLegacyJson(stored)) {
+                    return;
+                }
+                byte[] packed;
+                try {
+                    packed = GridMatrix.of(objectMapper.readValue(stored, int[][].class)).toBytes();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unreadable matrix for map " + mapDataId
+                            + ", floor " + floorNumber, e);
+                }
+                batch.add(new Object[]{packed, mapDataId, floorNumber});
+                migrated[0]++;
+                migrated[1] += stored.length - packed.length;
+            }, last[0], last[0], (int) last[1]);
+            flush(batch);
+        } while (read[0] == PAGE_SIZE);
+        log.info("Migrated {} floor matrices to binary storage, saving {} bytes", migrated[0], migrated[1]);
+    }
+
+    private void flush(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE map_data_matrices SET matrix = ? WHERE map_data_id = ? AND floor_number = ?", batch);
+            batch.clear();
+        }
+    }
+}
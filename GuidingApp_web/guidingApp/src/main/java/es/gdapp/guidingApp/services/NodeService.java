@@ -1,16 +1,26 @@
 package es.gdapp.guidingApp.services;
 
-import es.gdapp.guidingApp.dto.MapDataDTO;
+import es.gdapp.guidingApp.dto.BeaconLocationDTO;
+import es.gdapp.guidingApp.dto.BeaconMatchDTO;
+import es.gdapp.guidingApp.dto.CursorPageDTO;
 import es.gdapp.guidingApp.dto.NodeDTO;
-import es.gdapp.guidingApp.dto.NodeMapDataSearchResultDTO;
+import es.gdapp.guidingApp.dto.NodeSearchHitDTO;
+import es.gdapp.guidingApp.dto.NodeSearchResponseDTO;
+import es.gdapp.guidingApp.dto.SuggestionDTO;
+import es.gdapp.guidingApp.events.NodeChangedEvent;
+import es.gdapp.guidingApp.models.MapChange;
 import es.gdapp.guidingApp.models.MapData;
 import es.gdapp.guidingApp.models.Node;
 import es.gdapp.guidingApp.repositories.NodeRepository;
-import es.gdapp.guidingApp.services.auxiliarClasses.PairScore;
+import es.gdapp.guidingApp.search.NodeSearchService;
+import es.gdapp.guidingApp.search.TextIndex;
 import jakarta.persistence.criteria.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import es.gdapp.guidingApp.mappers.DataMapper;
@@ -24,16 +34,39 @@ public class NodeService {
 
     private final NodeRepository nodeRepository;
     private final DataMapper dataMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BeaconCache beaconCache;
+    private final NodeSearchService nodeSearchService;
+    private final MapDataService mapDataService;
 
     @Autowired
-    public NodeService(NodeRepository nodeRepository, DataMapper dataMapper) {
+    public NodeService(NodeRepository nodeRepository, DataMapper dataMapper,
+                       ApplicationEventPublisher eventPublisher, BeaconCache beaconCache,
+                       NodeSearchService nodeSearchService, MapDataService mapDataService) {
         this.nodeRepository = nodeRepository;
         this.dataMapper = dataMapper;
+        this.eventPublisher = eventPublisher;
+        this.beaconCache = beaconCache;
+        this.nodeSearchService = nodeSearchService;
+        this.mapDataService = mapDataService;
     }
 
-    // Create or update a Node entry
+    // Create or update a Node entry, in one transaction with the change log entries of its maps
+    @Transactional
     public Node saveNode(Node node) {
-        return nodeRepository.save(node);
+        Long previousMapId = null;
+        if (node.getId() != null) {
+            // Saving over an existing node may change its beacon or its map
+            Optional<Node> existing = nodeRepository.findById(node.getId());
+            if (existing.isPresent()) {
+                beaconCache.evict(existing.get().getBeaconId());
+                previousMapId = mapIdOf(existing.get());
+            }
+        }
+        Node saved = nodeRepository.save(node);
+        beaconCache.evict(saved.getBeaconId());
+        publishMapChange(saved, previousMapId);
+        return saved;
     }
 
     // Retrieve a Node by its id
@@ -46,102 +79,157 @@ public class NodeService {
         return nodeRepository.findAll();
     }
 
-    // Retrieve a Node by its beaconId
+    // Nodes in id order after the cursor, optionally filtered by map, floor and exit or
+    // entrance flags (null filters are left out). The id condition lets each page start
+    // in the index where the last one ended instead of skipping an offset
+    public CursorPageDTO<NodeDTO> getNodePage(Long mapDataId, Integer floorNumber, Boolean exit, Boolean entrance,
+                                              String cursor, int limit) {
+        long afterId = PageCursor.decode(cursor);
+        Specification<Node> spec = (root, query, cb) -> cb.greaterThan(root.get("id"), afterId);
+        if (mapDataId != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("mapData").get("id"), mapDataId));
+        }
+        if (floorNumber != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("floorNumber"), floorNumber));
+        }
+        if (exit != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("isExit"), exit));
+        }
+        if (entrance != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("isEntrance"), entrance));
+        }
+        List<Node> rows = nodeRepository.findBy(spec, query -> query.sortBy(Sort.by("id")).limit(limit + 1).all());
+        CursorPageDTO<Node> page = PageCursor.page(rows, limit, Node::getId);
+        return new CursorPageDTO<>(dataMapper.toNodeDTOs(page.getContent()), page.getNextCursor());
+    }
+
+    // Retrieve a Node by its beaconId; unknown beacons are answered from the cache
     public Optional<Node> getNodeByBeaconId(String beaconId) {
-        return nodeRepository.findByBeaconId(beaconId);
+        return beaconCache.resolve(beaconId)
+                .flatMap(location -> nodeRepository.findById(location.getNodeId()));
+    }
+
+    // Resolve a beaconId to its node, map and floor without loading the node
+    public Optional<BeaconLocationDTO> resolveBeacon(String beaconId) {
+        return beaconCache.resolve(beaconId);
+    }
+
+    // Resolve many beaconIds at once: one cache pass, then one query for the uncached
+    // beacons and one for the matched nodes
+    public List<BeaconMatchDTO> resolveBeacons(Collection<String> beaconIds) {
+        List<BeaconLocationDTO> locations = beaconCache.resolveAll(beaconIds);
+        if (locations.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Node> nodes = nodeRepository.findAllById(
+                        locations.stream().map(BeaconLocationDTO::getNodeId).toList())
+                .stream()
+                .collect(Collectors.toMap(Node::getId, node -> node));
+        List<BeaconMatchDTO> matches = new ArrayList<>();
+        for (BeaconLocationDTO location : locations) {
+            Node node = nodes.get(location.getNodeId());
+            if (node != null) {
+                matches.add(new BeaconMatchDTO(location.getBeaconId(), location.getMapDataId(),
+                        dataMapper.toNodeDTO(node)));
+            }
+        }
+        return matches;
     }
 
     // Update an existing Node (throws exception if not found)
+    @Transactional
     public Node updateNode(Long id, Node node) {
-        if (nodeRepository.findById(id).isPresent()) {
+        Optional<Node> existing = nodeRepository.findById(id);
+        if (existing.isPresent()) {
+            // The node may have been moved to another map, so both maps change
+            Long previousMapId = mapIdOf(existing.get());
+            beaconCache.evict(existing.get().getBeaconId());
             node.setId(id);
-            return nodeRepository.save(node);
+            Node saved = nodeRepository.save(node);
+            beaconCache.evict(saved.getBeaconId());
+            publishMapChange(saved, previousMapId);
+            return saved;
         }
         throw new NoSuchElementException("Node not found with id: " + id);
     }
 
     // Delete a Node entry by its id
+    @Transactional
     public void deleteNode(Long id) {
+        Optional<Node> existing = nodeRepository.findById(id);
         nodeRepository.deleteById(id);
-    }
-
-    private Specification<Node> buildContainsSpecification(List<String> keywords) {
-        return (root, query, cb) -> {
-            root.fetch("mapData", JoinType.LEFT);
-            query.distinct(true);
-
-            Join<Object, Object> joinMapData = root.join("mapData", JoinType.LEFT);
-
-            List<Predicate> orPreds = new ArrayList<>();
-            for (String keyword : keywords) {
-                if (!StringUtils.hasText(keyword)) continue;
-                String pattern = "%" + keyword + "%";
-                Predicate pNode = cb.like(cb.lower(root.get("name")), pattern);
-                Predicate pMap  = cb.like(cb.lower(joinMapData.get("name")), pattern);
-                orPreds.add(cb.or(pNode, pMap));
+        existing.ifPresent(node -> {
+            beaconCache.evict(node.getBeaconId());
+            eventPublisher.publishEvent(new NodeChangedEvent(id));
+            Long mapId = mapIdOf(node);
+            if (mapId != null) {
+                mapDataService.markChanged(mapId, List.of(MapChange.node(id, true)));
             }
-            return cb.or(orPreds.toArray(new Predicate[0]));
-        };
+        });
     }
 
-    public List<NodeMapDataSearchResultDTO> searchByText(String inputText, int maxResults) {
-        if (!StringUtils.hasText(inputText)) {
-            return Collections.emptyList();
+    // Notify listeners that keep per-map derived data (route graphs, indexes...) and log the
+    // write; a node moved away from previousMapId counts as removed there
+    private void publishMapChange(Node node, Long previousMapId) {
+        eventPublisher.publishEvent(new NodeChangedEvent(node.getId()));
+        Long mapId = mapIdOf(node);
+        if (previousMapId != null && !previousMapId.equals(mapId)) {
+            mapDataService.markChanged(previousMapId, List.of(MapChange.node(node.getId(), true)));
         }
+        if (mapId != null) {
+            mapDataService.markChanged(mapId, List.of(MapChange.node(node.getId(), false)));
+        }
+    }
 
-        String[] parts = inputText.trim().toLowerCase().split("\\s+");
-        List<String> keywords = Arrays.stream(parts)
-                .filter(s -> s.trim().length() > 0)
-                .collect(Collectors.toList());
+    private static Long mapIdOf(Node node) {
+        return node.getMapData() != null ? node.getMapData().getId() : null;
+    }
 
+    public NodeSearchResponseDTO searchByText(String inputText, int maxResults) {
+        List<String> keywords = parseKeywords(inputText);
         if (keywords.isEmpty()) {
-            return Collections.emptyList();
+            return new NodeSearchResponseDTO();
         }
 
-        List<Node> candidates = nodeRepository.findAll(buildContainsSpecification(keywords));
-
-        List<PairScore> scoredList = new ArrayList<>();
-        for (Node node : candidates) {
-            int count = 0;
-            String nodeName = node.getName() != null ? node.getName().toLowerCase() : "";
-            String mapName  = (node.getMapData() != null && node.getMapData().getName() != null)
-                    ? node.getMapData().getName().toLowerCase()
-                    : "";
-
-            for (String kw : keywords) {
-                if (nodeName.contains(kw)) count++;
-                if (mapName.contains(kw))  count++;
+        // Candidates and scores come from the in-memory index; only the results are loaded
+        List<TextIndex.Hit> hits = nodeSearchService.search(keywords, maxResults);
+        Map<Long, Node> nodes = nodeRepository.findAllById(hits.stream().map(TextIndex.Hit::nodeId).toList())
+                .stream()
+                .collect(Collectors.toMap(Node::getId, node -> node));
+
+        NodeSearchResponseDTO response = new NodeSearchResponseDTO();
+        Set<Long> mapIds = new LinkedHashSet<>();
+        for (TextIndex.Hit hit : hits) {
+            Node node = nodes.get(hit.nodeId());
+            if (node == null) continue;  // Deleted since the index was read
+            Long mapDataId = node.getMapData() != null ? node.getMapData().getId() : null;
+            response.getResults().add(new NodeSearchHitDTO(dataMapper.toNodeDTO(node), mapDataId, hit.score()));
+            if (mapDataId != null) {
+                mapIds.add(mapDataId);
             }
-            scoredList.add(new PairScore(node, count));
         }
+        response.setMaps(mapDataService.getMapDataSummaries(mapIds));
+        return response;
+    }
 
-        List<Node> ordered = scoredList.stream()
-                .sorted((a, b) -> {
-                    int cmp = Integer.compare(b.getScore(), a.getScore());
-                    if (cmp != 0) return cmp;
-                    return a.getNode().getId().compareTo(b.getNode().getId());
-                })
-                .map(ps -> ps.getNode())
-                .collect(Collectors.toList());
-
-        if (ordered.size() > maxResults) {
-            ordered = ordered.subList(0, maxResults);
+    // Typeahead over node and map names, tolerant to typos; answered from memory
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        if (!StringUtils.hasText(prefix)) {
+            return Collections.emptyList();
         }
+        return nodeSearchService.suggest(prefix, Math.min(limit, 50)).stream()
+                .map(s -> new SuggestionDTO(s.kind().name(), s.id(), s.mapDataId(), s.text(), s.score()))
+                .toList();
+    }
 
-        List<NodeMapDataSearchResultDTO> resultsDTO = new ArrayList<>();
-        for (Node node : ordered) {
-            NodeDTO nodeDto = dataMapper.toNodeDTO(node);
-            MapDataDTO mapDto = dataMapper.toMapDataDTO(node.getMapData());
-            int sc = scoredList.stream()
-                    .filter(x -> x.getNode().getId().equals(node.getId()))
-                    .findFirst()
-                    .map(x -> x.getScore())
-                    .orElse(0);
-
-            resultsDTO.add(new NodeMapDataSearchResultDTO(nodeDto, mapDto, sc));
+    private static List<String> parseKeywords(String inputText) {
+        if (!StringUtils.hasText(inputText)) {
+            return Collections.emptyList();
         }
-
-        return resultsDTO;
+        String[] parts = inputText.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        return Arrays.stream(parts)
+                .filter(s -> s.trim().length() > 0)
+                .collect(Collectors.toList());
     }
 
     private Specification<Node> buildNodesSpecification(Long mapDataId, String booleanField) {
@@ -164,7 +252,7 @@ public class NodeService {
         }
         var spec = buildNodesSpecification(mapDataId, "isExit");
         return nodeRepository
-                .findAll(spec)
+                .findAll(spec, Sort.by("id"))
                 .stream()
                 .map(dataMapper::toNodeDTO)
                 .toList();
@@ -176,7 +264,7 @@ public class NodeService {
         }
         var spec = buildNodesSpecification(mapDataId, "isEntrance");
         return nodeRepository
-                .findAll(spec)
+                .findAll(spec, Sort.by("id"))
                 .stream()
                 .map(dataMapper::toNodeDTO)
                 .toList();
@@ -0,0 +1,58 @@
+package es.gdapp.guidingApp.services;
+
+import es.gdapp.guidingApp.dto.CursorPageDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque cursors for listings ordered by id. A cursor holds the last id of the page it
+ * was returned with; the next page starts after it, so reading a page costs the same
+ * however deep into the listing it is, unlike an offset.
+ */
+public final class PageCursor {
+
+    private static final String PREFIX = "id:";
+
+    private PageCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Last id seen, or 0 (before any id) for a null cursor.
+     *
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode}
+     */
+    public static long decode(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!text.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return Long.parseLong(text.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {  // Bad base64 or number
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Page of {@code limit} rows out of {@code rows}, which holds up to one more to tell
+     * whether a next page exists.
+     */
+    public static <T> CursorPageDTO<T> page(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        List<T> content = rows.subList(0, limit);
+        return new CursorPageDTO<>(content, encode(idOf.apply(content.get(limit - 1))));
+    }
+}
@@ -0,0 +1,63 @@
+package es.gdapp.guidingApp.tiles;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import es.gdapp.guidingApp.repositories.MapDataRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tiled floors kept in memory so tile requests neither reload the floor grid nor re-hash
+ * it. Entries are tagged with the map version they were loaded at and reloaded as soon as
+ * the map version moves on; a single floor row is read per load. Past {@link #MAX_FLOORS}
+ * floors the least used ones are evicted.
+ */
+@Service
+public class FloorTileService {
+
+    static final int MAX_FLOORS = 256;
+
+    private record Key(Long mapDataId, int floorNumber) {}
+
+    private record Entry(long version, FloorTiles tiles) {}
+
+    private final MapDataRepository mapDataRepository;
+    private final Cache<Key, Entry> floors = Caffeine.newBuilder().maximumSize(MAX_FLOORS).build();
+
+    public FloorTileService(MapDataRepository mapDataRepository) {
+        this.mapDataRepository = mapDataRepository;
+    }
+
+    /** Tiles of a floor, or empty if the map or the floor does not exist. */
+    public Optional<FloorTiles> getTiles(Long mapDataId, int floorNumber) {
+        // Read before the grid, so a cached entry is never older than the version it is tagged with
+        Optional<Long> version = mapDataRepository.findVersionById(mapDataId);
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+        Key key = new Key(mapDataId, floorNumber);
+        Entry entry = floors.getIfPresent(key);
+        if (entry != null && entry.version() == version.get()) {
+            return Optional.of(entry.tiles());
+        }
+        List<NamedMatrix> found = mapDataRepository.findFloors(mapDataId, List.of(floorNumber));
+        if (found.isEmpty() || found.get(0).getGrid() == null) {
+            floors.invalidate(key);
+            return Optional.empty();
+        }
+        FloorTiles tiles = new FloorTiles(found.get(0).getGrid());
+        floors.put(key, new Entry(version.get(), tiles));
+        return Optional.of(tiles);
+    }
+
+    // Only frees memory early: stale entries are also caught by the version check
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMapDataChanged(MapDataChangedEvent event) {
+        floors.asMap().keySet().removeIf(key -> key.mapDataId().equals(event.getMapDataId()));
+    }
+}
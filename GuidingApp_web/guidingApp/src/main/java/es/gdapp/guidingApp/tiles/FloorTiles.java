@@ -0,0 +1,123 @@
+package es.gdapp.guidingApp.tiles;
+
+import es.gdapp.guidingApp.models.GridMatrix;
+
+/**
+ * A floor grid cut into square tiles of {@link #TILE_SIZE} cells, the last column and row
+ * of tiles being smaller when the grid does not divide evenly. Each tile has a version
+ * computed from its cells only, so a tile keeps its version (and stays cached by clients)
+ * while other parts of the floor or map change.
+ */
+public final class FloorTiles {
+
+    public static final int TILE_SIZE = 64;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final GridMatrix grid;
+    private final int tilesX;
+    private final int tilesY;
+    private final long[] versions;  // Row-major by ty, then tx
+    private final long floorVersion;
+
+    public FloorTiles(GridMatrix grid) {
+        this.grid = grid;
+        this.tilesX = (grid.getColumns() + TILE_SIZE - 1) / TILE_SIZE;
+        this.tilesY = (grid.getRows() + TILE_SIZE - 1) / TILE_SIZE;
+        this.versions = new long[tilesX * tilesY];
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                versions[ty * tilesX + tx] = hash(tx, ty);
+            }
+        }
+        long h = (FNV_OFFSET ^ grid.getRows()) * FNV_PRIME;
+        h = (h ^ grid.getColumns()) * FNV_PRIME;
+        for (long version : versions) {
+            h = (h ^ version) * FNV_PRIME;
+        }
+        this.floorVersion = h;
+    }
+
+    // 64-bit FNV-1a over the tile size and cells
+    private long hash(int tx, int ty) {
+        int row = ty * TILE_SIZE;
+        int column = tx * TILE_SIZE;
+        int rows = Math.min(TILE_SIZE, grid.getRows() - row);
+        int columns = Math.min(TILE_SIZE, grid.getColumns() - column);
+        long h = (FNV_OFFSET ^ rows) * FNV_PRIME;
+        h = (h ^ columns) * FNV_PRIME;
+        for (int i = row; i < row + rows; i++) {
+            for (int j = column; j < column + columns; j++) {
+                h = (h ^ grid.get(i, j)) * FNV_PRIME;
+            }
+        }
+        return h;
+    }
+
+    public GridMatrix getGrid() {
+        return grid;
+    }
+
+    /** Version of the whole floor grid as 16 hex digits, derived from the tile versions. */
+    public String version() {
+        return String.format("%016x", floorVersion);
+    }
+
+    public int getRows() {
+        return grid.getRows();
+    }
+
+    public int getColumns() {
+        return grid.getColumns();
+    }
+
+    public int getTilesX() {
+        return tilesX;
+    }
+
+    public int getTilesY() {
+        return tilesY;
+    }
+
+    public boolean contains(int tx, int ty) {
+        return tx >= 0 && tx < tilesX && ty >= 0 && ty < tilesY;
+    }
+
+    /** Version of a tile as 16 hex digits. */
+    public String version(int tx, int ty) {
+        checkTile(tx, ty);
+        return String.format("%016x", versions[ty * tilesX + tx]);
+    }
+
+    /** Versions of every tile, indexed [ty][tx]. */
+    public String[][] versions() {
+        String[][] all = new String[tilesY][tilesX];
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                all[ty][tx] = version(tx, ty);
+            }
+        }
+        return all;
+    }
+
+    /** Cells of a tile; tile (0, 0) is the top-left corner of the grid. */
+    public int[][] cells(int tx, int ty) {
+        checkTile(tx, ty);
+        int row = ty * TILE_SIZE;
+        int column = tx * TILE_SIZE;
+        int[][] cells = new int[Math.min(TILE_SIZE, grid.getRows() - row)][Math.min(TILE_SIZE, grid.getColumns() - column)];
+        for (int i = 0; i < cells.length; i++) {
+            for (int j = 0; j < cells[i].length; j++) {
+                cells[i][j] = grid.get(row + i, column + j);
+            }
+        }
+        return cells;
+    }
+
+    private void checkTile(int tx, int ty) {
+        if (!contains(tx, ty)) {
+            throw new IndexOutOfBoundsException("Tile (" + tx + ", " + ty + ") outside " + tilesX + "x" + tilesY + " tiles");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package es.gdapp.guidingApp.transfer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Passes through at most {@code limit} bytes of another stream and fails with
+ * {@link TooLargeException} as soon as the stream turns out to be longer. Wrapped around a
+ * decompressing stream it bounds what a small compressed upload can expand to.
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    /** Thrown once more than the limit has been read; the stream stays failed afterwards. */
+    public static class TooLargeException extends IOException {
+
+        private TooLargeException(long limit) {
+            super("Input is larger than " + limit + " bytes");
+        }
+    }
+
+    private final long limit;
+    private long remaining;
+    private boolean exceeded;
+
+    public LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+        this.remaining = limit;
+    }
+
+    /** Whether the stream went over the limit. */
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkOpen();
+        int b = in.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkOpen();
+        // One byte past the limit is enough to tell the stream is too long
+        int n = in.read(b, off, (int) Math.min(len, remaining + 1));
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkOpen();
+        long skipped = in.skip(Math.min(n, remaining + 1));
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void checkOpen() throws TooLargeException {
+        if (exceeded) {
+            throw new TooLargeException(limit);
+        }
+    }
+
+    private void count(long n) throws TooLargeException {
+        remaining -= n;
+        if (remaining < 0) {
+            exceeded = true;
+            throw new TooLargeException(limit);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package es.gdapp.guidingApp.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.repositories.MapDataRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes every map with its floors, nodes and edges as the records {@link MapImportService}
+ * reads, so an export can be imported back. Map ids are read in keyset pages and each map
+ * is loaded on its own, with the persistence context cleared after it, so only one map and
+ * one page of ids are ever held in memory.
+ * <p>
+ * Not a result stream: MySQL Connector/J reads a whole result set into memory unless it
+ * streams row by row, and a streaming result set blocks the connection for the lazy loads
+ * of the floors, nodes and edges of each map.
+ */
+@Service
+public class MapExportService {
+
+    private static final int ID_PAGE_SIZE = 100;
+
+    private final MapDataRepository mapDataRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public MapExportService(MapDataRepository mapDataRepository, EntityManager entityManager,
+                            TransactionTemplate transactionTemplate, ObjectMapper objectMapper) {
+        this.mapDataRepository = mapDataRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes all maps to {@code out}, gzip-compressed if asked, and returns how many were
+     * written. The stream is flushed after every map but not closed.
+     */
+    public long exportMaps(OutputStream out, boolean gzip) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, 1 << 16, true) : null;
+        MapRecordWriter writer = new MapRecordWriter(objectMapper, compressed != null ? compressed : out);
+        Long count;
+        try {
+            count = readOnlyTransaction.execute(status -> {
+                // Read from the second-level cache but do not fill it with every map in the database
+                entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+                long written = 0;
+                List<Long> ids = mapDataRepository.findIdsAfter(0, Limit.of(ID_PAGE_SIZE));
+                try {
+                    while (!ids.isEmpty()) {
+                        for (Long id : ids) {
+                            // Skips maps deleted since their id was read
+                            MapData mapData = mapDataRepository.findById(id).orElse(null);
+                            if (mapData != null) {
+                                writeMap(writer, mapData);
+                                writer.flush();
+                                entityManager.clear();
+                                written++;
+                            }
+                        }
+                        ids = mapDataRepository.findIdsAfter(ids.get(ids.size() - 1), Limit.of(ID_PAGE_SIZE));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return written;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.close();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+        return count;
+    }
+
+    private static void writeMap(MapRecordWriter writer, MapData mapData) throws IOException {
+        writer.writeMap(mapData);
+        List<NamedMatrix> floors = mapData.getMatrices().stream()
+                .sorted(Comparator.comparing(NamedMatrix::getFloorNumber))
+                .toList();
+        for (NamedMatrix floor : floors) {
+            writer.writeFloor(floor);
+        }
+        // All nodes before the edges, which name them
+        for (Node node : mapData.getNodes() == null ? List.<Node>of() : mapData.getNodes()) {
+            writer.writeNode(node);
+        }
+        for (Edge edge : mapData.getEdges() == null ? List.<Edge>of() : mapData.getEdges()) {
+            writer.writeEdge(edge);
+        }
+    }
+}
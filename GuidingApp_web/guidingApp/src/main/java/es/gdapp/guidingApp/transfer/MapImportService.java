@@ -0,0 +1,251 @@
+package es.gdapp.guidingApp.transfer;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.dto.MapImportProgressDTO;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapChange;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.transfer.MapRecordReader.EdgeRecord;
+import es.gdapp.guidingApp.transfer.MapRecordReader.FloorRecord;
+import es.gdapp.guidingApp.transfer.MapRecordReader.NodeRecord;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Imports maps from a stream of records (see {@link MapRecordReader} for the format) in
+ * constant memory: records are parsed one at a time and written in transactions of at most
+ * {@link #BATCH_RECORDS} records or {@link #BATCH_BYTES} of floor data, with the persistence
+ * context cleared after each one. Only the node ref table of the map being imported is
+ * kept from one batch to the next.
+ * <p>
+ * Each map is announced with {@link MapChange#reset()} once its last record is written.
+ * An import is not atomic: when a record is rejected, or reading or writing fails, the maps
+ * finished before it are kept and the one being imported is deleted.
+ */
+@Service
+public class MapImportService {
+
+    static final int BATCH_RECORDS = 500;
+    static final long BATCH_BYTES = 16L << 20;
+
+    private static final Logger log = LoggerFactory.getLogger(MapImportService.class);
+
+    // Straight into the collection table: adding a floor through MapData.matrices would
+    // load and rewrite every floor already imported
+    private static final String INSERT_FLOOR =
+            "INSERT INTO map_data_matrices (map_data_id, floor_number, name, matrix) VALUES (?, ?, ?, ?)";
+
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MapDataService mapDataService;
+
+    public MapImportService(ObjectMapper objectMapper, EntityManager entityManager, JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate, MapDataService mapDataService) {
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.mapDataService = mapDataService;
+    }
+
+    /**
+     * Reads and stores every map in {@code in}, passing the running totals to
+     * {@code progress} after each committed batch. Invalid input, or input cut short by a
+     * {@link LimitedInputStream}, does not throw: the returned totals carry the error
+     * instead of {@code done}.
+     */
+    public MapImportProgressDTO importMaps(InputStream in, Consumer<MapImportProgressDTO> progress) throws IOException {
+        MapImportProgressDTO totals = new MapImportProgressDTO();
+        List<Long> mapIds = new ArrayList<>();
+        Batch batch = null;
+        try (MapRecordReader reader = new MapRecordReader(objectMapper, in)) {
+            for (Object record = reader.next(); record != null; record = reader.next()) {
+                totals.setRecords(reader.getRecordCount());
+                if (record instanceof MapData mapData) {
+                    if (batch != null) {
+                        finishMap(batch, totals, progress);
+                    }
+                    batch = new Batch(insertMap(mapData));
+                    mapIds.add(batch.mapId);
+                    totals.setMaps(totals.getMaps() + 1);
+                } else if (batch == null) {
+                    throw reader.invalid("floors, nodes and edges must follow a map record");
+                } else if (batch.add(record, reader)) {
+                    commit(batch, totals);
+                    progress.accept(totals);
+                }
+            }
+            if (batch != null) {
+                finishMap(batch, totals, progress);
+                batch = null;
+            }
+        } catch (IllegalArgumentException | JacksonException | DataIntegrityViolationException
+                 | LimitedInputStream.TooLargeException e) {
+            discard(batch, mapIds, totals);
+            log.info("Map import stopped after {} records: {}", totals.getRecords(), e.getMessage());
+            totals.setError(e instanceof DataIntegrityViolationException
+                    ? "Record " + totals.getRecords() + ": conflicts with stored data"
+                    : e.getMessage());
+            totals.setMapIds(mapIds);
+            return totals;
+        } catch (Throwable e) {
+            // A broken stream or database must not leave a half written map behind either
+            try {
+                discard(batch, mapIds, totals);
+            } catch (RuntimeException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+        log.info("Imported {} maps: {} floors, {} nodes, {} edges from {} records",
+                totals.getMaps(), totals.getFloors(), totals.getNodes(), totals.getEdges(), totals.getRecords());
+        totals.setDone(true);
+        totals.setMapIds(mapIds);
+        return totals;
+    }
+
+    // Deletes the map being imported, if any, keeping the ones already finished
+    private void discard(Batch batch, List<Long> mapIds, MapImportProgressDTO totals) {
+        if (batch != null) {
+            mapIds.remove(batch.mapId);
+            totals.setMaps(mapIds.size());
+            mapDataService.deleteMapData(batch.mapId);
+        }
+    }
+
+    private Long insertMap(MapData mapData) {
+        return transactionTemplate.execute(status -> {
+            entityManager.persist(mapData);
+            entityManager.flush();
+            entityManager.clear();
+            return mapData.getId();
+        });
+    }
+
+    // The last batch and the reset entry commit together
+    private void finishMap(Batch batch, MapImportProgressDTO totals, Consumer<MapImportProgressDTO> progress) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!batch.records.isEmpty()) {
+                commit(batch, totals);
+            }
+            mapDataService.markChanged(batch.mapId, List.of(MapChange.reset()));
+        });
+        progress.accept(totals);
+    }
+
+    private void commit(Batch batch, MapImportProgressDTO totals) {
+        transactionTemplate.executeWithoutResult(status -> {
+            MapData mapData = entityManager.getReference(MapData.class, batch.mapId);
+            for (Object record : batch.records) {
+                switch (record) {
+                    case FloorRecord floor -> jdbcTemplate.update(INSERT_FLOOR,
+                            batch.mapId, floor.floorNumber(), floor.name(), floor.grid().toBytes());
+                    case NodeRecord node -> {
+                        node.node().setMapData(mapData);
+                        entityManager.persist(node.node());
+                        if (node.ref() != null) {
+                            batch.nodeIds.put(node.ref(), node.node().getId());
+                        }
+                    }
+                    case EdgeRecord edge -> {
+                        Edge entity = new Edge(
+                                entityManager.getReference(Node.class, batch.nodeIds.get(edge.from())),
+                                entityManager.getReference(Node.class, batch.nodeIds.get(edge.to())));
+                        entity.setWeight(edge.weight());
+                        entity.setComment(edge.comment());
+                        entity.setMapData(mapData);
+                        entityManager.persist(entity);
+                    }
+                    default -> throw new IllegalStateException("Unexpected record " + record);
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        totals.setFloors(totals.getFloors() + batch.floors);
+        totals.setCells(totals.getCells() + batch.cells);
+        totals.setNodes(totals.getNodes() + batch.nodes);
+        totals.setEdges(totals.getEdges() + batch.edges);
+        batch.clear();
+    }
+
+    // Records of one map waiting to be written, and the ids of its nodes by ref
+    private static final class Batch {
+
+        private final Long mapId;
+        // Refs of nodes not written yet map to null
+        private final Map<String, Long> nodeIds = new HashMap<>();
+        private final Set<Integer> floorNumbers = new HashSet<>();
+        private final List<Object> records = new ArrayList<>();
+        private long bytes;
+        private int floors;
+        private long cells;
+        private int nodes;
+        private int edges;
+
+        private Batch(Long mapId) {
+            this.mapId = mapId;
+        }
+
+        // Queues a record and tells whether the batch is full
+        private boolean add(Object record, MapRecordReader reader) {
+            switch (record) {
+                case FloorRecord floor -> {
+                    if (!floorNumbers.add(floor.floorNumber())) {
+                        throw reader.invalid("duplicate floor " + floor.floorNumber());
+                    }
+                    floors++;
+                    cells += (long) floor.grid().getRows() * floor.grid().getColumns();
+                    bytes += floor.grid().getByteSize();
+                }
+                case NodeRecord node -> {
+                    if (node.ref() != null) {
+                        if (nodeIds.containsKey(node.ref())) {
+                            throw reader.invalid("duplicate node ref '" + node.ref() + "'");
+                        }
+                        nodeIds.put(node.ref(), null);
+                    }
+                    nodes++;
+                }
+                case EdgeRecord edge -> {
+                    if (!nodeIds.containsKey(edge.from()) || !nodeIds.containsKey(edge.to())) {
+                        throw reader.invalid("edge between unknown nodes '" + edge.from() + "' and '" + edge.to() + "'");
+                    }
+                    edges++;
+                }
+                default -> throw new IllegalStateException("Unexpected record " + record);
+            }
+            records.add(record);
+            return records.size() >= BATCH_RECORDS || bytes >= BATCH_BYTES;
+        }
+
+        private void clear() {
+            records.clear();
+            bytes = 0;
+            floors = 0;
+            cells = 0;
+            nodes = 0;
+            edges = 0;
+        }
+    }
+}
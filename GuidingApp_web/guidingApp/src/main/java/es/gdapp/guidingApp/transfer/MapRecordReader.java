@@ -0,0 +1,296 @@
+package es.gdapp.guidingApp.transfer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.models.GridMatrix;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads map records one at a time from newline-delimited JSON or from a single JSON array
+ * of records. Every record is an object with a {@code type}:
+ * <pre>
+ * {"type":"map","name":"Aulario III","northAngle":0,"latitude":40.33,"longitude":-3.87}
+ * {"type":"floor","floorNumber":0,"name":"Planta baja","rows":2,"columns":3,"cells":[[0,1,0],[1,1,1]]}
+ * {"type":"node","ref":"a","name":"Aula 1","beaconId":"b-1","floorNumber":0,"x":1,"y":0,"exit":false,"entrance":true}
+ * {"type":"edge","from":"a","to":"b","weight":4,"comment":"pasillo"}
+ * </pre>
+ * Floors, nodes and edges belong to the last map read before them. Node refs are only
+ * meaningful inside their map and edges name their end points by ref.
+ * <p>
+ * Floor cells are decoded straight into a packed {@link GridMatrix}, never as an int
+ * matrix, as long as {@code rows} and {@code columns} come before {@code cells}; otherwise
+ * the rows are buffered until the end of the record. Everything else in a record is small,
+ * so memory stays bounded by the largest floor whatever the size of the input.
+ * <p>
+ * A floor may have at most {@link #MAX_FLOOR_SIDE} rows and as many columns, and at most
+ * {@link #MAX_FLOOR_CELLS} cells (for instance 4096 x 4096). Larger sizes are rejected
+ * before anything is allocated for them.
+ */
+final class MapRecordReader implements Closeable {
+
+    static final int MAX_FLOOR_SIDE = 8192;
+    static final long MAX_FLOOR_CELLS = 1L << 24;
+
+    record FloorRecord(int floorNumber, String name, GridMatrix grid) {
+    }
+
+    record NodeRecord(String ref, Node node) {
+    }
+
+    record EdgeRecord(String from, String to, Integer weight, String comment) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private boolean started;
+    private boolean inArray;
+    private long recordCount;
+
+    MapRecordReader(ObjectMapper objectMapper, InputStream in) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.createParser(in);
+    }
+
+    /** Records read so far. */
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /** Line of the input the reader is at, for error messages. */
+    int getLine() {
+        return parser.currentLocation().getLineNr();
+    }
+
+    /**
+     * Next record: a {@link MapData} header, a {@link FloorRecord}, a {@link NodeRecord} or an
+     * {@link EdgeRecord}; null at the end of the input.
+     *
+     * @throws IllegalArgumentException if the record is not valid
+     */
+    Object next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                inArray = true;
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || (inArray && token == JsonToken.END_ARRAY)) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw invalid("a record must be a JSON object");
+        }
+        recordCount++;
+        return readRecord();
+    }
+
+    private Object readRecord() throws IOException {
+        Map<String, JsonNode> fields = new HashMap<>();
+        GridMatrix grid = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (name.equals("cells")) {
+                grid = readCells(intField(fields, "rows"), intField(fields, "columns"));
+            } else {
+                fields.put(name, parser.readValueAsTree());
+            }
+        }
+        String type = text(fields, "type");
+        if (type == null) {
+            throw invalid("record without a type");
+        }
+        return switch (type) {
+            case "map" -> toMap(fields);
+            case "floor" -> toFloor(fields, grid);
+            case "node" -> toNode(fields);
+            case "edge" -> toEdge(fields);
+            default -> throw invalid("unknown record type '" + type + "'");
+        };
+    }
+
+    private MapData toMap(Map<String, JsonNode> fields) {
+        MapData mapData = new MapData();
+        mapData.setName(required(text(fields, "name"), "name"));
+        mapData.setNorthAngle(doubleField(fields, "northAngle"));
+        mapData.setLatitude(doubleField(fields, "latitude"));
+        mapData.setLongitude(doubleField(fields, "longitude"));
+        return mapData;
+    }
+
+    private FloorRecord toFloor(Map<String, JsonNode> fields, GridMatrix grid) {
+        Integer floorNumber = required(intField(fields, "floorNumber"), "floorNumber");
+        Integer rows = intField(fields, "rows");
+        Integer columns = intField(fields, "columns");
+        if (grid == null) {
+            // A floor without cells is left empty
+            grid = newGrid(required(rows, "rows"), required(columns, "columns"));
+        } else if ((rows != null && rows != grid.getRows()) || (columns != null && columns != grid.getColumns())) {
+            throw invalid("floor " + floorNumber + " cells do not match its " + rows + "x" + columns + " size");
+        }
+        return new FloorRecord(floorNumber, text(fields, "name"), grid);
+    }
+
+    private NodeRecord toNode(Map<String, JsonNode> fields) throws IOException {
+        JsonNode area = fields.get("area");
+        Node node = new Node(
+                text(fields, "name"),
+                text(fields, "beaconId"),
+                intField(fields, "floorNumber"),
+                fields.containsKey("exit") && fields.get("exit").asBoolean(),
+                fields.containsKey("entrance") && fields.get("entrance").asBoolean(),
+                intField(fields, "x"),
+                intField(fields, "y"),
+                area == null || area.isNull() ? null : objectMapper.treeToValue(area, int[][].class),
+                null);
+        return new NodeRecord(text(fields, "ref"), node);
+    }
+
+    private EdgeRecord toEdge(Map<String, JsonNode> fields) {
+        return new EdgeRecord(
+                required(text(fields, "from"), "from"),
+                required(text(fields, "to"), "to"),
+                intField(fields, "weight"),
+                text(fields, "comment"));
+    }
+
+    // Cells as an array of rows, the parser standing on its opening bracket
+    private GridMatrix readCells(Integer rows, Integer columns) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw invalid("cells must be an array of rows");
+        }
+        if (rows == null || columns == null) {
+            return readBufferedCells();
+        }
+        GridMatrix.Editor editor = newGrid(rows, columns).edit();
+        int i = 0;
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            if (i == rows) {
+                throw invalid("more than " + rows + " rows of cells");
+            }
+            int j = 0;
+            while (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+                if (j == columns) {
+                    throw invalid("row " + i + " has more than " + columns + " cells");
+                }
+                int value = parser.getIntValue();
+                if (value < 0) {
+                    throw invalid("negative cell value " + value);
+                }
+                if (value != 0) {
+                    editor.set(i, j, value);
+                }
+                j++;
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY || j != columns) {
+                throw invalid("row " + i + " must hold " + columns + " integer cells");
+            }
+            i++;
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY || i != rows) {
+            throw invalid("expected " + rows + " rows of cells");
+        }
+        return editor.build();
+    }
+
+    // Without the size up front, rows are held as int arrays; the limits are checked as they grow
+    private GridMatrix readBufferedCells() throws IOException {
+        List<int[]> buffered = new ArrayList<>();
+        long cells = 0;
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            if (buffered.size() == MAX_FLOOR_SIDE) {
+                throw invalid("floor has more than " + MAX_FLOOR_SIDE + " rows");
+            }
+            int[] row = new int[16];
+            int j = 0;
+            while (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+                if (j == MAX_FLOOR_SIDE || ++cells > MAX_FLOOR_CELLS) {
+                    throw invalid("floor is larger than " + MAX_FLOOR_SIDE + " columns or " + MAX_FLOOR_CELLS + " cells");
+                }
+                if (j == row.length) {
+                    row = Arrays.copyOf(row, Math.min(2 * j, MAX_FLOOR_SIDE));
+                }
+                row[j++] = parser.getIntValue();
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw invalid("row " + buffered.size() + " must hold integer cells");
+            }
+            buffered.add(Arrays.copyOf(row, j));
+        }
+        try {
+            return GridMatrix.of(buffered.toArray(new int[0][]));
+        } catch (IllegalArgumentException e) {
+            throw invalid(e.getMessage());
+        }
+    }
+
+    private GridMatrix newGrid(int rows, int columns) {
+        if (rows > MAX_FLOOR_SIDE || columns > MAX_FLOOR_SIDE || (long) rows * columns > MAX_FLOOR_CELLS) {
+            throw invalid("floor of " + rows + "x" + columns + " is larger than " + MAX_FLOOR_SIDE
+                    + " rows or columns or " + MAX_FLOOR_CELLS + " cells");
+        }
+        try {
+            return new GridMatrix(rows, columns);
+        } catch (IllegalArgumentException e) {
+            throw invalid(e.getMessage());
+        }
+    }
+
+    private static String text(Map<String, JsonNode> fields, String name) {
+        JsonNode value = fields.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private Integer intField(Map<String, JsonNode> fields, String name) {
+        JsonNode value = fields.get(name);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.canConvertToInt() || !value.isIntegralNumber()) {
+            throw invalid(name + " must be an integer");
+        }
+        return value.intValue();
+    }
+
+    private double doubleField(Map<String, JsonNode> fields, String name) {
+        JsonNode value = fields.get(name);
+        if (value == null || value.isNull()) {
+            return 0;
+        }
+        if (!value.isNumber()) {
+            throw invalid(name + " must be a number");
+        }
+        return value.doubleValue();
+    }
+
+    private <T> T required(T value, String name) {
+        if (value == null) {
+            throw invalid("missing " + name);
+        }
+        return value;
+    }
+
+    // Error for the record just read, with its position in the input
+    IllegalArgumentException invalid(String message) {
+        return new IllegalArgumentException("Record " + recordCount + " (line " + getLine() + "): " + message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
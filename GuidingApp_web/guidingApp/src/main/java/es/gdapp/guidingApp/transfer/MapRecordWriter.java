@@ -0,0 +1,114 @@
+package es.gdapp.guidingApp.transfer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.GridMatrix;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import es.gdapp.guidingApp.models.Node;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes maps as the newline-delimited records read by {@link MapRecordReader}. Node refs
+ * are the node ids. Floor cells are written row by row from the packed grid, without
+ * unpacking it into an int matrix.
+ */
+final class MapRecordWriter implements Closeable {
+
+    private final JsonGenerator generator;
+
+    MapRecordWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.generator = objectMapper.createGenerator(out);
+        this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+    }
+
+    void writeMap(MapData mapData) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "map");
+        generator.writeNumberField("id", mapData.getId());
+        generator.writeStringField("name", mapData.getName());
+        generator.writeNumberField("northAngle", mapData.getNorthAngle());
+        generator.writeNumberField("latitude", mapData.getLatitude());
+        generator.writeNumberField("longitude", mapData.getLongitude());
+        generator.writeEndObject();
+    }
+
+    void writeFloor(NamedMatrix floor) throws IOException {
+        GridMatrix grid = floor.getGrid();
+        generator.writeStartObject();
+        generator.writeStringField("type", "floor");
+        generator.writeNumberField("floorNumber", floor.getFloorNumber());
+        if (floor.getName() != null) {
+            generator.writeStringField("name", floor.getName());
+        }
+        // Size first, so the reader can fill the grid as the cells arrive
+        generator.writeNumberField("rows", grid.getRows());
+        generator.writeNumberField("columns", grid.getColumns());
+        generator.writeArrayFieldStart("cells");
+        for (int i = 0; i < grid.getRows(); i++) {
+            generator.writeStartArray();
+            for (int j = 0; j < grid.getColumns(); j++) {
+                generator.writeNumber(grid.get(i, j));
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    void writeNode(Node node) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "node");
+        generator.writeStringField("ref", String.valueOf(node.getId()));
+        writeOptional("name", node.getName());
+        writeOptional("beaconId", node.getBeaconId());
+        writeOptional("floorNumber", node.getFloorNumber());
+        writeOptional("x", node.getX());
+        writeOptional("y", node.getY());
+        generator.writeBooleanField("exit", node.isExit());
+        generator.writeBooleanField("entrance", node.isEntrance());
+        if (node.getArea() != null) {
+            generator.writeFieldName("area");
+            generator.writeObject(node.getArea());
+        }
+        generator.writeEndObject();
+    }
+
+    void writeEdge(Edge edge) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "edge");
+        generator.writeStringField("from", String.valueOf(edge.getFromNode().getId()));
+        generator.writeStringField("to", String.valueOf(edge.getToNode().getId()));
+        writeOptional("weight", edge.getWeight());
+        writeOptional("comment", edge.getComment());
+        generator.writeEndObject();
+    }
+
+    void flush() throws IOException {
+        generator.flush();
+    }
+
+    private void writeOptional(String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private void writeOptional(String name, Integer value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    // Ends the last record and flushes; the stream itself is left open
+    @Override
+    public void close() throws IOException {
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+}
@@ -0,0 +1,101 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.models.GridMatrix;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.rendering.FloorRenderer;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FloorRendererTests {
+
+    private static GridMatrix randomGrid(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        GridMatrix.Editor editor = new GridMatrix(rows, columns).edit();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                editor.set(i, j, random.nextInt(3) == 0 ? 1 : 0);
+            }
+        }
+        return editor.build();
+    }
+
+    // A floor with outer walls and a few inner ones, like the seeded maps
+    private static GridMatrix walledGrid(int rows, int columns) {
+        GridMatrix.Editor editor = new GridMatrix(rows, columns).edit();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                boolean wall = i == 0 || j == 0 || i == rows - 1 || j == columns - 1
+                        || (j % 10 == 0 && i % 10 != 5);
+                editor.set(i, j, wall ? 1 : 0);
+            }
+        }
+        return editor.build();
+    }
+
+    private static BufferedImage png(FloorRenderer renderer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.writePng(out);
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void testPngMatchesTheGrid() throws IOException {
+        GridMatrix grid = randomGrid(37, 53, 7L);
+
+        BufferedImage image = png(new FloorRenderer(grid, 1));  // No grid lines at one pixel per cell
+
+        assertEquals(53, image.getWidth());
+        assertEquals(37, image.getHeight());
+        for (int i = 0; i < grid.getRows(); i++) {
+            for (int j = 0; j < grid.getColumns(); j++) {
+                int expected = grid.get(i, j) == 1 ? 0x000000 : 0xFFFFFF;
+                assertEquals(expected, image.getRGB(j, i) & 0xFFFFFF, "Pixel of cell (" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    @Test
+    public void testWallsAreMerged() throws IOException {
+        GridMatrix grid = walledGrid(60, 80);
+
+        FloorRenderer renderer = new FloorRenderer(grid, 20);
+        StringWriter svg = new StringWriter();
+        renderer.writeSvg(svg);
+
+        // Top and bottom walls, and the vertical walls cut by their doors
+        assertTrue(renderer.getRectangleCount() <= 2 + 2 * 9 * 7, "Got " + renderer.getRectangleCount() + " rectangles");
+        assertEquals(1, svg.toString().split("<path fill=\"black\"", -1).length - 1, "Walls should be a single path");
+        assertFalse(svg.toString().contains("<rect x="), "No shape per cell");
+        assertTrue(svg.toString().startsWith("<svg width=\"1600\" height=\"1200\""));
+    }
+
+    @Test
+    public void testMapDataSvgUsesRenderer() {
+        int[][] cells = walledGrid(30, 30).toArray();
+        MapData mapData = new MapData("Render", 0.0, 0.0, 0.0, "ground", 1, 1);
+        mapData.putMatrix(0, "ground", cells);
+
+        String svg = mapData.getMatrixSVG(0);
+
+        assertTrue(svg.length() < 30 * 30 * 20, "The SVG should not hold one element per cell: " + svg.length());
+        assertTrue(svg.endsWith("</svg>"));
+    }
+
+    @Test
+    public void testRejectsInvalidSizes() {
+        GridMatrix grid = new GridMatrix(500, 500);
+        assertThrows(IllegalArgumentException.class, () -> new FloorRenderer(grid, 0));
+        FloorRenderer huge = new FloorRenderer(grid, 40);
+        assertFalse(huge.fitsPng());
+        assertThrows(IllegalArgumentException.class, () -> huge.writePng(new ByteArrayOutputStream()));
+    }
+}
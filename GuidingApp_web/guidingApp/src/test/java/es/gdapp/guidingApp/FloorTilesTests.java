@@ -0,0 +1,66 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.models.GridMatrix;
+import es.gdapp.guidingApp.tiles.FloorTiles;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static es.gdapp.guidingApp.tiles.FloorTiles.TILE_SIZE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FloorTilesTests {
+
+    private static GridMatrix randomGrid(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        GridMatrix.Editor editor = new GridMatrix(rows, columns).edit();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                editor.set(i, j, random.nextInt(4) == 0 ? 1 : 0);
+            }
+        }
+        return editor.build();
+    }
+
+    @Test
+    public void testTilesCoverTheGrid() {
+        GridMatrix grid = randomGrid(2 * TILE_SIZE + 5, TILE_SIZE + 1, 3L);
+        FloorTiles tiles = new FloorTiles(grid);
+
+        assertEquals(2, tiles.getTilesX());
+        assertEquals(3, tiles.getTilesY());
+        assertFalse(tiles.contains(2, 0));
+        assertEquals(5, tiles.cells(1, 2).length, "The bottom row of tiles holds the leftover rows");
+        assertEquals(1, tiles.cells(1, 2)[0].length, "The right column of tiles holds the leftover column");
+
+        for (int ty = 0; ty < tiles.getTilesY(); ty++) {
+            for (int tx = 0; tx < tiles.getTilesX(); tx++) {
+                int[][] cells = tiles.cells(tx, ty);
+                for (int i = 0; i < cells.length; i++) {
+                    for (int j = 0; j < cells[i].length; j++) {
+                        assertEquals(grid.get(ty * TILE_SIZE + i, tx * TILE_SIZE + j), cells[i][j]);
+                    }
+                }
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tiles.cells(0, 3));
+    }
+
+    @Test
+    public void testEditsOnlyChangeTheirTile() {
+        GridMatrix grid = randomGrid(3 * TILE_SIZE, 3 * TILE_SIZE, 9L);
+        FloorTiles before = new FloorTiles(grid);
+        int row = TILE_SIZE + 7;
+        int column = 2 * TILE_SIZE + 1;
+        FloorTiles after = new FloorTiles(grid.edit().set(row, column, 1 - grid.get(row, column)).build());
+
+        for (int ty = 0; ty < 3; ty++) {
+            for (int tx = 0; tx < 3; tx++) {
+                boolean edited = tx == 2 && ty == 1;
+                assertEquals(!edited, before.version(tx, ty).equals(after.version(tx, ty)),
+                        "Version of tile (" + tx + ", " + ty + ")");
+            }
+        }
+        assertEquals(before.version(0, 0), new FloorTiles(grid).version(0, 0), "Versions depend on content only");
+    }
+}
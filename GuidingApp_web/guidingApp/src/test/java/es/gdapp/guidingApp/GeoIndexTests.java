@@ -0,0 +1,101 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.geo.GeoIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeoIndexTests {
+
+    private static List<Long> bruteForce(List<GeoIndex.Entry> entries, double lat, double lon, int k, double radius) {
+        return entries.stream()
+                .filter(e -> GeoIndex.distanceMeters(lat, lon, e.latitude(), e.longitude()) <= radius)
+                .sorted(Comparator.comparingDouble(e -> GeoIndex.distanceMeters(lat, lon, e.latitude(), e.longitude())))
+                .limit(k)
+                .map(GeoIndex.Entry::id)
+                .toList();
+    }
+
+    private static List<Long> ids(List<GeoIndex.Match> matches) {
+        return matches.stream().map(m -> m.entry().id()).toList();
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(11L);
+        GeoIndex index = new GeoIndex();
+        List<GeoIndex.Entry> entries = new ArrayList<>();
+        // A dense city plus points scattered over the globe, poles included
+        for (int i = 0; i < 3000; i++) {
+            GeoIndex.Entry entry = i % 3 == 0
+                    ? new GeoIndex.Entry(i, "b" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180)
+                    : new GeoIndex.Entry(i, "b" + i, 40.3 + random.nextDouble() * 0.2, -3.9 + random.nextDouble() * 0.2);
+            entries.add(entry);
+            index.put(entry);
+        }
+
+        double[][] queries = {{40.4, -3.8}, {40.3357, -3.8765}, {0, 179.999}, {0, -179.999}, {89.9, 10}, {-89.99, -170}, {10, 10}};
+        for (double[] q : queries) {
+            assertEquals(bruteForce(entries, q[0], q[1], 7, Double.POSITIVE_INFINITY),
+                    ids(index.nearest(q[0], q[1], 7, Double.POSITIVE_INFINITY)), "Nearest to " + q[0] + "," + q[1]);
+            assertEquals(bruteForce(entries, q[0], q[1], 50, 2_000),
+                    ids(index.nearest(q[0], q[1], 50, 2_000)), "Within 2 km of " + q[0] + "," + q[1]);
+        }
+    }
+
+    @Test
+    public void testNeighboursJustOutsideTheScannedCells() {
+        Random random = new Random(23L);
+        GeoIndex index = new GeoIndex();
+        List<GeoIndex.Entry> entries = new ArrayList<>();
+        // Sparse points a few cells apart at high latitudes, where cells are narrow and the
+        // nearest point often lies in a row or column the rings have only partly covered
+        for (int i = 0; i < 2000; i++) {
+            GeoIndex.Entry entry = new GeoIndex.Entry(i, "b" + i,
+                    70 + random.nextDouble() * 19.9, random.nextDouble() * 2);
+            entries.add(entry);
+            index.put(entry);
+        }
+
+        for (int q = 0; q < 400; q++) {
+            // Queries snapped near cell corners as well as anywhere inside a cell
+            double lat = 70 + random.nextDouble() * 19.9;
+            double lon = random.nextDouble() * 2;
+            if (q % 2 == 0) {
+                lat = Math.floor(lat * 100) / 100 + (q % 4 == 0 ? 1e-7 : 0.01 - 1e-7);
+                lon = Math.floor(lon * 100) / 100 + (q % 8 < 4 ? 1e-7 : 0.01 - 1e-7);
+            }
+            assertEquals(bruteForce(entries, lat, lon, 3, Double.POSITIVE_INFINITY),
+                    ids(index.nearest(lat, lon, 3, Double.POSITIVE_INFINITY)), "Nearest to " + lat + "," + lon);
+        }
+    }
+
+    @Test
+    public void testUpdatesMoveAndRemovePoints() {
+        GeoIndex index = new GeoIndex();
+        index.put(new GeoIndex.Entry(1, "Library", 40.0, -3.0));
+        index.put(new GeoIndex.Entry(2, "Gym", 41.0, -3.0));
+
+        assertEquals(List.of(1L), ids(index.nearest(40.0, -3.0, 1, Double.POSITIVE_INFINITY)));
+
+        index.put(new GeoIndex.Entry(1, "Library", 42.0, -3.0));
+        assertEquals(2, index.size(), "Moving a point must not duplicate it");
+        assertEquals(List.of(2L, 1L), ids(index.nearest(40.0, -3.0, 5, Double.POSITIVE_INFINITY)));
+
+        index.remove(2);
+        assertEquals(List.of(1L), ids(index.nearest(40.0, -3.0, 5, Double.POSITIVE_INFINITY)));
+        assertTrue(index.nearest(40.0, -3.0, 5, 1_000).isEmpty(), "The radius should exclude far points");
+    }
+
+    @Test
+    public void testDistance() {
+        // Madrid - Barcelona, about 505 km
+        assertEquals(505_000, GeoIndex.distanceMeters(40.4168, -3.7038, 41.3874, 2.1686), 5_000);
+        assertEquals(0, GeoIndex.distanceMeters(10, 20, 10, 20), 1e-9);
+    }
+}
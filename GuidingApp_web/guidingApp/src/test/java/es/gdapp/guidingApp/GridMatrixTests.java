@@ -0,0 +1,96 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.converters.GridMatrixConverter;
+import es.gdapp.guidingApp.converters.IntArrayConverter;
+import es.gdapp.guidingApp.models.GridMatrix;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridMatrixTests {
+
+    private final GridMatrixConverter converter = new GridMatrixConverter();
+
+    @Test
+    public void testBitPackedRoundTrip() {
+        int[][] matrix = {
+                {0, 1, 1, 1, 1, 1, 1, 1, 1, 0},
+                {0, 1, 0, 0, 0, 0, 0, 0, 1, 0},
+                {0, 1, 1, 1, 0, 0, 1, 1, 1, 0}
+        };
+
+        GridMatrix grid = GridMatrix.of(matrix);
+
+        assertEquals(1, grid.getBitsPerCell(), "A 0/1 matrix should use one bit per cell");
+        assertEquals(10 + 3 * 2, grid.getByteSize(), "Each 10 column row should take 2 bytes");
+        assertArrayEquals(matrix, grid.toArray());
+        assertArrayEquals(matrix, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(grid)).toArray());
+    }
+
+    @Test
+    public void testWideningKeepsValues() {
+        GridMatrix grid = new GridMatrix(2, 3).edit()
+                .set(0, 0, 1)
+                .set(1, 2, 7)
+                .build();
+        assertEquals(8, grid.getBitsPerCell(), "Values above 1 need a byte per cell");
+        grid = grid.edit().set(0, 1, 100_000).build();
+        assertEquals(32, grid.getBitsPerCell(), "Values above 255 need an int per cell");
+
+        assertArrayEquals(new int[][]{{1, 100_000, 0}, {0, 0, 7}}, grid.toArray());
+        assertEquals(grid, GridMatrix.fromBytes(grid.toBytes()));
+    }
+
+    @Test
+    public void testEqualityIgnoresCellWidth() {
+        GridMatrix narrow = GridMatrix.of(new int[][]{{0, 1}, {1, 0}});
+        GridMatrix wide = GridMatrix.of(new int[][]{{0, 1}, {1, 2}}).edit().set(1, 1, 0).build();
+
+        assertEquals(narrow, wide);
+        assertEquals(narrow.hashCode(), wide.hashCode());
+    }
+
+    @Test
+    public void testEditsDoNotTouchTheOriginal() {
+        GridMatrix original = GridMatrix.of(new int[][]{{0, 0}, {0, 0}});
+        GridMatrix.Editor editor = original.edit();
+
+        GridMatrix edited = editor.set(0, 1, 1).build();
+
+        assertEquals(0, original.get(0, 1), "The source grid must stay unchanged");
+        assertEquals(1, edited.get(0, 1));
+        assertThrows(IllegalStateException.class, () -> editor.set(0, 0, 1), "A built editor cannot be reused");
+    }
+
+    @Test
+    public void testReadsLegacyJsonRows() {
+        int[][] matrix = {{0, 1, 0}, {1, 1, 1}};
+        String json = new IntArrayConverter().convertToDatabaseColumn(matrix);
+
+        GridMatrix grid = converter.convertToEntityAttribute(json.getBytes(StandardCharsets.UTF_8));
+
+        assertArrayEquals(matrix, grid.toArray());
+    }
+
+    @Test
+    public void testRejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> GridMatrix.of(new int[][]{{0, 1}, {0}}));
+        assertThrows(IllegalArgumentException.class, () -> GridMatrix.of(new int[][]{{-1}}));
+        assertThrows(IllegalArgumentException.class, () -> GridMatrix.fromBytes(new byte[]{1, 2, 3}));
+        assertThrows(IndexOutOfBoundsException.class, () -> new GridMatrix(2, 2).get(2, 0));
+    }
+
+    @Test
+    public void testRejectsOversizedGrids() {
+        // 70000 x 70000 packed cells would overflow an int byte count once widened
+        assertThrows(IllegalArgumentException.class, () -> new GridMatrix(70_000, 70_000).edit().set(0, 0, 300));
+        assertThrows(IllegalArgumentException.class, () -> new GridMatrix(1, (int) GridMatrix.MAX_CELLS + 1));
+
+        // A header announcing a huge grid is rejected before its cells are allocated
+        byte[] header = ByteBuffer.allocate(10).put((byte) 'G').put((byte) 32).putInt(70_000).putInt(70_000).array();
+        assertThrows(IllegalArgumentException.class, () -> GridMatrix.fromBytes(header));
+    }
+}
@@ -0,0 +1,96 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.routing.GridRoute;
+import es.gdapp.guidingApp.routing.GridRouteEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridRouteEngineTests {
+
+    private final GridRouteEngine engine = new GridRouteEngine();
+
+    @Test
+    public void testStraightCorridor() {
+        int[][] matrix = new int[1][5];
+
+        GridRoute route = engine.findRoute(matrix, 0, 0, 4, 0).orElseThrow();
+
+        int[][] expected = {{0, 0}, {1, 0}, {2, 0}, {3, 0}, {4, 0}};
+        assertArrayEquals(expected, route.getPath(), "Route should follow the corridor");
+        assertEquals(4, route.getCost(), "Each step without walls around costs 1");
+    }
+
+    @Test
+    public void testYAxisIsInverted() {
+        // Bottom row (y = 0) is the last row of the matrix and is blocked in the middle
+        int[][] matrix = {
+                {0, 0, 0},
+                {0, 0, 0},
+                {0, 1, 0}
+        };
+
+        GridRoute route = engine.findRoute(matrix, 0, 0, 2, 0).orElseThrow();
+
+        for (int[] p : route.getPath()) {
+            assertFalse(p[0] == 1 && p[1] == 0, "Route must not cross the wall at (1, 0)");
+        }
+        assertEquals(5, route.getPath().length, "Route should go around the wall");
+    }
+
+    @Test
+    public void testRouteKeepsAwayFromWalls() {
+        // Two corridors between the same points; the upper one runs along a wall
+        int[][] matrix = {
+                {1, 1, 1, 1, 1, 1, 1},
+                {0, 0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0, 0}
+        };
+
+        GridRoute route = engine.findRoute(matrix, 0, 3, 6, 3).orElseThrow();
+
+        for (int i = 1; i < route.getPath().length - 1; i++) {
+            assertTrue(route.getPath()[i][1] < 3, "Intermediate cells should avoid the row next to the wall");
+        }
+    }
+
+    @Test
+    public void testUnreachableDestination() {
+        int[][] matrix = {
+                {0, 1, 0},
+                {0, 1, 0},
+                {0, 1, 0}
+        };
+
+        assertEquals(Optional.empty(), engine.findRoute(matrix, 0, 0, 2, 2));
+    }
+
+    @Test
+    public void testInvalidEndpoints() {
+        int[][] matrix = {
+                {0, 1},
+                {0, 0}
+        };
+
+        assertThrows(IllegalArgumentException.class, () -> engine.findRoute(matrix, 1, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> engine.findRoute(matrix, 0, 0, 2, 0));
+    }
+
+    @Test
+    public void testBuffersAreReusedAcrossSizes() {
+        int[][] large = new int[1000][1000];
+        int[][] small = new int[3][3];
+
+        GridRoute first = engine.findRoute(large, 0, 0, 999, 999).orElseThrow();
+        GridRoute second = engine.findRoute(small, 0, 0, 2, 2).orElseThrow();
+        GridRoute third = engine.findRoute(large, 999, 0, 0, 999).orElseThrow();
+
+        assertEquals(1999, first.getPath().length, "Open floor route should be a Manhattan path");
+        assertEquals(5, second.getPath().length, "Stale entries must not leak into a smaller search");
+        assertEquals(1999, third.getPath().length, "Stale entries must not leak into a later search");
+    }
+}
@@ -0,0 +1,132 @@
+package es.gdapp.guidingApp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.converters.MapDataBinaryConverter;
+import es.gdapp.guidingApp.dto.MapDataDTO;
+import es.gdapp.guidingApp.dto.NodeDTO;
+import es.gdapp.guidingApp.mappers.DataMapperImpl;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.repositories.MapDataRepository;
+import es.gdapp.guidingApp.repositories.NodeRepository;
+import es.gdapp.guidingApp.services.DatabaseInitializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MapDataWireFormatTests {
+
+    private static final Type MAP_LIST = new ParameterizedTypeReference<Collection<MapDataDTO>>() {}.getType();
+
+    private final MapDataBinaryConverter converter = new MapDataBinaryConverter();
+    private final DataMapperImpl dataMapper = new DataMapperImpl();
+
+    // The maps built by DatabaseInitializer, with ids assigned as if they had been saved
+    private static List<MapData> seededMaps() {
+        List<MapData> saved = new ArrayList<>();
+        MapDataRepository mapDataRepository = mock(MapDataRepository.class);
+        when(mapDataRepository.save(any())).thenAnswer(call -> {
+            saved.add(call.getArgument(0));
+            return call.getArgument(0);
+        });
+        DatabaseInitializer initializer = new DatabaseInitializer();
+        ReflectionTestUtils.setField(initializer, "mapDataRepository", mapDataRepository);
+        ReflectionTestUtils.setField(initializer, "nodeRepository", mock(NodeRepository.class));
+        initializer.init();
+
+        long nextId = 1;
+        for (MapData map : saved) {
+            map.setId(nextId++);
+            for (Node node : map.getNodes() == null ? List.<Node>of() : map.getNodes()) {
+                node.setId(nextId++);
+            }
+            for (Edge edge : map.getEdges() == null ? List.<Edge>of() : map.getEdges()) {
+                edge.setId(nextId++);
+            }
+        }
+        return saved;
+    }
+
+    private byte[] write(Object body, Type type) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(body, type, MapDataBinaryConverter.MEDIA_TYPE, output);
+        return output.getBodyAsBytes();
+    }
+
+    private Object read(byte[] bytes, Type type) throws IOException {
+        return converter.read(type, null, new MockHttpInputMessage(bytes));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTripMatchesJson() throws IOException {
+        ObjectMapper json = new ObjectMapper();
+        List<MapDataDTO> maps = seededMaps().stream().map(dataMapper::toMapDataDTO).toList();
+
+        for (MapDataDTO map : maps) {
+            MapDataDTO decoded = (MapDataDTO) read(write(map, MapDataDTO.class), MapDataDTO.class);
+            assertEquals(json.readTree(json.writeValueAsBytes(map)), json.readTree(json.writeValueAsBytes(decoded)),
+                    "Map " + map.getName() + " should survive the binary round trip");
+        }
+
+        @SuppressWarnings("unchecked")
+        List<MapDataDTO> decoded = (List<MapDataDTO>) read(write(maps, MAP_LIST), MAP_LIST);
+        assertEquals(json.readTree(json.writeValueAsBytes(maps)), json.readTree(json.writeValueAsBytes(decoded)));
+    }
+
+    @Test
+    public void testPartialMapsKeepMissingLists() throws IOException {
+        MapDataDTO map = dataMapper.toMapDataDTO(seededMaps().get(0));
+        map.setMatrices(null);
+        map.setNodes(null);  // Edge end points have to be written in full
+
+        MapDataDTO decoded = (MapDataDTO) read(write(map, MapDataDTO.class), MapDataDTO.class);
+
+        assertNull(decoded.getMatrices());
+        assertNull(decoded.getNodes());
+        assertEquals(map.getEdges(), decoded.getEdges());
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanJson() throws IOException {
+        List<MapDataDTO> maps = seededMaps().stream().map(dataMapper::toMapDataDTO).toList();
+
+        byte[] jsonBytes = new ObjectMapper().writeValueAsBytes(maps);
+        byte[] binaryBytes = write(maps, MAP_LIST);
+
+        assertTrue(binaryBytes.length < jsonBytes.length, binaryBytes.length + " vs " + jsonBytes.length + " bytes");
+        assertTrue(gzip(binaryBytes).length < gzip(jsonBytes).length, "Also once compressed");
+    }
+
+    @Test
+    public void testOnlyMapsAreConverted() {
+        assertTrue(converter.canWrite(MapDataDTO.class, MapDataDTO.class, MapDataBinaryConverter.MEDIA_TYPE));
+        assertTrue(converter.canWrite(MAP_LIST, ArrayList.class, MapDataBinaryConverter.MEDIA_TYPE));
+        assertFalse(converter.canWrite(NodeDTO.class, NodeDTO.class, MapDataBinaryConverter.MEDIA_TYPE));
+        assertFalse(converter.canWrite(MapDataDTO.class, MapDataDTO.class, MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,131 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.routing.NodeGraph;
+import es.gdapp.guidingApp.routing.NodeRoute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NodeGraphTests {
+
+    private MapData mapData;
+    private long edgeIdSeq;
+
+    @BeforeEach
+    public void setup() {
+        // Two floors joined by a pair of stair nodes, like "Aulario I" in DatabaseInitializer
+        mapData = new MapData("TestMap", 0.0, 40.335722, -3.876528, "initial", 5, 5);
+        mapData.setId(1L);
+        Node entrance = node(10L, "Main Entrance", 0);
+        Node hall = node(20L, "Central Hall", 0);
+        Node stairs0 = node(30L, "Stairs f0", 0);
+        Node stairs1 = node(40L, "Stairs f1", 1);
+        Node class203 = node(50L, "class 203", 1);
+        Node isolated = node(60L, "Storage", 1);
+        mapData.setNodes(new ArrayList<>(List.of(class203, entrance, stairs1, hall, stairs0, isolated)));
+
+        List<Edge> edges = new ArrayList<>();
+        edges.add(edge(entrance, hall, 5));
+        edges.add(edge(hall, entrance, 5));
+        edges.add(edge(hall, stairs0, 5));
+        edges.add(edge(stairs0, hall, 5));
+        edges.add(edge(stairs0, stairs1, 5));
+        edges.add(edge(stairs1, stairs0, 5));
+        edges.add(edge(stairs1, class203, 5));
+        edges.add(edge(class203, stairs1, 5));
+        // Direct but more expensive shortcut
+        edges.add(edge(entrance, class203, 50));
+        mapData.setEdges(edges);
+    }
+
+    private Node node(long id, String name, int floor) {
+        Node node = new Node(name, "beacon-" + id, floor, false, false, 0, 0, null, mapData);
+        node.setId(id);
+        return node;
+    }
+
+    private Edge edge(Node from, Node to, int weight) {
+        Edge edge = new Edge(from, to, weight, "", mapData);
+        edge.setId(++edgeIdSeq);
+        return edge;
+    }
+
+    @Test
+    public void testRouteAcrossFloors() {
+        NodeGraph graph = NodeGraph.of(mapData);
+
+        NodeRoute route = graph.findRoute(10L, 50L).orElseThrow();
+
+        assertArrayEquals(new long[]{10L, 20L, 30L, 40L, 50L}, route.getNodeIds(),
+                "Route should go through the stairs");
+        assertArrayEquals(new long[]{1L, 3L, 5L, 7L}, route.getEdgeIds(), "Traversed edges should be reported in order");
+        assertEquals(20, route.getTotalWeight(), "Total weight should add up the four edges");
+    }
+
+    @Test
+    public void testRouteIsDirected() {
+        NodeGraph graph = NodeGraph.of(mapData);
+
+        NodeRoute route = graph.findRoute(50L, 10L).orElseThrow();
+
+        assertEquals(20, route.getTotalWeight(), "The shortcut only exists in one direction");
+    }
+
+    @Test
+    public void testRouteToSelf() {
+        NodeRoute route = NodeGraph.of(mapData).findRoute(20L, 20L).orElseThrow();
+
+        assertArrayEquals(new long[]{20L}, route.getNodeIds());
+        assertEquals(0, route.getEdgeIds().length);
+    }
+
+    @Test
+    public void testUnreachableAndUnknownNodes() {
+        NodeGraph graph = NodeGraph.of(mapData);
+
+        assertEquals(Optional.empty(), graph.findRoute(10L, 60L), "Isolated node should be unreachable");
+        assertEquals(Optional.empty(), graph.findRoute(10L, 999L), "Unknown node should give no route");
+        assertTrue(graph.containsNode(60L));
+        assertFalse(graph.containsNode(999L));
+    }
+
+    @Test
+    public void testGraphShape() {
+        NodeGraph graph = NodeGraph.of(mapData);
+
+        assertEquals(6, graph.getNodeCount());
+        assertEquals(9, graph.getEdgeCount());
+        assertEquals(1L, graph.getMapDataId());
+    }
+
+    @Test
+    public void testConcurrentRoutesOnVirtualThreads() throws Exception {
+        NodeGraph graph = NodeGraph.of(mapData);
+        List<Future<NodeRoute>> routes = new ArrayList<>();
+
+        // Far more virtual threads than pooled search buffers, all searching at once
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1000; i++) {
+                long from = i % 2 == 0 ? 10L : 50L;
+                long to = i % 2 == 0 ? 50L : 10L;
+                routes.add(executor.submit(() -> graph.findRoute(from, to).orElseThrow()));
+            }
+        }
+
+        for (int i = 0; i < routes.size(); i++) {
+            assertEquals(20, routes.get(i).get().getTotalWeight());
+            assertEquals(i % 2 == 0 ? 50L : 10L, routes.get(i).get().getNodeIds()[4]);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.events.MapDataChangedEvent;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.repositories.MapDataRepository;
+import es.gdapp.guidingApp.routing.NodeRouteService;
+import es.gdapp.guidingApp.routing.NodeRouteTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class NodeRouteServiceTests {
+
+    private static MapData corridor(int length) {
+        MapData mapData = new MapData("Corridor", 0.0, 0.0, 0.0, "initial", 1, 1);
+        mapData.setId(1L);
+        List<Node> nodes = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            Node node = new Node("Node " + i, "b" + i, 0, false, false, i, 0, null, mapData);
+            node.setId(10L + i);
+            if (!nodes.isEmpty()) {
+                Edge edge = new Edge(nodes.get(nodes.size() - 1), node, 1, "", mapData);
+                edge.setId((long) i);
+                edges.add(edge);
+            }
+            nodes.add(node);
+        }
+        mapData.setNodes(nodes);
+        mapData.setEdges(edges);
+        return mapData;
+    }
+
+    @Test
+    public void testChangesRebuildInTheBackground() {
+        MapDataRepository repository = mock(MapDataRepository.class);
+        when(repository.findById(1L)).thenReturn(Optional.of(corridor(3)));
+        Queue<Runnable> background = new ArrayDeque<>();
+        NodeRouteService service = new NodeRouteService(repository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), background::add);
+
+        NodeRouteTable first = service.getRouteTable(1L).orElseThrow();
+        assertTrue(first.findRoute(10L, 12L).isPresent());
+
+        // A burst of changes queues one rebuild; requests keep the old table meanwhile
+        when(repository.findById(1L)).thenReturn(Optional.of(corridor(5)));
+        for (int i = 0; i < 3; i++) {
+            service.onMapDataChanged(new MapDataChangedEvent(1L));
+        }
+        assertEquals(1, background.size());
+        assertSame(first, service.getRouteTable(1L).orElseThrow());
+        verify(repository, times(1)).findById(1L);
+
+        background.poll().run();
+        NodeRouteTable second = service.getRouteTable(1L).orElseThrow();
+        assertNotSame(first, second);
+        assertTrue(second.findRoute(10L, 14L).isPresent());
+        verify(repository, times(2)).findById(1L);
+
+        // Deleted maps lose their table once the rebuild runs
+        when(repository.findById(1L)).thenReturn(Optional.empty());
+        service.onMapDataChanged(new MapDataChangedEvent(1L));
+        assertSame(second, service.getRouteTable(1L).orElseThrow());
+        background.poll().run();
+        assertTrue(service.getRouteTable(1L).isEmpty());
+        assertTrue(background.isEmpty());
+    }
+
+    @Test
+    public void testFirstUseBuildNeverReplacesANewerTable() {
+        MapDataRepository repository = mock(MapDataRepository.class);
+        Queue<Runnable> background = new ArrayDeque<>();
+        NodeRouteService service = new NodeRouteService(repository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), background::add);
+
+        // While the first request is reading the map, it changes and the rebuild finishes
+        // first. The map lock is not held meanwhile, so the rebuild can store its table
+        when(repository.findById(1L))
+                .thenAnswer(invocation -> {
+                    service.onMapDataChanged(new MapDataChangedEvent(1L));
+                    background.poll().run();
+                    return Optional.of(corridor(3));
+                })
+                .thenReturn(Optional.of(corridor(5)));
+
+        NodeRouteTable stale = service.getRouteTable(1L).orElseThrow();
+        assertFalse(stale.findRoute(10L, 14L).isPresent());
+
+        NodeRouteTable stored = service.getRouteTable(1L).orElseThrow();
+        assertNotSame(stale, stored);
+        assertTrue(stored.findRoute(10L, 14L).isPresent(), "The rebuilt table should be kept");
+        verify(repository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,78 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.routing.NodeGraph;
+import es.gdapp.guidingApp.routing.NodeRoute;
+import es.gdapp.guidingApp.routing.NodeRouteTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NodeRouteTableTests {
+
+    private static MapData randomMap(int nodeCount, int edgeCount, long seed) {
+        Random random = new Random(seed);
+        MapData mapData = new MapData("Random", 0.0, 0.0, 0.0, "initial", 1, 1);
+        mapData.setId(7L);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = new Node("Node " + i, "b" + i, i % 3, false, false, 0, 0, null, mapData);
+            node.setId(100L + 3L * i);
+            nodes.add(node);
+        }
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < edgeCount; i++) {
+            Node from = nodes.get(random.nextInt(nodeCount));
+            Node to = nodes.get(random.nextInt(nodeCount));
+            Edge edge = new Edge(from, to, 1 + random.nextInt(20), "", mapData);
+            edge.setId((long) i + 1);
+            edges.add(edge);
+        }
+        mapData.setNodes(nodes);
+        mapData.setEdges(edges);
+        return mapData;
+    }
+
+    @Test
+    public void testTableMatchesSearch() {
+        NodeGraph graph = NodeGraph.of(randomMap(60, 150, 42L));
+        NodeRouteTable table = NodeRouteTable.of(graph);
+        assertTrue(table.isTabulated());
+
+        for (int i = 0; i < 60; i++) {
+            for (int j = 0; j < 60; j++) {
+                long from = 100L + 3L * i;
+                long to = 100L + 3L * j;
+                Optional<NodeRoute> searched = graph.findRoute(from, to);
+                Optional<NodeRoute> looked = table.findRoute(from, to);
+                assertEquals(searched.isPresent(), looked.isPresent(), "Reachability of " + from + " -> " + to);
+                if (searched.isPresent()) {
+                    NodeRoute route = looked.get();
+                    assertEquals(searched.get().getTotalWeight(), route.getTotalWeight(),
+                            "Distance of " + from + " -> " + to);
+                    assertEquals(from, route.getNodeIds()[0]);
+                    assertEquals(to, route.getNodeIds()[route.getNodeIds().length - 1]);
+                    assertEquals(route.getNodeIds().length - 1, route.getEdgeIds().length);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargeGraphFallsBackToSearch() {
+        int n = NodeRouteTable.MAX_TABLE_NODES + 1;
+        NodeGraph graph = NodeGraph.of(randomMap(n, 4 * n, 7L));
+        NodeRouteTable table = NodeRouteTable.of(graph);
+
+        assertFalse(table.isTabulated(), "Graphs above the limit should not be tabulated");
+        assertEquals(graph.findRoute(100L, 130L), table.findRoute(100L, 130L),
+                "Untabulated routes should come from the graph search");
+    }
+}
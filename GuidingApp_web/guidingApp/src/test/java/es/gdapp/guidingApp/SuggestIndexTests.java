@@ -0,0 +1,83 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.search.SuggestIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SuggestIndexTests {
+
+    private static SuggestIndex campus() {
+        SuggestIndex index = new SuggestIndex();
+        index.putMap(1, "Aulario I");
+        index.putMap(2, "Biblioteca Central");
+        index.putNode(10, "Clase 203", 1L, "Aulario I");
+        index.putNode(11, "Clase 204", 1L, "Aulario I");
+        index.putNode(12, "Aula 1", 1L, "Aulario I");
+        index.putNode(13, "Cafetería", 2L, "Biblioteca Central");
+        index.putNode(14, "Sala de lectura", 2L, "Biblioteca Central");
+        return index;
+    }
+
+    private static List<String> texts(List<SuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestIndex.Suggestion::text).toList();
+    }
+
+    @Test
+    public void testTyposAndPrefixes() {
+        SuggestIndex index = campus();
+
+        assertEquals("Clase 203, Aulario I", texts(index.suggest("clas 203", 5)).get(0),
+                "A missing letter in a complete word should be tolerated");
+        assertEquals("Aula 1, Aulario I", texts(index.suggest("aulario 1", 5)).get(0),
+                "Map words should help find nodes");
+        assertEquals(List.of("Clase 203, Aulario I", "Clase 204, Aulario I"), texts(index.suggest("clase 20", 5)));
+        assertEquals("Cafetería, Biblioteca Central", texts(index.suggest("cafeteria", 5)).get(0),
+                "Accents should not matter");
+        assertEquals("Biblioteca Central", texts(index.suggest("biblioteac", 5)).get(0),
+                "A transposition in the word being typed should be tolerated");
+        assertTrue(index.suggest("zzz", 5).isEmpty());
+        assertTrue(index.suggest("  ", 5).isEmpty());
+    }
+
+    @Test
+    public void testExactMatchesRankFirst() {
+        SuggestIndex index = campus();
+        List<SuggestIndex.Suggestion> suggestions = index.suggest("sala ", 5);
+
+        assertEquals(14, suggestions.get(0).id());
+        assertEquals(SuggestIndex.Kind.NODE, suggestions.get(0).kind());
+        assertEquals(2L, suggestions.get(0).mapDataId());
+    }
+
+    @Test
+    public void testCloseMatchesSurviveManyFuzzyOnes() {
+        SuggestIndex index = new SuggestIndex();
+        // 676 words one edit away from being completions of "sal", all sorting before "sala"
+        long id = 100;
+        for (char a = 'a'; a <= 'z'; a++) {
+            for (char b = 'a'; b <= 'z'; b++) {
+                index.putNode(id++, "al" + a + b + "x", null, null);
+            }
+        }
+        index.putNode(1, "Sala", null, null);
+
+        assertEquals("Sala", texts(index.suggest("sal", 5)).get(0));
+        assertEquals("Sala", texts(index.suggest("sala ", 5)).get(0));
+    }
+
+    @Test
+    public void testRemovalsAndRenames() {
+        SuggestIndex index = campus();
+        index.removeNode(13);
+        index.putMap(2, "Library");
+        index.putNode(14, "Reading room", 2L, "Library");
+
+        assertTrue(index.suggest("cafeteria", 5).isEmpty(), "Removed nodes must not be suggested");
+        assertTrue(index.suggest("biblioteca", 5).isEmpty(), "Old map names must not be suggested");
+        assertEquals(List.of("Library", "Reading room, Library"), texts(index.suggest("libr", 5)));
+        assertEquals(2 + 4, index.size());
+    }
+}
@@ -0,0 +1,98 @@
+package es.gdapp.guidingApp;
+
+import es.gdapp.guidingApp.search.TextIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextIndexTests {
+
+    private static final String[] WORDS = {"aula", "lab", "baño", "Biblioteca", "cafetería", "entrada", "salida",
+            "despacho", "sala", "A", "B1", "norte", "sur", "Escalera", "ascensor", "conserjería"};
+
+    private record Indexed(long id, String name, Long mapId, String mapName) {
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int w = 0, words = 1 + random.nextInt(3); w < words; w++) {
+            if (w > 0) name.append(' ');
+            name.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextBoolean()) name.append(random.nextInt(300));
+        }
+        return name.toString();
+    }
+
+    // Same scoring as the database search: one point per keyword found in each name
+    private static List<TextIndex.Hit> bruteForce(Map<Long, Indexed> nodes, List<String> keywords, int max) {
+        List<TextIndex.Hit> hits = new ArrayList<>();
+        for (Indexed node : nodes.values()) {
+            int score = 0;
+            for (String kw : keywords) {
+                if (node.name().toLowerCase().contains(kw)) score++;
+                if (node.mapName() != null && node.mapName().toLowerCase().contains(kw)) score++;
+            }
+            if (score > 0) hits.add(new TextIndex.Hit(node.id(), score));
+        }
+        hits.sort(Comparator.comparingInt(TextIndex.Hit::score).reversed().thenComparingLong(TextIndex.Hit::nodeId));
+        return hits.subList(0, Math.min(max, hits.size()));
+    }
+
+    @Test
+    public void testMatchesSubstringSearch() {
+        Random random = new Random(5L);
+        TextIndex index = new TextIndex();
+        Map<Long, Indexed> nodes = new HashMap<>();
+        String[] mapNames = {"Edificio Norte", "Aulario", "Biblioteca Central", "Laboratorios"};
+        for (long id = 1; id <= 2000; id++) {
+            long mapId = random.nextInt(mapNames.length);
+            Indexed node = new Indexed(id, randomName(random), mapId, mapNames[(int) mapId]);
+            nodes.put(id, node);
+            index.put(id, node.name(), node.mapId(), node.mapName());
+        }
+        // Renames and deletions must leave no trace in the postings
+        for (long id = 1; id <= 2000; id += 7) {
+            Indexed node = new Indexed(id, randomName(random), 1L, mapNames[1]);
+            nodes.put(id, node);
+            index.put(id, node.name(), node.mapId(), node.mapName());
+        }
+        for (long id = 3; id <= 2000; id += 11) {
+            nodes.remove(id);
+            index.remove(id);
+        }
+
+        List<List<String>> queries = List.of(List.of("aula"), List.of("la"), List.of("b"), List.of("biblioteca", "sala"),
+                List.of("norte", "norte"), List.of("caf", "1"), List.of("xyz"), List.of("ñ"), List.of("conserjería"));
+        for (List<String> keywords : queries) {
+            assertEquals(bruteForce(nodes, keywords, 25), index.search(keywords, 25), "Search for " + keywords);
+        }
+        assertEquals(nodes.size(), index.size());
+    }
+
+    @Test
+    public void testMapRenameAndRemoval() {
+        TextIndex index = new TextIndex();
+        index.put(1, "Hall", 10L, "Old Building");
+        index.put(2, "Gym", 10L, "Old Building");
+        index.put(3, "Hall", null, null);
+
+        assertEquals(List.of(new TextIndex.Hit(1, 1), new TextIndex.Hit(2, 1)), index.search(List.of("old"), 10));
+
+        index.put(1, "Hall", 10L, "New Building");
+        index.put(2, "Gym", 10L, "New Building");
+        assertTrue(index.search(List.of("old"), 10).isEmpty());
+        assertEquals(List.of(1L, 2L), index.nodesOfMap(10));
+
+        index.remove(1);
+        index.remove(2);
+        assertTrue(index.nodesOfMap(10).isEmpty());
+        assertEquals(List.of(new TextIndex.Hit(3, 1)), index.search(List.of("hall", "building"), 10));
+    }
+}
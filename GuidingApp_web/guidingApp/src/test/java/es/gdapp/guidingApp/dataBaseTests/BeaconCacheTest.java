@@ -0,0 +1,85 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.dto.BeaconLocationDTO;
+import es.gdapp.guidingApp.dto.BeaconMatchDTO;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.BeaconCache;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.services.NodeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+public class BeaconCacheTest {
+
+    @Autowired
+    private NodeService nodeService;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private BeaconCache beaconCache;
+
+    @Test
+    public void testUnknownBeaconsAreCachedAndWritesInvalidate() {
+        MapData mapData = mapDataService.saveMapData(
+                new MapData("Beacon Map", 0.0, 40.335722, -3.876528, "ground", 4, 4));
+
+        long misses = beaconCache.getMisses();
+        long hits = beaconCache.getHits();
+        assertTrue(nodeService.resolveBeacon("cache-beacon-1").isEmpty());
+        assertTrue(nodeService.resolveBeacon("cache-beacon-1").isEmpty());
+        assertEquals(1, beaconCache.getMisses() - misses, "Only the first lookup should reach the database");
+        assertEquals(1, beaconCache.getHits() - hits, "The unknown beacon should be answered from memory");
+
+        // Creating a node for a beacon cached as unknown must make it resolvable
+        Node node = nodeService.saveNode(new Node("Lab", "cache-beacon-1", 2, false, false, 1, 1, null, mapData));
+        BeaconLocationDTO location = nodeService.resolveBeacon("cache-beacon-1").orElseThrow();
+        assertEquals(node.getId(), location.getNodeId());
+        assertEquals(mapData.getId(), location.getMapDataId());
+        assertEquals(2, location.getFloorNumber());
+        assertEquals(node.getId(), nodeService.getNodeByBeaconId("cache-beacon-1").orElseThrow().getId());
+
+        // Moving the node to another beacon frees the old one
+        Node moved = new Node("Lab", "cache-beacon-2", 3, false, false, 1, 1, null, mapData);
+        nodeService.updateNode(node.getId(), moved);
+        assertTrue(nodeService.resolveBeacon("cache-beacon-1").isEmpty());
+        assertEquals(3, nodeService.resolveBeacon("cache-beacon-2").orElseThrow().getFloorNumber());
+
+        nodeService.deleteNode(node.getId());
+        assertTrue(nodeService.resolveBeacon("cache-beacon-2").isEmpty(), "Deleted nodes must not resolve");
+    }
+
+    @Test
+    public void testBulkResolutionQueriesOnlyUncachedBeacons() {
+        MapData mapData = mapDataService.saveMapData(
+                new MapData("Bulk Map", 0.0, 40.335722, -3.876528, "ground", 4, 4));
+        Node hall = nodeService.saveNode(new Node("Hall", "bulk-1", 0, false, false, 1, 1, null, mapData));
+        Node stairs = nodeService.saveNode(new Node("Stairs", "bulk-2", 1, false, false, 2, 2, null, mapData));
+        nodeService.resolveBeacon("bulk-2");
+
+        long misses = beaconCache.getMisses();
+        List<BeaconMatchDTO> matches = nodeService.resolveBeacons(
+                List.of("bulk-2", "bulk-foreign", "bulk-1", "bulk-2"));
+
+        assertEquals(List.of("bulk-2", "bulk-1"), matches.stream().map(BeaconMatchDTO::getBeaconId).toList(),
+                "Known beacons should come back once, in request order");
+        assertEquals(stairs.getId(), matches.get(0).getNode().getId());
+        assertEquals("Hall", matches.get(1).getNode().getName());
+        assertEquals(mapData.getId(), matches.get(1).getMapDataId());
+        assertEquals(2, beaconCache.getMisses() - misses, "Only the uncached beacons should be looked up");
+
+        nodeService.resolveBeacons(List.of("bulk-1", "bulk-foreign"));
+        assertEquals(2, beaconCache.getMisses() - misses, "The second scan should be served from memory");
+        assertEquals(hall.getId(), nodeService.resolveBeacon("bulk-1").orElseThrow().getNodeId());
+    }
+}
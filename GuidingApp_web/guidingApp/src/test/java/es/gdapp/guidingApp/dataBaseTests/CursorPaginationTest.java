@@ -0,0 +1,174 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.dto.CursorPageDTO;
+import es.gdapp.guidingApp.dto.MapDataSummaryDTO;
+import es.gdapp.guidingApp.dto.NodeDTO;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.monitoring.SqlStatementCounter;
+import es.gdapp.guidingApp.repositories.NodeRepository;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.services.NodeService;
+import es.gdapp.guidingApp.services.PageCursor;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class CursorPaginationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private NodeService nodeService;
+
+    @Autowired
+    private NodeRepository nodeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Nodes alternate between floors 0 and 1; every third one is an exit
+    private MapData createMap(String name, int nodeCount) {
+        MapData mapData = new MapData(name, 0.0, 40.335722, -3.876528, "baja", 2, 2);
+        mapData.putMatrix(1, "primera", new int[2][2]);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new Node(name + " " + i, null, i % 2, i % 3 == 0, i == 0, i, 0, null, mapData));
+        }
+        mapData.setNodes(nodes);
+        MapData saved = mapDataService.saveMapData(mapData);
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
+    }
+
+    // Follows nextCursor from the first page to the last, checking every page size
+    private List<Long> walk(String url, int limit) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get(url).secure(true).param("limit", String.valueOf(limit));
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String page = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode json = objectMapper.readTree(page);
+            assertTrue(json.get("content").size() <= limit);
+            json.get("content").forEach(item -> ids.add(item.get("id").asLong()));
+            cursor = json.get("nextCursor").isNull() ? null : json.get("nextCursor").asText();
+            assertTrue(cursor == null || json.get("content").size() == limit, "Only the last page may be short");
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static List<Long> idsOf(List<Node> nodes) {
+        return nodes.stream().map(Node::getId).sorted().toList();
+    }
+
+    @Test
+    public void testNodePagesCoverFilteredNodesInIdOrder() throws Exception {
+        MapData map = createMap("Paged Building", 23);
+        createMap("Paged Other", 5);
+        List<Node> nodes = mapDataService.getMapDataById(map.getId()).orElseThrow().getNodes();
+        String url = "/api/nodes?mapDataId=" + map.getId();
+
+        assertEquals(idsOf(nodes), walk(url, 5));
+        assertEquals(idsOf(nodes), walk(url, 23), "An exact last page should not announce another");
+        assertEquals(idsOf(nodes.stream().filter(n -> n.getFloorNumber() == 1).toList()), walk(url + "&floor=1", 4));
+        assertEquals(idsOf(nodes.stream().filter(Node::isExit).toList()), walk(url + "&exit=true", 3));
+        assertEquals(idsOf(nodes.stream().filter(Node::isEntrance).toList()), walk(url + "&entrance=true", 3));
+        assertEquals(idsOf(nodes.stream().filter(n -> !n.isExit() && n.getFloorNumber() == 0).toList()),
+                walk(url + "&exit=false&floor=0", 2));
+
+        List<Long> all = walk("/api/nodes", 7);
+        assertEquals(all.stream().sorted().toList(), all);
+        assertTrue(all.containsAll(idsOf(nodes)));
+    }
+
+    @Test
+    public void testMapPagesCoverEveryMap() throws Exception {
+        createMap("Paged A", 1);
+        createMap("Paged B", 1);
+
+        List<Long> expected = mapDataService.getMapDataSummaries().stream().map(MapDataSummaryDTO::getId).sorted().toList();
+        assertEquals(expected, walk("/api/mapdata", 2));
+
+        String firstPage = mockMvc.perform(get("/api/mapdata").secure(true).param("limit", "1"))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode summary = objectMapper.readTree(firstPage).get("content").get(0);
+        assertTrue(summary.has("floors") && summary.has("nodeCount"), "Pages hold map summaries");
+    }
+
+    @Test
+    public void testRejectsBadPageRequests() throws Exception {
+        mockMvc.perform(get("/api/nodes").secure(true).param("limit", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/nodes").secure(true).param("limit", "1001")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/nodes").secure(true).param("limit", "5").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/mapdata").secure(true).param("limit", "5").param("cursor", "bm90LWFuLWlk"))
+                .andExpect(status().isBadRequest());
+        // Without limit the old unpaged listings answer as before
+        mockMvc.perform(get("/api/nodes").secure(true)).andExpect(status().isOk());
+    }
+
+    // Run with -Dbenchmark=true: time of one page of 100 at growing depths in 200k nodes,
+    // keyset cursor against offset paging; both must return the same rows
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkDeepPages() {
+        for (int m = 0; m < 20; m++) {
+            createMap("Paged Benchmark " + m, 10_000);
+        }
+        List<Long> ids = nodeRepository.findAll(Sort.by("id")).stream().map(Node::getId).toList();
+        entityManager.clear();
+        for (int round = 0; round < 3; round++) {
+            for (int depth : new int[]{0, 50_000, 100_000, 199_000}) {
+                String cursor = depth == 0 ? null : PageCursor.encode(ids.get(depth - 1));
+                CursorPageDTO<NodeDTO> keyset;
+                long keysetNanos;
+                try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+                    long start = System.nanoTime();
+                    keyset = nodeService.getNodePage(null, null, null, null, cursor, 100);
+                    keysetNanos = System.nanoTime() - start;
+                    assertEquals(1, scope.getCount(), "A page at any depth should take one query");
+                }
+                entityManager.clear();
+                long start = System.nanoTime();
+                List<Node> offset = nodeRepository.findAll(PageRequest.of(depth / 100, 100, Sort.by("id"))).getContent();
+                long offsetNanos = System.nanoTime() - start;
+                entityManager.clear();
+                assertEquals(idsOf(offset), keyset.getContent().stream().map(NodeDTO::getId).toList());
+                System.out.printf("Round %d, page at %,d: keyset %.2f ms, offset %.2f ms%n",
+                        round, depth, keysetNanos / 1e6, offsetNanos / 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.tiles.FloorTiles;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class FloorTileTest {
+
+    private static final int SIZE = FloorTiles.TILE_SIZE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void testTilesRevalidateByContent() throws Exception {
+        int[][] cells = new int[SIZE + 10][2 * SIZE];
+        cells[0][0] = 1;
+        MapData mapData = new MapData("Tiled Map", 0.0, 40.335722, -3.876528, "ground", 1, 1);
+        mapData.putMatrix(0, "ground", cells);
+        Long id = mapDataService.saveMapData(mapData).getId();
+        String base = "/api/mapdata/" + id + "/floors/0/tiles";
+
+        mockMvc.perform(get(base).secure(true))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tilesX").value(2))
+                .andExpect(jsonPath("$.tilesY").value(2))
+                .andExpect(jsonPath("$.versions.length()").value(2));
+
+        String version = mockMvc.perform(get(base + "/0/0").secure(true))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cells[0][0]").value(1))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get(base + "/1/1").secure(true))
+                .andExpect(jsonPath("$.row").value(SIZE))
+                .andExpect(jsonPath("$.cells.length()").value(10));
+        mockMvc.perform(get(base + "/2/0").secure(true)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/mapdata/" + id + "/floors/9/tiles/0/0").secure(true)).andExpect(status().isNotFound());
+
+        // Editing another tile bumps the map version but leaves tile (0, 0) as it was
+        MapData stored = mapDataService.getMapDataById(id).orElseThrow();
+        entityManager.detach(stored);
+        stored.getMatrices().size();
+        cells[SIZE + 1][SIZE + 1] = 1;
+        stored.putMatrix(0, "ground", cells);
+        mapDataService.updateMapData(id, stored);
+        entityManager.flush();
+
+        mockMvc.perform(get(base + "/0/0").secure(true).header("If-None-Match", version))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(base + "/1/1").secure(true))
+                .andExpect(jsonPath("$.cells[1][1]").value(1));
+
+        String tileVersion = version.substring("W/\"tile-".length(), version.length() - 1);
+        mockMvc.perform(get(base + "/0/0").secure(true).param("v", tileVersion))
+                .andExpect(header().string("Cache-Control", containsString("immutable")));
+    }
+
+    @Test
+    public void testRenderedFloorsRevalidateByContent() throws Exception {
+        MapData mapData = new MapData("Rendered Map", 0.0, 40.335722, -3.876528, "ground", 1, 1);
+        mapData.putMatrix(0, "ground", new int[][]{{1, 1, 0}, {1, 1, 0}});
+        mapData.putMatrix(1, "first", new int[][]{{0, 1}, {0, 1}});
+        Long id = mapDataService.saveMapData(mapData).getId();
+        String base = "/api/mapdata/" + id + "/floors/0/render";
+
+        MvcResult result = mockMvc.perform(get(base).secure(true)).andReturn();
+        String etag = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/svg+xml"))
+                .andExpect(content().string(containsString("M0 0h40v40h-40z")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        result = mockMvc.perform(get(base).secure(true).param("format", "png").param("cellSize", "4")).andReturn();
+        byte[] png = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(12, ImageIO.read(new ByteArrayInputStream(png)).getWidth());
+
+        mockMvc.perform(get(base).secure(true).param("format", "gif")).andExpect(status().isBadRequest());
+        mockMvc.perform(get(base).secure(true).param("cellSize", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get(base).secure(true).param("cellSize", "41")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/mapdata/" + id + "/floors/9/render").secure(true)).andExpect(status().isNotFound());
+
+        // Editing the other floor keeps the image of floor 0
+        MapData stored = mapDataService.getMapDataById(id).orElseThrow();
+        entityManager.detach(stored);
+        stored.getMatrices().size();
+        stored.putMatrix(1, "first", new int[][]{{1, 1}, {0, 1}});
+        mapDataService.updateMapData(id, stored);
+        entityManager.flush();
+
+        mockMvc.perform(get(base).secure(true).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,62 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapChangeLog;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.services.NodeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+// Not @Transactional: each service call has to commit or roll back on its own
+@SpringBootTest
+public class MapChangeAtomicityTest {
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private NodeService nodeService;
+
+    @MockitoSpyBean
+    private MapChangeLog mapChangeLog;
+
+    private Long mapId;
+
+    @AfterEach
+    public void deleteMap() {
+        reset(mapChangeLog);
+        if (mapId != null) {
+            mapDataService.deleteMapData(mapId);
+        }
+    }
+
+    @Test
+    public void testWriteRollsBackWhenItsChangeCannotBeLogged() {
+        MapData mapData = mapDataService.saveMapData(
+                new MapData("Atomic Map", 0.0, 40.335722, -3.876528, "ground", 4, 4));
+        mapId = mapData.getId();
+        long version = mapDataService.getMapDataVersion(mapId).orElseThrow();
+
+        doThrow(new IllegalStateException("log unavailable")).when(mapChangeLog).record(anyLong(), any());
+        assertThrows(IllegalStateException.class,
+                () -> nodeService.saveNode(new Node("Hall", "atomic-beacon", 0, false, false, 1, 1, null, mapData)));
+        MapData renamed = mapDataService.getMapDataById(mapId).orElseThrow();
+        renamed.setName("Atomic Map renamed");
+        assertThrows(IllegalStateException.class, () -> mapDataService.updateMapData(mapId, renamed));
+
+        assertTrue(nodeService.getNodeByBeaconId("atomic-beacon").isEmpty(), "The node should not be saved");
+        assertEquals("Atomic Map", mapDataService.getMapDataById(mapId).orElseThrow().getName(),
+                "The map should not be renamed");
+        assertEquals(version, mapDataService.getMapDataVersion(mapId).orElseThrow());
+    }
+}
@@ -0,0 +1,107 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.dto.MapDataChangesDTO;
+import es.gdapp.guidingApp.dto.NodeDTO;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.services.NodeService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+public class MapDataChangesTest {
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private NodeService nodeService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private MapData createMap() {
+        MapData mapData = new MapData("Delta Map", 0.0, 40.335722, -3.876528, "ground", 4, 4);
+        Node hall = new Node("Hall", "delta-1", 0, false, false, 1, 1, null, mapData);
+        Node exit = new Node("Exit", "delta-2", 0, true, false, 2, 2, null, mapData);
+        mapData.setNodes(new ArrayList<>(List.of(hall, exit)));
+        mapData.setEdges(new ArrayList<>(List.of(new Edge(hall, exit, 3, "", mapData))));
+        Long id = mapDataService.saveMapData(mapData).getId();
+        entityManager.flush();
+        entityManager.clear();
+        return mapDataService.getMapDataById(id).orElseThrow();
+    }
+
+    private long version(Long id) {
+        return mapDataService.getMapDataVersion(id).orElseThrow();
+    }
+
+    @Test
+    public void testChangesSinceVersion() {
+        MapData mapData = createMap();
+        Long id = mapData.getId();
+        long since = version(id);
+        Node hall = mapData.getNodes().get(0);
+        Long edgeId = mapData.getEdges().get(0).getId();
+
+        Node renamed = new Node("Main hall", "delta-1", 0, false, false, 1, 1, null, mapData);
+        nodeService.updateNode(hall.getId(), renamed);
+        Node stairs = nodeService.saveNode(new Node("Stairs", "delta-3", 0, false, false, 3, 3, null, mapData));
+        nodeService.deleteNode(stairs.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Whole-map save of a detached copy: only what differs is logged
+        MapData copy = mapDataService.getMapDataById(id).orElseThrow();
+        copy.getNodes().size();
+        copy.getEdges().size();
+        copy.getMatrices().size();
+        entityManager.detach(copy);
+        copy.putMatrix(1, "first", new int[4][4]);
+        copy.getEdges().get(0).setWeight(7);
+        mapDataService.updateMapData(id, copy);
+        entityManager.flush();
+        entityManager.clear();
+
+        MapDataChangesDTO delta = mapDataService.getChangesSince(id, since).orElseThrow();
+        assertEquals(version(id), delta.getVersion());
+        assertFalse(delta.isReset());
+        assertNull(delta.getMap(), "The header did not change");
+        assertEquals(List.of(1), delta.getMatrices().stream().map(m -> m.getFloorNumber()).toList());
+        assertEquals(List.of("Main hall"), delta.getNodes().stream().map(NodeDTO::getName).toList());
+        assertEquals(List.of(stairs.getId()), delta.getRemovedNodes());
+        assertEquals(1, delta.getEdges().size());
+        assertEquals(edgeId, delta.getEdges().get(0).getId());
+        assertEquals(7, delta.getEdges().get(0).getWeight());
+        assertTrue(delta.getRemovedFloors().isEmpty());
+        assertTrue(delta.getRemovedEdges().isEmpty());
+
+        MapDataChangesDTO upToDate = mapDataService.getChangesSince(id, delta.getVersion()).orElseThrow();
+        assertTrue(upToDate.getNodes().isEmpty() && upToDate.getMatrices().isEmpty() && upToDate.getEdges().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> mapDataService.getChangesSince(id, delta.getVersion() + 1));
+        assertTrue(mapDataService.getChangesSince(-1L, 0).isEmpty());
+    }
+
+    @Test
+    public void testInPlaceEditsAskForReload() {
+        MapData mapData = createMap();
+        long since = version(mapData.getId());
+
+        mapData.setName("Delta Map Renamed");
+        mapDataService.updateMapData(mapData.getId(), mapData);
+
+        MapDataChangesDTO delta = mapDataService.getChangesSince(mapData.getId(), since).orElseThrow();
+        assertTrue(delta.isReset(), "Edits to the managed map cannot be diffed");
+    }
+}
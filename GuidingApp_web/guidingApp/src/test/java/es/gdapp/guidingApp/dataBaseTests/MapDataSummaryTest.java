@@ -0,0 +1,56 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.dto.MapDataSummaryDTO;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+public class MapDataSummaryTest {
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void testSummariesListFloorsAndNodeCounts() {
+        MapData withNodes = new MapData("Summary Map", 15.0, 40.335722, -3.876528, "ground", 10, 10);
+        withNodes.putMatrix(1, "first", new int[10][10]);
+        Node hall = new Node("Hall", "summary-1", 0, false, false, 1, 1, null, withNodes);
+        Node exit = new Node("Exit", "summary-2", 1, true, false, 2, 2, null, withNodes);
+        withNodes.setNodes(new ArrayList<>(List.of(hall, exit)));
+        Long withNodesId = mapDataService.saveMapData(withNodes).getId();
+        Long emptyId = mapDataService.saveMapData(
+                new MapData("Empty Map", 0.0, 1.0, 2.0, "only", 5, 5)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        List<MapDataSummaryDTO> summaries = mapDataService.getMapDataSummaries();
+
+        MapDataSummaryDTO first = summaries.stream()
+                .filter(s -> s.getId().equals(withNodesId)).findFirst().orElseThrow();
+        assertEquals("Summary Map", first.getName());
+        assertEquals(15.0, first.getNorthAngle());
+        assertEquals(2, first.getNodeCount());
+        assertEquals(List.of(0, 1), first.getFloors().stream().map(f -> f.getFloorNumber()).toList());
+        assertEquals("first", first.getFloors().get(1).getName());
+
+        MapDataSummaryDTO empty = summaries.stream()
+                .filter(s -> s.getId().equals(emptyId)).findFirst().orElseThrow();
+        assertEquals(0, empty.getNodeCount(), "Maps without nodes should still be listed");
+        assertEquals(1, empty.getFloors().size());
+    }
+}
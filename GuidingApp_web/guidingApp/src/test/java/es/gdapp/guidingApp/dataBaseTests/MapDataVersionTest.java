@@ -0,0 +1,122 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.converters.MapDataBinaryConverter;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.services.NodeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class MapDataVersionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private NodeService nodeService;
+
+    private long version(Long id) {
+        return mapDataService.getMapDataVersion(id).orElseThrow();
+    }
+
+    @Test
+    public void testEveryChangeBumpsTheVersion() {
+        MapData mapData = mapDataService.saveMapData(
+                new MapData("Versioned Map", 0.0, 40.335722, -3.876528, "ground", 4, 4));
+        long created = version(mapData.getId());
+
+        Node node = nodeService.saveNode(new Node("Hall", "version-beacon", 0, false, false, 1, 1, null, mapData));
+        long withNode = version(mapData.getId());
+        assertTrue(withNode > created, "Adding a node should bump the map version");
+
+        MapData loaded = mapDataService.getMapDataById(mapData.getId()).orElseThrow();
+        loaded.putMatrix(1, "first", new int[4][4]);
+        mapDataService.updateMapData(loaded.getId(), loaded);
+        long withFloor = version(mapData.getId());
+        assertTrue(withFloor > withNode, "Adding a floor should bump the map version");
+
+        nodeService.deleteNode(node.getId());
+        assertTrue(version(mapData.getId()) > withFloor, "Deleting a node should bump the map version");
+    }
+
+    @Test
+    public void testRevalidationAnswersNotModified() throws Exception {
+        MapData mapData = mapDataService.saveMapData(
+                new MapData("ETag Map", 0.0, 40.335722, -3.876528, "ground", 4, 4));
+        nodeService.saveNode(new Node("Hall", "etag-beacon", 0, false, false, 1, 1, null, mapData));
+        String url = "/api/mapdata/" + mapData.getId();
+
+        String etag = mockMvc.perform(get(url).secure(true))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(version(mapData.getId())))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mockMvc.perform(get(url).secure(true).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        mockMvc.perform(get("/api/nodes/etag-beacon/mapdata").secure(true).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        String nodesOnly = mockMvc.perform(get(url).secure(true).param("fields", "nodes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, nodesOnly, "Partial responses need their own tag");
+
+        nodeService.saveNode(new Node("Exit", "etag-beacon-2", 0, true, false, 2, 2, null, mapData));
+        mockMvc.perform(get(url).secure(true).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    public void testJsonAndBinaryHaveTheirOwnTags() throws Exception {
+        MapData mapData = mapDataService.saveMapData(
+                new MapData("Format Map", 0.0, 40.335722, -3.876528, "ground", 4, 4));
+        nodeService.saveNode(new Node("Hall", "format-beacon", 0, false, false, 1, 1, null, mapData));
+        String url = "/api/mapdata/" + mapData.getId();
+
+        String jsonTag = mockMvc.perform(get(url).secure(true).accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/json"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // A cache holding the JSON body revalidates it for the binary format
+        String binaryTag = mockMvc.perform(get(url).secure(true)
+                        .accept(MapDataBinaryConverter.MEDIA_TYPE_VALUE).header("If-None-Match", jsonTag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MapDataBinaryConverter.MEDIA_TYPE_VALUE))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(jsonTag, binaryTag);
+
+        mockMvc.perform(get(url).secure(true).accept("application/json").header("If-None-Match", binaryTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/nodes/format-beacon/mapdata").secure(true)
+                        .accept(MapDataBinaryConverter.MEDIA_TYPE_VALUE).header("If-None-Match", jsonTag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MapDataBinaryConverter.MEDIA_TYPE_VALUE));
+        mockMvc.perform(get(url).secure(true)
+                        .accept(MapDataBinaryConverter.MEDIA_TYPE_VALUE).header("If-None-Match", binaryTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+    }
+}
@@ -0,0 +1,192 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.dto.MapImportProgressDTO;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.NamedMatrix;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.transfer.MapExportService;
+import es.gdapp.guidingApp.transfer.MapImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: the export reads committed maps from its own transaction
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MapExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MapExportService mapExportService;
+
+    @Autowired
+    private MapImportService mapImportService;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Long> createdMaps = new ArrayList<>();
+
+    @AfterEach
+    public void deleteCreatedMaps() {
+        createdMaps.forEach(mapDataService::deleteMapData);
+        createdMaps.clear();
+    }
+
+    private MapData createMap(String name) {
+        MapData mapData = new MapData(name, 30.0, 40.335722, -3.876528, "baja", 3, 4);
+        mapData.putMatrix(0, "baja", new int[][]{{1, 1, 1, 1}, {1, 0, 0, 1}, {1, 1, 9, 1}});
+        mapData.putMatrix(1, null, new int[][]{{0, 1}, {300, 0}});
+        Node hall = new Node("Export Vestíbulo", "exp-1", 0, false, true, 1, 1, new int[][]{{1, 1}, {1, 2}}, mapData);
+        Node stairs = new Node("Export Escalera", null, 0, false, false, 2, 1, null, mapData);
+        Node office = new Node("Export Despacho", null, 1, true, false, 0, 0, null, mapData);
+        mapData.setNodes(new ArrayList<>(List.of(hall, stairs, office)));
+        mapData.setEdges(new ArrayList<>(List.of(
+                new Edge(hall, stairs, 2, "pasillo", mapData),
+                new Edge(stairs, office, 15, null, mapData))));
+        MapData saved = mapDataService.saveMapData(mapData);
+        createdMaps.add(saved.getId());
+        return saved;
+    }
+
+    private MockHttpServletResponse export(String acceptEncoding) throws Exception {
+        var request = get("/api/mapdata/export").secure(true);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MvcResult result = mockMvc.perform(request).andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    // The records of one map, from its map record up to the next one
+    private List<String> recordsOf(String export, Long mapId) throws IOException {
+        List<String> records = new ArrayList<>();
+        boolean inside = false;
+        for (String line : export.split("\n")) {
+            JsonNode record = objectMapper.readTree(line);
+            if (record.get("type").asText().equals("map")) {
+                inside = record.get("id").asLong() == mapId;
+            }
+            if (inside) {
+                records.add(line);
+            }
+        }
+        return records;
+    }
+
+    // Everything but ids, with nodes and edges in a stable order
+    private static String describe(MapData mapData) {
+        StringBuilder text = new StringBuilder(mapData.getNorthAngle() + " " + mapData.getLatitude() + "\n");
+        mapData.getMatrices().stream()
+                .sorted(Comparator.comparing(NamedMatrix::getFloorNumber))
+                .forEach(f -> text.append(f.getFloorNumber()).append(" ").append(f.getName()).append(" ")
+                        .append(f.getGrid()).append(" ").append(f.getGrid().hashCode()).append("\n"));
+        mapData.getNodes().stream()
+                .sorted(Comparator.comparing(Node::getName))
+                .forEach(n -> text.append(n.getName()).append(" ").append(n.getBeaconId()).append(" ")
+                        .append(n.getFloorNumber()).append(" ").append(n.isExit()).append(n.isEntrance()).append(" ")
+                        .append(n.getX()).append(",").append(n.getY()).append(" ").append(Arrays.deepToString(n.getArea())).append("\n"));
+        mapData.getEdges().stream()
+                .map(e -> e.getFromNode().getName() + ">" + e.getToNode().getName() + " " + e.getWeight() + " " + e.getComment())
+                .sorted()
+                .forEach(e -> text.append(e).append("\n"));
+        return text.toString();
+    }
+
+    @Test
+    public void testExportImportsBackAsTheSameMap() throws Exception {
+        MapData original = createMap("Export Edificio");
+
+        MockHttpServletResponse response = export(null);
+
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("maps.ndjson"));
+        List<String> records = recordsOf(response.getContentAsString(StandardCharsets.UTF_8), original.getId());
+        List<String> types = new ArrayList<>();
+        for (String record : records) {
+            types.add(objectMapper.readTree(record).get("type").asText());
+        }
+        assertEquals(List.of("map", "floor", "floor", "node", "node", "node", "edge", "edge"), types);
+
+        MapImportProgressDTO imported = mapImportService.importMaps(
+                new ByteArrayInputStream(String.join("\n", records).getBytes(StandardCharsets.UTF_8)), progress -> {});
+        assertTrue(imported.isDone(), imported.getError());
+        createdMaps.addAll(imported.getMapIds());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            MapData before = mapDataService.getMapDataById(original.getId()).orElseThrow();
+            MapData after = mapDataService.getMapDataById(imported.getMapIds().get(0)).orElseThrow();
+            assertEquals(before.getName(), after.getName());
+            assertEquals(describe(before), describe(after));
+        });
+    }
+
+    @Test
+    public void testGzipWhenAccepted() throws Exception {
+        createMap("Export Comprimido");
+
+        String plain = export(null).getContentAsString(StandardCharsets.UTF_8);
+        MockHttpServletResponse response = export("gzip, deflate");
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(plain, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testExportsEveryMap() throws IOException {
+        // More maps than one page of ids
+        for (int i = 0; i < 101; i++) {
+            createMap("Export " + i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = mapExportService.exportMaps(out, false);
+
+        assertEquals(mapDataService.getMapDataSummaries().size(), count);
+        long mapRecords = out.toString(StandardCharsets.UTF_8).lines()
+                .filter(line -> line.startsWith("{\"type\":\"map\""))
+                .count();
+        assertEquals(count, mapRecords);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"Export 100\""));
+    }
+}
@@ -0,0 +1,365 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.dto.MapDataSummaryDTO;
+import es.gdapp.guidingApp.dto.MapImportProgressDTO;
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.transfer.MapImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: the import commits its own batches
+@SpringBootTest(properties = "guidingapp.import.max-size=1MB")
+@AutoConfigureMockMvc
+public class MapImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MapImportService mapImportService;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Long> createdMaps = new ArrayList<>();
+
+    @AfterEach
+    public void deleteCreatedMaps() {
+        createdMaps.forEach(mapDataService::deleteMapData);
+        createdMaps.clear();
+    }
+
+    private List<MapImportProgressDTO> postImport(String body) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/mapdata/import").secure(true)
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<MapImportProgressDTO> lines = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            lines.add(objectMapper.readValue(line, MapImportProgressDTO.class));
+        }
+        MapImportProgressDTO last = lines.get(lines.size() - 1);
+        if (last.getMapIds() != null) {
+            createdMaps.addAll(last.getMapIds());
+        }
+        return lines;
+    }
+
+    private MapImportProgressDTO importDirectly(String body, List<MapImportProgressDTO> progress) throws IOException {
+        MapImportProgressDTO result = mapImportService.importMaps(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                line -> progress.add(copyOf(line)));
+        createdMaps.addAll(result.getMapIds());
+        return result;
+    }
+
+    private MapImportProgressDTO copyOf(MapImportProgressDTO progress) {
+        return objectMapper.convertValue(progress, MapImportProgressDTO.class);
+    }
+
+    private boolean mapExists(String name) {
+        return mapDataService.getMapDataSummaries().stream().map(MapDataSummaryDTO::getName).anyMatch(name::equals);
+    }
+
+    @Test
+    public void testImportsNdjsonMaps() throws Exception {
+        String body = """
+                {"type":"map","name":"Import Aulario","northAngle":12.5,"latitude":40.33,"longitude":-3.87}
+                {"type":"floor","floorNumber":0,"name":"baja","rows":2,"columns":3,"cells":[[0,1,0],[1,1,7]]}
+                {"type":"floor","floorNumber":1,"name":"primera","cells":[[1,0],[0,0],[0,1]]}
+                {"type":"node","ref":"a","name":"Import Aula 1","beaconId":"imp-1","floorNumber":0,"x":0,"y":0,"entrance":true}
+                {"type":"node","ref":"b","name":"Import Escalera","floorNumber":0,"x":2,"y":1,"area":[[1,1],[2,1]]}
+                {"type":"node","ref":"c","name":"Import Aula 2","floorNumber":1,"x":1,"y":2,"exit":true}
+                {"type":"edge","from":"a","to":"b","weight":3,"comment":"pasillo"}
+                {"type":"edge","from":"b","to":"c","weight":10}
+                {"type":"map","name":"Import Biblioteca"}
+                {"type":"floor","floorNumber":0,"rows":4,"columns":4}
+                {"type":"node","ref":"a","name":"Import Sala"}
+                """;
+
+        List<MapImportProgressDTO> lines = postImport(body);
+
+        MapImportProgressDTO last = lines.get(lines.size() - 1);
+        assertTrue(last.isDone(), "Import should finish: " + last.getError());
+        assertNull(last.getError());
+        assertEquals(2, last.getMapIds().size());
+        assertEquals(11, last.getRecords());
+        assertEquals(3, last.getFloors());
+        assertEquals(4, last.getNodes());
+        assertEquals(2, last.getEdges());
+        assertEquals(6 + 6 + 16, last.getCells());
+        assertTrue(lines.size() >= 3, "Each finished map should report progress");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            MapData aulario = mapDataService.getMapDataById(last.getMapIds().get(0)).orElseThrow();
+            assertEquals("Import Aulario", aulario.getName());
+            assertEquals(12.5, aulario.getNorthAngle());
+            assertTrue(aulario.getVersion() > 0, "Imported maps should be announced as changed");
+            assertArrayEquals(new int[][]{{0, 1, 0}, {1, 1, 7}}, aulario.getMatrixByFloor(0).getMatrix());
+            assertArrayEquals(new int[][]{{1, 0}, {0, 0}, {0, 1}}, aulario.getMatrixByFloor(1).getMatrix());
+            assertEquals(3, aulario.getNodes().size());
+            Node stairs = aulario.getNodes().stream().filter(n -> n.getName().equals("Import Escalera")).findFirst().orElseThrow();
+            assertArrayEquals(new int[][]{{1, 1}, {2, 1}}, stairs.getArea());
+            assertEquals(List.of("Import Aula 1>Import Escalera:3", "Import Escalera>Import Aula 2:10"),
+                    aulario.getEdges().stream()
+                            .sorted((x, y) -> Long.compare(x.getId(), y.getId()))
+                            .map(e -> e.getFromNode().getName() + ">" + e.getToNode().getName() + ":" + e.getWeight())
+                            .toList());
+
+            MapData library = mapDataService.getMapDataById(last.getMapIds().get(1)).orElseThrow();
+            assertArrayEquals(new int[4][4], library.getMatrixByFloor(0).getMatrix());
+            assertEquals("Import Sala", library.getNodes().get(0).getName());
+        });
+    }
+
+    @Test
+    public void testCommitsLargeMapsInBatches() throws IOException {
+        StringBuilder body = new StringBuilder("[{\"type\":\"map\",\"name\":\"Import Pasillo\"},\n");
+        body.append("{\"type\":\"floor\",\"floorNumber\":0,\"rows\":1,\"columns\":1200}");
+        int nodes = 1200;
+        for (int i = 0; i < nodes; i++) {
+            body.append(",\n{\"type\":\"node\",\"ref\":\"n").append(i).append("\",\"name\":\"Import Punto ").append(i)
+                    .append("\",\"floorNumber\":0,\"x\":").append(i).append(",\"y\":0}");
+            if (i > 0) {
+                body.append(",\n{\"type\":\"edge\",\"from\":\"n").append(i - 1).append("\",\"to\":\"n").append(i)
+                        .append("\",\"weight\":1}");
+            }
+        }
+        body.append("]");
+        List<MapImportProgressDTO> progress = new ArrayList<>();
+
+        MapImportProgressDTO result = importDirectly(body.toString(), progress);
+
+        assertTrue(result.isDone(), "Import should finish: " + result.getError());
+        assertEquals(nodes, result.getNodes());
+        assertEquals(nodes - 1, result.getEdges());
+        assertTrue(progress.size() >= 4, "A map of 2400 records should be written in several batches");
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i).getRecords() >= progress.get(i - 1).getRecords());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            MapData mapData = mapDataService.getMapDataById(result.getMapIds().get(0)).orElseThrow();
+            assertEquals(nodes, mapData.getNodes().size());
+            assertEquals(nodes - 1, mapData.getEdges().size());
+            for (Edge edge : mapData.getEdges()) {
+                assertEquals(edge.getFromNode().getX() + 1, edge.getToNode().getX(), "Edges should link the nodes by ref");
+            }
+        });
+    }
+
+    @Test
+    public void testRejectedRecordKeepsFinishedMapsOnly() throws Exception {
+        String body = """
+                {"type":"map","name":"Import Completo"}
+                {"type":"node","ref":"a","name":"Import A"}
+                {"type":"map","name":"Import Incompleto"}
+                {"type":"node","ref":"a","name":"Import B"}
+                {"type":"edge","from":"a","to":"z"}
+                """;
+
+        List<MapImportProgressDTO> lines = postImport(body);
+
+        MapImportProgressDTO last = lines.get(lines.size() - 1);
+        assertFalse(last.isDone());
+        assertTrue(last.getError().startsWith("Record 5 (line 5)"), last.getError());
+        assertEquals(1, last.getMapIds().size());
+        assertTrue(mapExists("Import Completo"));
+        assertFalse(mapExists("Import Incompleto"), "The map being imported should be dropped");
+
+        List<MapImportProgressDTO> progress = new ArrayList<>();
+        for (String invalid : List.of(
+                "{\"type\":\"node\",\"name\":\"Import Huérfano\"}",
+                "{\"type\":\"map\",\"name\":\"Import Roto\"}\n{\"type\":\"floor\",\"floorNumber\":0,\"rows\":1,\"columns\":2,\"cells\":[[0,1,1]]}",
+                "{\"type\":\"map\",\"name\":\"Import Roto\"}\n{\"type\":\"floor\",\"floorNumber\":0,\"rows\":1,\"columns\":1}\n{\"type\":\"floor\",\"floorNumber\":0,\"rows\":1,\"columns\":1}",
+                "{\"type\":\"map\",\"name\":\"Import Roto\"}\n{\"type\":\"node\",",
+                "{\"type\":\"planta\"}",
+                // Oversized floors are refused before their grid is allocated
+                "{\"type\":\"map\",\"name\":\"Import Roto\"}\n{\"type\":\"floor\",\"floorNumber\":0,\"rows\":70000,\"columns\":70000}",
+                "{\"type\":\"map\",\"name\":\"Import Roto\"}\n{\"type\":\"floor\",\"floorNumber\":0,\"rows\":5000,\"columns\":5000,\"cells\":[]}",
+                "{\"type\":\"map\",\"name\":\"Import Roto\"}\n{\"type\":\"floor\",\"floorNumber\":0,\"cells\":[[" + "0,".repeat(9000) + "0]]}")) {
+            MapImportProgressDTO result = importDirectly(invalid, progress);
+            assertFalse(result.isDone(), invalid);
+            assertNotNull(result.getError(), invalid);
+            assertTrue(result.getMapIds().isEmpty(), invalid);
+        }
+        assertFalse(mapExists("Import Roto"));
+    }
+
+    @Test
+    public void testImportNeedsAnAdministrator() throws Exception {
+        String body = "{\"type\":\"map\",\"name\":\"Import Anónimo\"}";
+        mockMvc.perform(post("/api/mapdata/import").secure(true)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/mapdata/import").secure(true)
+                        .with(user("visitante").roles("USER"))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isForbidden());
+        assertFalse(mapExists("Import Anónimo"));
+    }
+
+    @Test
+    public void testRejectsImportsOverTheSizeLimit() throws Exception {
+        // Over the 1MB limit this class runs with
+        String padding = " ".repeat(2 << 20);
+        String body = "{\"type\":\"map\",\"name\":\"Import Enorme\"}" + padding;
+        mockMvc.perform(post("/api/mapdata/import").secure(true)
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isPayloadTooLarge());
+
+        // A few KB compressed, but over the limit once decompressed
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        MvcResult result = mockMvc.perform(post("/api/mapdata/import").secure(true)
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(compressed.toByteArray()))
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPayloadTooLarge())
+                .andReturn().getResponse().getContentAsString();
+        MapImportProgressDTO last = objectMapper.readValue(response.strip(), MapImportProgressDTO.class);
+        assertFalse(last.isDone());
+        assertEquals("Input is larger than 1048576 bytes", last.getError());
+        assertTrue(last.getMapIds().isEmpty());
+        assertFalse(mapExists("Import Enorme"), "The map being imported should be dropped");
+    }
+
+    @Test
+    public void testFailedStreamDropsMapBeingImported() {
+        StringBuilder body = new StringBuilder("{\"type\":\"map\",\"name\":\"Import Cortado\"}\n");
+        // More nodes than a batch, so part of the map is already committed when the stream breaks
+        for (int i = 0; i < 1200; i++) {
+            body.append("{\"type\":\"node\",\"name\":\"Import Cortado ").append(i).append("\"}\n");
+        }
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        InputStream in = new SequenceInputStream(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), broken);
+
+        IOException e = assertThrows(IOException.class, () -> mapImportService.importMaps(in, line -> { }));
+        assertEquals("Connection reset", e.getMessage());
+        assertFalse(mapExists("Import Cortado"), "The map being imported should be dropped");
+    }
+
+    // Run with -Dbenchmark=true: imports 20 buildings with two 2000x2000 floors and 5000
+    // nodes each (about 340 MB of NDJSON) from a generated stream, sampling the heap as it
+    // goes; everything must arrive, within whatever -Xmx the tests run with
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkLargeImport() throws IOException {
+        int buildings = 20;
+        int side = 2000;
+        int nodes = 5000;
+        StringBuilder row = new StringBuilder("[");
+        for (int j = 0; j < side; j++) {
+            row.append(j % 50 == 0 ? "1" : "0").append(j + 1 < side ? "," : "]");
+        }
+        byte[] rowBytes = row.toString().getBytes(StandardCharsets.UTF_8);
+        int floorSteps = 2 * (side + 1);  // Per floor: its header, then one step per row
+        int buildingSteps = 1 + floorSteps + nodes;
+        Enumeration<InputStream> records = new Enumeration<>() {
+            private long step;
+
+            @Override
+            public boolean hasMoreElements() {
+                return step < (long) buildings * buildingSteps;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int building = (int) (step / buildingSteps);
+                int s = (int) (step++ % buildingSteps);
+                if (s == 0) {
+                    return stream("{\"type\":\"map\",\"name\":\"Import Benchmark " + building + "\"}\n");
+                }
+                if (s <= floorSteps) {
+                    int floor = (s - 1) / (side + 1);
+                    int r = (s - 1) % (side + 1);
+                    if (r == 0) {
+                        return stream("{\"type\":\"floor\",\"floorNumber\":" + floor + ",\"rows\":" + side
+                                + ",\"columns\":" + side + ",\"cells\":[");
+                    }
+                    return new SequenceInputStream(new ByteArrayInputStream(rowBytes), stream(r < side ? "," : "]}\n"));
+                }
+                int i = s - 1 - floorSteps;
+                return stream("{\"type\":\"node\",\"ref\":\"" + i + "\",\"name\":\"Punto " + i
+                        + "\",\"floorNumber\":0,\"x\":" + i % side + ",\"y\":" + i / side + "}\n"
+                        + (i > 0 ? "{\"type\":\"edge\",\"from\":\"" + (i - 1) + "\",\"to\":\"" + i + "\",\"weight\":1}\n" : ""));
+            }
+        };
+        Runtime runtime = Runtime.getRuntime();
+        long[] peak = {0};
+        long start = System.nanoTime();
+
+        MapImportProgressDTO result = mapImportService.importMaps(new SequenceInputStream(records),
+                progress -> peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory()));
+        createdMaps.addAll(result.getMapIds());
+
+        System.out.printf("Imported %d maps, %,d cells, %,d nodes, %,d edges in %.1f s; peak heap seen %d MB (max %d MB)%n",
+                result.getMaps(), result.getCells(), result.getNodes(), result.getEdges(),
+                (System.nanoTime() - start) / 1e9, peak[0] >> 20, runtime.maxMemory() >> 20);
+        assertTrue(result.isDone(), result.getError());
+        assertEquals(buildings, result.getMaps());
+        assertEquals((long) buildings * 2 * side * side, result.getCells());
+        assertEquals((long) buildings * nodes, result.getNodes());
+        assertEquals((long) buildings * (nodes - 1), result.getEdges());
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
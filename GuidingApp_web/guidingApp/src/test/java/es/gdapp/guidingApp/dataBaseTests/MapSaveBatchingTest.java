@@ -0,0 +1,83 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.monitoring.SqlStatementCounter;
+import es.gdapp.guidingApp.services.MapDataService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the save has to be flushed and committed to be measured
+@SpringBootTest
+public class MapSaveBatchingTest {
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    // nodes spread over floors of 100x100 cells, each linked to the next edgesPerNode nodes
+    private static MapData buildMap(String name, int floors, int nodes, int edgesPerNode) {
+        MapData mapData = new MapData(name, 0.0, 40.335722, -3.876528, "floor 0", 100, 100);
+        for (int floor = 1; floor < floors; floor++) {
+            mapData.putMatrix(floor, "floor " + floor, new int[100][100]);
+        }
+        List<Node> nodeList = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            nodeList.add(new Node(name + " " + i, name + "-" + i, i % floors, false, false,
+                    i % 100, (i / 100) % 100, null, mapData));
+        }
+        List<Edge> edgeList = new ArrayList<>(nodes * edgesPerNode);
+        for (int i = 0; i < nodes; i++) {
+            for (int k = 1; k <= edgesPerNode; k++) {
+                edgeList.add(new Edge(nodeList.get(i), nodeList.get((i + k) % nodes), k, "", mapData));
+            }
+        }
+        mapData.setNodes(nodeList);
+        mapData.setEdges(edgeList);
+        return mapData;
+    }
+
+    @Test
+    public void testLargeSaveIsBatched() {
+        MapData mapData = buildMap("Batched Map", 2, 500, 2);
+        Long id = null;
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            id = mapDataService.saveMapData(mapData).getId();
+            // 1 map, 2 floors, 500 nodes, 1000 edges and their change log entries
+            assertTrue(scope.getCount() < 100, "Saving 1503 rows ran " + scope.getCount() + " statements");
+        } finally {
+            if (id != null) {
+                mapDataService.deleteMapData(id);
+            }
+        }
+    }
+
+    // Save time of a 10k node, 50k edge map, which must stay batched. Run with -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkLargeSave() {
+        for (int round = 0; round < 6; round++) {  // The first rounds warm up the JIT
+            MapData mapData = buildMap("Benchmark Map " + round, 10, 10_000, 5);
+            long start = System.nanoTime();
+            Long id;
+            int statements;
+            try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+                id = mapDataService.saveMapData(mapData).getId();
+                statements = scope.getCount();
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("Save of 10,000 nodes and 50,000 edges: %.0f ms, %,d statements%n",
+                    nanos / 1e6, statements);
+            mapDataService.deleteMapData(id);
+            // About 120k rows with their change log entries, in batches of 100
+            assertTrue(statements < 2_000, "Saving 120k rows ran " + statements + " statements");
+        }
+    }
+}
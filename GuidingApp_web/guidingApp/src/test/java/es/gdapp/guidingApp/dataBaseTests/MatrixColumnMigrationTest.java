@@ -0,0 +1,70 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.gdapp.guidingApp.converters.GridMatrixConverter;
+import es.gdapp.guidingApp.models.GridMatrix;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.services.MatrixColumnMigration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the migration alters the table, which commits on MySQL
+@SpringBootTest
+public class MatrixColumnMigrationTest {
+
+    private static final int FLOORS = 45;  // Over two pages of the migration
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long mapDataId;
+
+    @AfterEach
+    public void deleteMap() {
+        if (mapDataId != null) {
+            mapDataService.deleteMapData(mapDataId);
+        }
+    }
+
+    private static int[][] floor(int number) {
+        int[][] cells = new int[3][4];
+        cells[number % 3][number % 4] = 1;
+        cells[2][3] = number;
+        return cells;
+    }
+
+    @Test
+    public void testRewritesEveryLegacyFloor() throws Exception {
+        MapData mapData = new MapData("Legacy Map", 0.0, 40.335722, -3.876528, "floor 0", 3, 4);
+        for (int f = 0; f < FLOORS; f++) {
+            mapData.putMatrix(f, "floor " + f, floor(f));
+        }
+        mapDataId = mapDataService.saveMapData(mapData).getId();
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int f = 0; f < FLOORS; f++) {
+            jdbcTemplate.update("UPDATE map_data_matrices SET matrix = ? WHERE map_data_id = ? AND floor_number = ?",
+                    objectMapper.writeValueAsBytes(floor(f)), mapDataId, f);
+        }
+
+        new MatrixColumnMigration(jdbcTemplate).run(null);
+
+        List<byte[]> stored = jdbcTemplate.queryForList(
+                "SELECT matrix FROM map_data_matrices WHERE map_data_id = ? ORDER BY floor_number", byte[].class, mapDataId);
+        assertEquals(FLOORS, stored.size());
+        for (int f = 0; f < FLOORS; f++) {
+            assertFalse(GridMatrixConverter.isLegacyJson(stored.get(f)), "Floor " + f + " should be packed");
+            assertArrayEquals(floor(f), GridMatrix.fromBytes(stored.get(f)).toArray(), "Floor " + f);
+        }
+    }
+}
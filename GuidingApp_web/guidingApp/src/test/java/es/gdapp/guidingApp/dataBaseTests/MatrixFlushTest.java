@@ -0,0 +1,143 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.converters.GridMatrixConverter;
+import es.gdapp.guidingApp.converters.IntArrayConverter;
+import es.gdapp.guidingApp.mappers.DataMapper;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.spy;
+
+@SpringBootTest
+@Transactional
+public class MatrixFlushTest {
+
+    // Hibernate creates its attribute converters through Spring's bean factory, so a bean
+    // post-processor can hand it Mockito spies that record every conversion
+    @TestConfiguration
+    static class ConverterSpies {
+
+        @Bean
+        static ConverterSpyPostProcessor converterSpyPostProcessor() {
+            return new ConverterSpyPostProcessor();
+        }
+    }
+
+    static class ConverterSpyPostProcessor implements BeanPostProcessor {
+
+        private final List<Object> spies = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof GridMatrixConverter || bean instanceof IntArrayConverter) {
+                Object spy = spy(bean);
+                spies.add(spy);
+                return spy;
+            }
+            return bean;
+        }
+
+        // Calls of the named method on every spied converter of the given type
+        long calls(Class<?> converter, String method) {
+            return spies.stream()
+                    .filter(converter::isInstance)
+                    .flatMap(spy -> mockingDetails(spy).getInvocations().stream())
+                    .filter(invocation -> invocation.getMethod().getName().equals(method))
+                    .count();
+        }
+    }
+
+    @Autowired
+    private ConverterSpyPostProcessor converters;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private DataMapper dataMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long createMap() {
+        MapData mapData = new MapData("Flush Test Map", 0.0, 40.335722, -3.876528, "ground", 200, 200);
+        mapData.putMatrix(1, "first", new int[200][200]);
+        Node node = new Node("Hall", "flush-beacon", 0, false, false, 1, 1,
+                new int[][]{{0, 0}, {2, 0}, {2, 2}, {0, 2}}, mapData);
+        mapData.setNodes(new ArrayList<>(List.of(node)));
+        Long id = mapDataService.saveMapData(mapData).getId();
+        entityManager.flush();
+        entityManager.clear();
+        return id;
+    }
+
+    @Test
+    public void testReadOnlyRequestDoesNotReserializeMatrices() {
+        Long id = createMap();
+        long gridWrites = converters.calls(GridMatrixConverter.class, "convertToDatabaseColumn");
+        long gridReads = converters.calls(GridMatrixConverter.class, "convertToEntityAttribute");
+        long areaWrites = converters.calls(IntArrayConverter.class, "convertToDatabaseColumn");
+
+        // Same work as GET /api/mapdata/{id}, followed by the flush that ends the request
+        MapData loaded = mapDataService.getMapDataById(id).orElseThrow();
+        dataMapper.toMapDataDTO(loaded);
+        entityManager.flush();
+
+        assertEquals(2, converters.calls(GridMatrixConverter.class, "convertToEntityAttribute") - gridReads,
+                "Each floor should be decoded once");
+        assertEquals(0, converters.calls(GridMatrixConverter.class, "convertToDatabaseColumn") - gridWrites,
+                "Dirty checking must not encode unchanged floors");
+        assertEquals(0, converters.calls(IntArrayConverter.class, "convertToDatabaseColumn") - areaWrites,
+                "Dirty checking must not encode unchanged node areas");
+    }
+
+    @Test
+    public void testEditedMatrixIsWritten() {
+        Long id = createMap();
+        MapData loaded = mapDataService.getMapDataById(id).orElseThrow();
+        long gridWrites = converters.calls(GridMatrixConverter.class, "convertToDatabaseColumn");
+
+        loaded.connectCoordinates(List.of(List.of(1, 1), List.of(5, 1)), 1, 0);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(converters.calls(GridMatrixConverter.class, "convertToDatabaseColumn") > gridWrites,
+                "The edited floor should be written");
+        MapData reloaded = mapDataService.getMapDataById(id).orElseThrow();
+        assertEquals(1, reloaded.getMatrixByFloor(0).getGrid().get(198, 3), "The edit should be persisted");
+    }
+
+    @Test
+    public void testNodeAreasCannotBeEditedInPlace() {
+        Long id = createMap();
+        Node node = mapDataService.getMapDataById(id).orElseThrow().getNodes().get(0);
+
+        // The area Hibernate compares against is never handed out, so an in-place edit is
+        // neither seen by the node nor silently lost on flush
+        node.getArea()[0][0] = 9;
+        assertEquals(0, node.getArea()[0][0]);
+        int[][] area = {{1, 1}, {3, 1}, {3, 3}, {1, 3}};
+        node.setArea(area);
+        area[0][0] = 9;
+        entityManager.flush();
+        entityManager.clear();
+
+        Node reloaded = mapDataService.getMapDataById(id).orElseThrow().getNodes().get(0);
+        assertArrayEquals(new int[][]{{1, 1}, {3, 1}, {3, 3}, {1, 3}}, reloaded.getArea());
+    }
+}
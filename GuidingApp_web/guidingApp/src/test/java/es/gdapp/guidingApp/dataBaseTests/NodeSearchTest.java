@@ -0,0 +1,231 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.dto.MapDataSummaryDTO;
+import es.gdapp.guidingApp.dto.NodeSearchHitDTO;
+import es.gdapp.guidingApp.dto.NodeSearchResponseDTO;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.repositories.NodeRepository;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.services.NodeService;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Not @Transactional: the search index follows committed changes only
+@SpringBootTest
+public class NodeSearchTest {
+
+    @Autowired
+    private NodeService nodeService;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @MockitoSpyBean
+    private NodeRepository nodeRepository;
+
+    private final List<Long> createdMaps = new ArrayList<>();
+
+    @AfterEach
+    public void deleteCreatedMaps() {
+        createdMaps.forEach(mapDataService::deleteMapData);
+        createdMaps.clear();
+    }
+
+    private MapData createMap(String name, String... nodeNames) {
+        MapData mapData = new MapData(name, 0.0, 40.335722, -3.876528, "ground", 4, 4);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeNames.length; i++) {
+            nodes.add(new Node(nodeNames[i], null, 0, false, false, i, i, null, mapData));
+        }
+        mapData.setNodes(nodes);
+        MapData saved = mapDataService.saveMapData(mapData);
+        createdMaps.add(saved.getId());
+        return saved;
+    }
+
+    private static List<String> names(NodeSearchResponseDTO response) {
+        return response.getResults().stream().map(r -> r.getNode().getName() + ":" + r.getScore()).toList();
+    }
+
+    private NodeSearchResponseDTO search(String query, int limit) {
+        return nodeService.searchByText(query, limit);
+    }
+
+    private record Scored(Node node, int score) {
+    }
+
+    // The LIKE search over the database that the index replaced: nodes whose name or map name
+    // contain a keyword, one point per keyword and name matched, best first and then by id
+    private List<String> searchInDatabase(String query, int limit) {
+        List<String> keywords = List.of(query.trim().toLowerCase(Locale.ROOT).split("\\s+"));
+        Specification<Node> matches = (root, criteria, cb) -> {
+            root.fetch("mapData", JoinType.LEFT);
+            criteria.distinct(true);
+            Join<Node, MapData> map = root.join("mapData", JoinType.LEFT);
+            return cb.or(keywords.stream()
+                    .map(keyword -> cb.or(
+                            cb.like(cb.lower(root.get("name")), "%" + keyword + "%"),
+                            cb.like(cb.lower(map.get("name")), "%" + keyword + "%")))
+                    .toArray(Predicate[]::new));
+        };
+        return nodeRepository.findAll(matches).stream()
+                .map(node -> {
+                    String nodeName = node.getName() != null ? node.getName().toLowerCase(Locale.ROOT) : "";
+                    String mapName = node.getMapData() != null && node.getMapData().getName() != null
+                            ? node.getMapData().getName().toLowerCase(Locale.ROOT) : "";
+                    int score = 0;
+                    for (String keyword : keywords) {
+                        if (nodeName.contains(keyword)) score++;
+                        if (mapName.contains(keyword)) score++;
+                    }
+                    return new Scored(node, score);
+                })
+                .sorted(Comparator.comparingInt(Scored::score).reversed()
+                        .thenComparing(scored -> scored.node().getId()))
+                .limit(limit)
+                .map(scored -> scored.node().getName() + ":" + scored.score())
+                .toList();
+    }
+
+    @Test
+    public void testIndexMatchesDatabaseSearchAndFollowsChanges() {
+        createMap("Zyxwv Aulario", "Zyxwv Aula 1", "Zyxwv Aula 2", "Conserjería");
+        MapData library = createMap("Zyxwv Biblioteca", "Sala de lectura", "Zyxwv Aula Magna");
+
+        for (String query : List.of("zyxwv", "zyxwv aula", "ZYXWV biblioteca sala", "lectura")) {
+            assertEquals(searchInDatabase(query, 10),
+                    names(search(query, 10)), "Results for '" + query + "'");
+        }
+
+        Node added = nodeService.saveNode(new Node("Zyxwv Cafetería", null, 0, false, false, 1, 1, null, library));
+        assertEquals(List.of("Zyxwv Cafetería:3"), names(search("zyxwv cafetería", 1)));
+
+        Node renamed = nodeService.getNodeById(added.getId()).orElseThrow();
+        renamed.setName("Zyxwv Comedor");
+        nodeService.updateNode(renamed.getId(), renamed);
+        assertTrue(search("cafetería", 10).getResults().isEmpty(), "Old names must leave the index");
+
+        mapDataService.deleteMapData(library.getId());
+        createdMaps.remove(library.getId());
+        assertTrue(search("lectura", 10).getResults().isEmpty(), "Nodes of deleted maps must leave the index");
+        assertEquals(3, search("zyxwv", 10).getResults().size());
+    }
+
+    @Test
+    public void testResultsShareOneSummaryPerMap() {
+        MapData aulario = createMap("Aulario", "Qwpl 1", "Qwpl 2", "Qwpl 3");
+        MapData library = createMap("Biblioteca", "Qwpl Magna");
+
+        NodeSearchResponseDTO response = search("qwpl", 10);
+
+        assertEquals(4, response.getResults().size());
+        assertEquals(List.of(aulario.getId(), library.getId()),
+                response.getMaps().stream().map(MapDataSummaryDTO::getId).toList(),
+                "Each map should be summarised once");
+        assertEquals(3, response.getMaps().get(0).getNodeCount());
+        for (NodeSearchHitDTO hit : response.getResults()) {
+            assertNotNull(hit.getMapDataId());
+            assertEquals(1, hit.getScore());
+        }
+    }
+
+    @Test
+    public void testSuggestionsFollowChanges() {
+        MapData map = createMap("Qwplario", "Kwartier 203");
+
+        assertEquals("Kwartier 203, Qwplario", nodeService.suggest("kwartir 203", 5).get(0).getText());
+        assertEquals("MAP", nodeService.suggest("qwplari", 5).get(0).getType());
+
+        Node node = nodeService.getNodeById(map.getNodes().get(0).getId()).orElseThrow();
+        node.setName("Laboratorio 7");
+        nodeService.updateNode(node.getId(), node);
+        assertTrue(nodeService.suggest("kwartier 203", 5).isEmpty(), "Renamed nodes must leave the suggestions");
+        assertEquals(node.getId(), nodeService.suggest("qwplario laboratrio 7", 5).get(0).getId());
+    }
+
+    @Test
+    public void testNodeSavesOnlyReindexThatNode() {
+        MapData map = createMap("Qwzx Aulario", "Qwzx Aula 1", "Qwzx Aula 2");
+        assertEquals(2, search("qwzx", 10).getResults().size());
+        clearInvocations(nodeRepository);
+
+        Node added = nodeService.saveNode(new Node("Qwzx Aula 3", null, 0, false, false, 2, 2, null, map));
+        nodeService.deleteNode(map.getNodes().get(0).getId());
+
+        verify(nodeRepository, never()).findNameViewsByMapDataId(anyLong());
+        assertEquals(List.of("Qwzx Aula 2:2", "Qwzx Aula 3:2"), names(search("qwzx", 10)));
+        assertEquals(added.getId(), search("aula 3", 1).getResults().get(0).getNode().getId());
+    }
+
+    @Test
+    public void testMapSavesReindexTheirNodesInOneQuery() {
+        MapData map = createMap("Qwzy Aulario", "Qwzy Aula 1", "Qwzy Aula 2");
+        assertEquals(2, search("qwzy", 10).getResults().size());
+        clearInvocations(nodeRepository);
+
+        map.getNodes().get(0).setName("Qwzy Aula 9");
+        for (int i = 3; i <= 5; i++) {
+            map.getNodes().add(new Node("Qwzy Aula " + i, null, 0, false, false, i, i, null, map));
+        }
+        mapDataService.saveMapData(map);
+
+        verify(nodeRepository, times(1)).findNameViewsByIdIn(anyCollection());
+        verify(nodeRepository, never()).findNameViewById(anyLong());
+        verify(nodeRepository, never()).findNameViewsByMapDataId(anyLong());
+        assertEquals(List.of("Qwzy Aula 2:2", "Qwzy Aula 3:2", "Qwzy Aula 4:2", "Qwzy Aula 5:2", "Qwzy Aula 9:2"),
+                names(search("qwzy", 10)).stream().sorted().toList());
+    }
+
+    // Run with -Dbenchmark=true: both search paths over 100k nodes must agree; prints their
+    // times. The index alone is measured by TextSearchBenchmark in guidingApp-benchmarks
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkIndexAgainstDatabaseSearch() {
+        String[] words = {"aula", "laboratorio", "despacho", "sala", "baño", "seminario", "cafetería", "almacén"};
+        for (int m = 0; m < 100; m++) {
+            String[] nodeNames = new String[1000];
+            for (int i = 0; i < nodeNames.length; i++) {
+                nodeNames[i] = words[(m + i) % words.length] + " " + m + "." + i;
+            }
+            createMap("Benchmark building " + m, nodeNames);
+        }
+        List<String> queries = List.of("aula", "sala 7", "building 42", "seminario 13.5", "xyz");
+        for (int round = 0; round < 3; round++) {
+            long database = 0;
+            long index = 0;
+            for (String query : queries) {
+                long start = System.nanoTime();
+                List<String> expected = searchInDatabase(query, 10);
+                database += System.nanoTime() - start;
+                start = System.nanoTime();
+                List<String> actual = names(search(query, 10));
+                index += System.nanoTime() - start;
+                assertEquals(expected, actual, "Results for '" + query + "'");
+            }
+            System.out.printf("Round %d, %d queries over 100k nodes: database %.1f ms, index %.1f ms%n",
+                    round, queries.size(), database / 1e6, index / 1e6);
+        }
+    }
+}
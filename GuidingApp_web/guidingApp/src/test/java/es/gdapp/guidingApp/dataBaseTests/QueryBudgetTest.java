@@ -0,0 +1,128 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.models.Edge;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.monitoring.SqlStatementCountFilter;
+import es.gdapp.guidingApp.services.MapDataService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Statements per request with the second-level cache emptied first, i.e. the worst case.
+// Not @Transactional, so each request loads through its own session as in production
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+public class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long smallMap;
+    private Long largeMap;
+
+    // A corridor of nodes spread over the given floors, each linked to the next
+    private Long createMap(String name, int floors, int nodesPerFloor) {
+        MapData mapData = new MapData(name, 0.0, 40.335722, -3.876528, "floor 0", 20, 20);
+        for (int floor = 1; floor < floors; floor++) {
+            mapData.putMatrix(floor, "floor " + floor, new int[20][20]);
+        }
+        List<Node> nodes = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        for (int floor = 0; floor < floors; floor++) {
+            for (int i = 0; i < nodesPerFloor; i++) {
+                Node node = new Node(name + " " + floor + "-" + i, name + "-beacon-" + floor + "-" + i,
+                        floor, i == 0, i == 1, i, i, new int[][]{{i, i}}, mapData);
+                if (!nodes.isEmpty()) {
+                    edges.add(new Edge(nodes.get(nodes.size() - 1), node, 1, "", mapData));
+                }
+                nodes.add(node);
+            }
+        }
+        mapData.setNodes(nodes);
+        mapData.setEdges(edges);
+        return mapDataService.saveMapData(mapData).getId();
+    }
+
+    @BeforeEach
+    public void createMaps() {
+        smallMap = createMap("Budget Small", 1, 2);
+        largeMap = createMap("Budget Large", 3, 40);
+    }
+
+    @AfterEach
+    public void deleteMaps() {
+        mapDataService.deleteMapData(smallMap);
+        mapDataService.deleteMapData(largeMap);
+    }
+
+    private int statements(MockHttpServletRequestBuilder request) throws Exception {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        String count = mockMvc.perform(request.secure(true))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getHeader(SqlStatementCountFilter.HEADER);
+        assertNotNull(count, "The dev profile should report the statement count");
+        return Integer.parseInt(count);
+    }
+
+    private void assertBudget(int maxStatements, String url) throws Exception {
+        int count = statements(get(url));
+        assertTrue(count <= maxStatements, url + " ran " + count + " statements, budget " + maxStatements);
+    }
+
+    @Test
+    public void testMapsLoadInFixedNumberOfQueries() throws Exception {
+        // Version, map, floors, nodes and edges (with their end nodes), whatever the map size
+        int small = statements(get("/api/mapdata/" + smallMap));
+        int large = statements(get("/api/mapdata/" + largeMap));
+        assertEquals(small, large, "A map with 120 nodes should cost as much as one with 2");
+        assertTrue(large <= 5, "Got " + large);
+
+        // Every map at once: the collections of all maps are loaded together
+        assertBudget(4, "/api/mapdata");
+        assertBudget(6, "/api/nodes/Budget Large-beacon-0-0/mapdata");
+        assertBudget(5, "/api/mapdata/" + largeMap + "?fields=nodes,edges");
+        assertBudget(2, "/api/mapdata/summary");
+        assertBudget(3, "/api/mapdata?limit=1");
+        assertBudget(6, "/api/mapdata/" + largeMap + "/changes?since=0");
+    }
+
+    @Test
+    public void testNodeEndpointsStayWithinBudget() throws Exception {
+        assertBudget(1, "/api/nodes");
+        assertBudget(1, "/api/nodes?limit=50&mapDataId=" + largeMap + "&floor=1&exit=false");
+        assertBudget(2, "/api/nodes/beacon/Budget Large-beacon-2-5");
+        assertBudget(1, "/api/nodes/exits/" + largeMap);
+        assertBudget(1, "/api/nodes/entrance/" + largeMap);
+        assertBudget(5, "/api/nodes/search?q=budget");
+    }
+
+    @Test
+    public void testFloorAndRouteEndpointsStayWithinBudget() throws Exception {
+        assertBudget(2, "/api/mapdata/" + largeMap + "/floors/1/tiles");
+        assertBudget(2, "/api/route?map=" + largeMap + "&floor=1&from=0,0&to=5,5");
+        assertBudget(4, "/api/mapdata/" + largeMap + "/route/stats");
+    }
+}
@@ -0,0 +1,205 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.GuidingAppApplication;
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput and p99 latency of {@code /api/nodes/beacon/{id}} and {@code /api/mapdata/{id}}
+ * with requests on Tomcat's platform thread pool and on virtual threads, at growing numbers
+ * of concurrent clients. Each mode starts its own application on a random port; clients are
+ * platform threads sending one request after another over HTTPS, trusting the self-signed
+ * development certificate. Being platform threads, they never queue on the virtual-thread
+ * scheduler of the server they measure. Throughput and p99 count answered requests only, and the run
+ * fails if any request failed or timed out: the numbers of an overloaded host are not a
+ * measurement.
+ *
+ * <p>Run with {@code -Dbenchmark=true}; {@code -Dbenchmark.clients=1000,5000,10000} and
+ * {@code -Dbenchmark.seconds=10} change the load. Each client holds a socket, so the open
+ * file limit must be above twice the largest client count. The clients share the host with
+ * the server, so it needs spare cores: on a single core, thousands of client threads starve
+ * the one carrier thread that runs every virtual request thread.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RequestThreadsBenchmarkTest {
+
+    private static final int BEACONS = 200;
+
+    @Test
+    public void benchmarkPlatformAgainstVirtualThreads() throws Exception {
+        int[] clientCounts = Arrays.stream(System.getProperty("benchmark.clients", "1000,5000,10000").split(","))
+                .mapToInt(c -> Integer.parseInt(c.trim()))
+                .toArray();
+        Duration duration = Duration.ofSeconds(Long.getLong("benchmark.seconds", 10));
+        int maxClients = Arrays.stream(clientCounts).max().orElseThrow();
+        // The development certificate is not issued for localhost
+        System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+
+        List<String> failures = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtual, maxClients)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                long mapId = seed(context.getBean(MapDataService.class));
+                List<String> paths = new ArrayList<>();
+                for (int i = 0; i < BEACONS; i++) {
+                    paths.add("/api/nodes/beacon/bench-" + i);
+                }
+                // Warm up caches and JIT before measuring
+                run(port, List.of(paths.get(0), "/api/mapdata/" + mapId), 200, Duration.ofSeconds(3));
+                for (int clients : clientCounts) {
+                    Result beacon = run(port, paths, clients, duration);
+                    Result map = run(port, List.of("/api/mapdata/" + mapId), clients, duration);
+                    System.out.printf("%s threads, %,6d clients: beacon %,8.0f req/s p99 %6.1f ms (%d errors), "
+                                    + "map %,8.0f req/s p99 %6.1f ms (%d errors)%n",
+                            virtual ? "virtual " : "platform", clients,
+                            beacon.throughput(), beacon.p99Millis(), beacon.errors(),
+                            map.throughput(), map.p99Millis(), map.errors());
+                    if (beacon.errors() + map.errors() > 0) {
+                        failures.add(String.format("%s threads, %d clients: %d beacon and %d map requests failed",
+                                virtual ? "virtual" : "platform", clients, beacon.errors(), map.errors()));
+                    }
+                }
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("; ", failures));
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual, int maxClients) {
+        // As arguments, so they win over any application.properties on the classpath
+        return new SpringApplicationBuilder(GuidingAppApplication.class).run(
+                "--server.port=0",
+                "--http.port=0",
+                "--server.ssl.enabled=true",
+                "--server.ssl.key-store=classpath:keystore.p12",
+                "--server.ssl.key-store-password=changeit",
+                "--server.ssl.key-store-type=PKCS12",
+                "--spring.threads.virtual.enabled=" + virtual,
+                // Let every client hold a connection in both modes; only the threads differ
+                "--server.tomcat.max-connections=" + (maxClients + 1000),
+                "--server.tomcat.accept-count=" + maxClients,
+                "--logging.level.org.springframework.web=INFO",
+                "--logging.level.org.hibernate.SQL=INFO",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO");
+    }
+
+    private static long seed(MapDataService mapDataService) {
+        MapData mapData = new MapData("Benchmark Building", 0.0, 40.335722, -3.876528, "baja", 40, 40);
+        mapData.putMatrix(1, "primera", new int[40][40]);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < BEACONS; i++) {
+            nodes.add(new Node("Benchmark " + i, "bench-" + i, i % 2, false, i == 0, i % 40, i / 40, null, mapData));
+        }
+        mapData.setNodes(nodes);
+        return mapDataService.saveMapData(mapData).getId();
+    }
+
+    private static SSLContext trustAll() throws Exception {
+        TrustManager trustAll = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[]{trustAll}, new SecureRandom());
+        return context;
+    }
+
+    private record Result(long requests, long errors, double throughput, double p99Millis) {
+    }
+
+    // Each client sends requests back to back, cycling through the paths, until the time is up
+    private static Result run(int port, List<String> paths, int clients, Duration duration) throws Exception {
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> latencies = new ArrayList<>();
+        try (HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .sslContext(trustAll())
+                .build();
+             // Small stacks: there is one thread per client
+             ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                     Thread.ofPlatform().stackSize(256 * 1024).factory())) {
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                latencies.add(executor.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    for (int i = offset; System.nanoTime() < deadline; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(
+                                        URI.create("https://localhost:" + port + paths.get(i % paths.size())))
+                                .timeout(Duration.ofSeconds(30))
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                errors.increment();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                            continue;
+                        }
+                        // Only answered requests count towards throughput and latency
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            List<long[]> perClient = new ArrayList<>();
+            for (Future<long[]> client : latencies) {
+                perClient.add(client.get());
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long[] all = new long[perClient.stream().mapToInt(samples -> samples.length).sum()];
+            int length = 0;
+            for (long[] samples : perClient) {
+                System.arraycopy(samples, 0, all, length, samples.length);
+                length += samples.length;
+            }
+            Arrays.sort(all);
+            double p99 = all.length == 0 ? 0 : all[(int) Math.min(all.length - 1, Math.ceil(all.length * 0.99) - 1)] / 1e6;
+            return new Result(all.length, errors.sum(), all.length / seconds, p99);
+        }
+    }
+}
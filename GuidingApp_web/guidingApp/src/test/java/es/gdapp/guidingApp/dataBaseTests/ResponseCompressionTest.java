@@ -0,0 +1,100 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compression is applied by Tomcat's connector, which MockMvc does not go through, so these
+ * requests go over HTTPS to the running server (trusting the self-signed development
+ * certificate).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "http.port=0")
+public class ResponseCompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    private Long mapId;
+
+    @AfterEach
+    public void deleteMap() {
+        if (mapId != null) {
+            mapDataService.deleteMapData(mapId);
+        }
+    }
+
+    private HttpsURLConnection open(String path) throws Exception {
+        TrustManager trustAll = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[]{trustAll}, new SecureRandom());
+        HttpsURLConnection connection = (HttpsURLConnection) URI.create("https://localhost:" + port + path).toURL().openConnection();
+        connection.setSSLSocketFactory(context.getSocketFactory());
+        // The development certificate is not issued for localhost
+        connection.setHostnameVerifier((host, session) -> true);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        return connection;
+    }
+
+    @Test
+    public void testTaggedMapResponsesAreCompressed() throws Exception {
+        MapData mapData = new MapData("Compressed Map", 0.0, 40.335722, -3.876528, "ground", 40, 40);
+        mapData.putMatrix(1, "first", new int[40][40]);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            nodes.add(new Node("Aula " + i, "gzip-" + i, 0, false, i == 0, i % 40, i / 40, null, mapData));
+        }
+        mapData.setNodes(nodes);
+        mapId = mapDataService.saveMapData(mapData).getId();
+
+        HttpsURLConnection first = open("/api/mapdata/" + mapId);
+        assertEquals(200, first.getResponseCode());
+        assertEquals("gzip", first.getContentEncoding(), "A tagged map should still be compressed");
+        String etag = first.getHeaderField("ETag");
+        assertTrue(etag.startsWith("W/\"map-"), etag);
+        try (InputStream body = new GZIPInputStream(first.getInputStream())) {
+            assertTrue(new String(body.readAllBytes()).contains("\"Compressed Map\""));
+        }
+
+        HttpsURLConnection revalidation = open("/api/mapdata/" + mapId);
+        revalidation.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, revalidation.getResponseCode());
+        revalidation.disconnect();
+    }
+}
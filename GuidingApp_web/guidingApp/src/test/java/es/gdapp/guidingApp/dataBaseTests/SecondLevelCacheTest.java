@@ -0,0 +1,66 @@
+package es.gdapp.guidingApp.dataBaseTests;
+
+import es.gdapp.guidingApp.models.MapData;
+import es.gdapp.guidingApp.models.Node;
+import es.gdapp.guidingApp.services.MapDataService;
+import es.gdapp.guidingApp.services.NodeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the cache only serves entries put before the reading transaction
+// started, so each read runs in its own transaction, as requests do. Only seeded data is read
+@SpringBootTest
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private MapDataService mapDataService;
+
+    @Autowired
+    private NodeService nodeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Reads a seeded map the way the map and navigation endpoints do
+    private int readMap(Long mapDataId, String beaconId) {
+        return new TransactionTemplate(transactionManager).execute(status -> readMapInTransaction(mapDataId, beaconId));
+    }
+
+    private int readMapInTransaction(Long mapDataId, String beaconId) {
+        MapData mapData = mapDataService.getMapDataById(mapDataId).orElseThrow();
+        int size = mapData.getMatrices().size() + mapData.getNodes().size() + mapData.getEdges().size();
+        size += nodeService.getNodeByBeaconId(beaconId).isPresent() ? 1 : 0;
+        size += nodeService.findExitNodesByMapData(mapDataId).size();
+        size += nodeService.findEntranceNodesByMapData(mapDataId).size();
+        return size;
+    }
+
+    @Test
+    public void testRepeatedReadsDoNoSql() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Node seeded = new TransactionTemplate(transactionManager).execute(status -> nodeService.getAllNodes().stream()
+                .filter(n -> n.getBeaconId() != null && n.getMapData() != null)
+                .findFirst().orElseThrow());
+        Long id = seeded.getMapData().getId();
+        String beaconId = seeded.getBeaconId();
+
+        int expected = readMap(id, beaconId);  // Fills the caches
+        statistics.clear();
+
+        assertEquals(expected, readMap(id, beaconId));
+        assertEquals(0, statistics.getPrepareStatementCount(), "The second read should not reach the database");
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        assertEquals(2, statistics.getQueryCacheHitCount(), "Exit and entrance lists should come from the query cache");
+    }
+}
@@ -0,0 +1,61 @@
+package es.gdapp.guidingApp.routing;
+
+import es.gdapp.guidingApp.models.GridMatrix;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchBuffersTests {
+
+    private static SearchBuffers buffersAfterSearch(int cells) {
+        SearchBuffers b = SearchBuffers.acquire();
+        try {
+            b.begin(cells);
+        } finally {
+            b.release();
+        }
+        return b;
+    }
+
+    @Test
+    public void testSmallBuffersAreKept() {
+        SearchBuffers b = buffersAfterSearch(100);
+        assertSame(b, SearchBuffers.acquire(), "A platform thread should reuse its buffers");
+        assertTrue(b.capacity() >= 100, "Buffers for small searches should be kept");
+    }
+
+    @Test
+    public void testLargeBuffersAreDroppedOnRelease() {
+        SearchBuffers b = buffersAfterSearch(SearchBuffers.MAX_RETAINED_CELLS + 1);
+        assertTrue(b.capacity() <= SearchBuffers.MAX_RETAINED_CELLS,
+                "Buffers over the cap should not outlive the search");
+    }
+
+    @Test
+    public void testLargeFloorSearchLeavesNothingBehind() throws Exception {
+        // A 1000 x 1000 floor, searched from corner to corner on a fresh platform thread
+        GridMatrix grid = new GridMatrix(1000, 1000);
+        boolean[] found = new boolean[1];
+        int[] retained = new int[1];
+        Thread thread = new Thread(() -> {
+            found[0] = new GridRouteEngine().findRoute(grid, 0, 0, 999, 999).isPresent();
+            retained[0] = SearchBuffers.acquire().capacity();
+        });
+        thread.start();
+        thread.join();
+        assertTrue(found[0], "The open floor should have a route");
+        assertTrue(retained[0] <= SearchBuffers.MAX_RETAINED_CELLS,
+                "Retained " + retained[0] + " cells after the search");
+    }
+
+    @Test
+    public void testPooledBuffersAreCappedToo() throws Exception {
+        int[] retained = new int[1];
+        Thread.ofVirtual().start(() -> {
+            buffersAfterSearch(SearchBuffers.MAX_RETAINED_CELLS * 4);
+            retained[0] = SearchBuffers.acquire().capacity();
+        }).join();
+        assertTrue(retained[0] <= SearchBuffers.MAX_RETAINED_CELLS,
+                "Retained " + retained[0] + " cells in the pool");
+    }
+}